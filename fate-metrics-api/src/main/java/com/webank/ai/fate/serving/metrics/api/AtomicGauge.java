@@ -0,0 +1,21 @@
+package com.webank.ai.fate.serving.metrics.api;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * a gauge holding the last value set, stored as the bits of the double
+ */
+public class AtomicGauge implements IGauge {
+
+    private final AtomicLong bits = new AtomicLong(Double.doubleToRawLongBits(0));
+
+    @Override
+    public void set(double value) {
+        bits.set(Double.doubleToRawLongBits(value));
+    }
+
+    @Override
+    public double get() {
+        return Double.longBitsToDouble(bits.get());
+    }
+}
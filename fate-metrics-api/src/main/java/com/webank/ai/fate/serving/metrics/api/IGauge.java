@@ -0,0 +1,8 @@
+package com.webank.ai.fate.serving.metrics.api;
+
+public interface IGauge {
+
+    void set(double value);
+
+    double get();
+}
@@ -2,6 +2,10 @@ package com.webank.ai.fate.serving.metrics.api;
 
 import java.util.concurrent.Callable;
 
+/**
+ * counter and timer return handles that can be kept in a field and reused, resolving them on every call
+ * costs a lookup by name and tags. metrics with tag values only known per call use taggedCounter and taggedTimer
+ */
 public interface IMetricFactory {
 
     ICounter counter(String name, String desc, String... tags);
@@ -9,4 +13,21 @@ public interface IMetricFactory {
     ITimer timer(String name, String desc, String... tags);
 
     void gauge(String name, String desc, Callable<Double> callable, String... tags);
+
+    default TaggedMetric<ICounter> taggedCounter(String name, String desc, String... tagKeys) {
+        return new TaggedMetric<>(tags -> counter(name, desc, tags), tagKeys);
+    }
+
+    default TaggedMetric<ITimer> taggedTimer(String name, String desc, String... tagKeys) {
+        return new TaggedMetric<>(tags -> timer(name, desc, tags), tagKeys);
+    }
+
+    /**
+     * a gauge reporting the last value set on the returned handle
+     */
+    default IGauge settableGauge(String name, String desc, String... tags) {
+        AtomicGauge gauge = new AtomicGauge();
+        gauge(name, desc, gauge::get, tags);
+        return gauge;
+    }
 }
@@ -0,0 +1,85 @@
+package com.webank.ai.fate.serving.metrics.api;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * one metric name with fixed tag keys whose values are given per call. every combination of values is resolved
+ * through the factory once, later lookups walk one map per tag key and allocate nothing
+ */
+public class TaggedMetric<M> {
+
+    private final String[] tagKeys;
+    private final Function<String[], M> resolver;
+    private final ConcurrentMap<String, Object> children = new ConcurrentHashMap<>();
+
+    /**
+     * @param resolver creates the metric from the key value pairs of the tags
+     */
+    public TaggedMetric(Function<String[], M> resolver, String... tagKeys) {
+        if (tagKeys.length < 1 || tagKeys.length > 3) {
+            throw new IllegalArgumentException("a tagged metric has one to three tag keys");
+        }
+        this.tagKeys = tagKeys.clone();
+        this.resolver = resolver;
+    }
+
+    @SuppressWarnings("unchecked")
+    public M get(String value) {
+        checkArity(1);
+        M metric = (M) children.get(String.valueOf(value));
+        return metric != null ? metric : resolve(value);
+    }
+
+    @SuppressWarnings("unchecked")
+    public M get(String value1, String value2) {
+        checkArity(2);
+        ConcurrentMap<String, Object> level = (ConcurrentMap<String, Object>) children.get(String.valueOf(value1));
+        if (level != null) {
+            M metric = (M) level.get(String.valueOf(value2));
+            if (metric != null) {
+                return metric;
+            }
+        }
+        return resolve(value1, value2);
+    }
+
+    @SuppressWarnings("unchecked")
+    public M get(String value1, String value2, String value3) {
+        checkArity(3);
+        ConcurrentMap<String, Object> level = (ConcurrentMap<String, Object>) children.get(String.valueOf(value1));
+        if (level != null) {
+            level = (ConcurrentMap<String, Object>) level.get(String.valueOf(value2));
+            if (level != null) {
+                M metric = (M) level.get(String.valueOf(value3));
+                if (metric != null) {
+                    return metric;
+                }
+            }
+        }
+        return resolve(value1, value2, value3);
+    }
+
+    @SuppressWarnings("unchecked")
+    private M resolve(String... values) {
+        ConcurrentMap<String, Object> level = children;
+        for (int i = 0; i < values.length - 1; i++) {
+            level = (ConcurrentMap<String, Object>) level.computeIfAbsent(String.valueOf(values[i]), k -> new ConcurrentHashMap<>());
+        }
+        return (M) level.computeIfAbsent(String.valueOf(values[values.length - 1]), k -> {
+            String[] tags = new String[tagKeys.length * 2];
+            for (int i = 0; i < tagKeys.length; i++) {
+                tags[2 * i] = tagKeys[i];
+                tags[2 * i + 1] = String.valueOf(values[i]);
+            }
+            return resolver.apply(tags);
+        });
+    }
+
+    private void checkArity(int count) {
+        if (tagKeys.length != count) {
+            throw new IllegalArgumentException("expected " + tagKeys.length + " tag values, got " + count);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2019 The FATE Authors. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.webank.ai.fate.serving.benchmark;
+
+import com.webank.ai.fate.serving.core.bean.FederatedParams;
+import com.webank.ai.fate.serving.core.manager.CacheKeyGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CacheKeyGenerator.remoteModelInferenceResultKey over featureIdNum feature ids
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CacheKeyBenchmark {
+
+    @Param({"1", "10"})
+    public int featureIdNum;
+
+    private FederatedParams federatedParams;
+
+    @Setup
+    public void setup() {
+        federatedParams = LoopbackHost.guestParams("bench_case");
+        for (int i = 1; i < featureIdNum; i++) {
+            federatedParams.getFeatureIdMap().put("feature_id_" + i, "value_" + i);
+        }
+    }
+
+    @Benchmark
+    public String remoteModelInferenceResultKey() {
+        return CacheKeyGenerator.remoteModelInferenceResultKey(federatedParams);
+    }
+}
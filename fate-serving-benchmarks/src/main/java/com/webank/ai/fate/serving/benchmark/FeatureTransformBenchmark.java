@@ -0,0 +1,86 @@
+/*
+ * Copyright 2019 The FATE Authors. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.webank.ai.fate.serving.benchmark;
+
+import com.webank.ai.fate.serving.core.bean.BaseContext;
+import com.webank.ai.fate.serving.core.bean.Context;
+import com.webank.ai.fate.serving.core.bean.Dict;
+import com.webank.ai.fate.serving.core.bean.FederatedParams;
+import com.webank.ai.fate.serving.federatedml.model.BaseModel;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * the stateless feature engineering components, each call gets a fresh copy of the row
+ * because Scale transforms its input in place
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FeatureTransformBenchmark {
+
+    @Param({"20", "200"})
+    public int featureNum;
+
+    private BaseModel binning;
+    private BaseModel oneHot;
+    private BaseModel standardScale;
+    private BaseModel minMaxScale;
+    private Map<String, Object> featureData;
+    private Map<String, Object> categoricalFeatureData;
+    private Context context;
+    private FederatedParams federatedParams;
+
+    @Setup
+    public void setup() {
+        binning = ModelFixtures.binning(featureNum);
+        oneHot = ModelFixtures.oneHot(featureNum);
+        standardScale = ModelFixtures.scale(Dict.STANDARD_SCALE, featureNum);
+        minMaxScale = ModelFixtures.scale(Dict.MIN_MAX_SCALE, featureNum);
+        featureData = ModelFixtures.featureData(featureNum);
+        categoricalFeatureData = ModelFixtures.categoricalFeatureData(featureNum);
+        context = new BaseContext();
+        federatedParams = new FederatedParams();
+    }
+
+    @Benchmark
+    public Map<String, Object> featureBinning() {
+        return binning.handlePredict(context, Collections.singletonList(new HashMap<>(featureData)), federatedParams);
+    }
+
+    @Benchmark
+    public Map<String, Object> oneHotEncoder() {
+        return oneHot.handlePredict(context, Collections.singletonList(new HashMap<>(categoricalFeatureData)), federatedParams);
+    }
+
+    @Benchmark
+    public Map<String, Object> standardScale() {
+        return standardScale.handlePredict(context, Collections.singletonList(new HashMap<>(featureData)), federatedParams);
+    }
+
+    @Benchmark
+    public Map<String, Object> minMaxScale() {
+        return minMaxScale.handlePredict(context, Collections.singletonList(new HashMap<>(featureData)), federatedParams);
+    }
+}
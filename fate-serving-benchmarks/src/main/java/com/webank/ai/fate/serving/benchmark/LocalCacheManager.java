@@ -0,0 +1,68 @@
+/*
+ * Copyright 2019 The FATE Authors. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.webank.ai.fate.serving.benchmark;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.webank.ai.fate.serving.core.bean.CacheManager;
+import com.webank.ai.fate.serving.core.bean.Context;
+import com.webank.ai.fate.serving.core.bean.FederatedParams;
+import com.webank.ai.fate.serving.core.bean.ReturnResult;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * in-process replacement of DefaultCacheManager so that no redis is needed.
+ * inference results are never served from cache, every guest prediction pays for the host round trip
+ */
+public class LocalCacheManager implements CacheManager {
+
+    private final Cache<String, Object> processDataCache = CacheBuilder.newBuilder()
+            .expireAfterAccess(60, TimeUnit.SECONDS)
+            .maximumSize(50000)
+            .build();
+
+    @Override
+    public void store(Context context, String key, Object object) {
+        processDataCache.put(key, object);
+    }
+
+    @Override
+    public <T> T restore(Context context, String key, Class<T> dataType) {
+        return dataType.cast(processDataCache.getIfPresent(key));
+    }
+
+    @Override
+    public void putInferenceResultCache(Context context, String partyId, String caseid, ReturnResult returnResult) {
+
+    }
+
+    @Override
+    public ReturnResult getInferenceResultCache(String partyId, String caseid) {
+        return null;
+    }
+
+    @Override
+    public ReturnResult getRemoteModelInferenceResult(FederatedParams guestFederatedParams) {
+        return null;
+    }
+
+    @Override
+    public void putRemoteModelInferenceResult(FederatedParams guestFederatedParams, ReturnResult returnResult) {
+
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2019 The FATE Authors. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.webank.ai.fate.serving.benchmark;
+
+import com.google.common.collect.Lists;
+import com.webank.ai.fate.api.networking.proxy.DataTransferServiceGrpc;
+import com.webank.ai.fate.api.networking.proxy.Proxy;
+import com.webank.ai.fate.serving.core.bean.*;
+import com.webank.ai.fate.serving.core.constant.InferenceRetCode;
+import com.webank.ai.fate.serving.federatedml.FederatedPayloadCodec;
+import com.webank.ai.fate.serving.federatedml.PipelineTask;
+import com.webank.ai.fate.serving.federatedml.model.HeteroSecureBoostingTreeHost;
+import io.grpc.Server;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.grpc.stub.StreamObserver;
+import org.springframework.context.support.StaticApplicationContext;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * host party served from a loopback grpc server, the guest side reaches it through the
+ * regular proxy address path (useZkRouter=false), so federated predictions run without zookeeper or a proxy
+ */
+public class LoopbackHost extends DataTransferServiceGrpc.DataTransferServiceImplBase implements AutoCloseable {
+
+    private final PipelineTask hostPipeline;
+    private final Map<String, Object> hostFeatureData;
+    private final Server server;
+
+    private LoopbackHost(PipelineTask hostPipeline, Map<String, Object> hostFeatureData) throws IOException {
+        this.hostPipeline = hostPipeline;
+        this.hostFeatureData = hostFeatureData;
+        this.server = NettyServerBuilder.forAddress(new InetSocketAddress("127.0.0.1", 0))
+                .addService(this)
+                .build()
+                .start();
+    }
+
+    public static LoopbackHost start(String modelType, int featureNum) throws IOException {
+        installLocalCacheManager();
+        LoopbackHost host = new LoopbackHost(ModelFixtures.pipelineTask(modelType, Dict.HOST, featureNum), ModelFixtures.featureData(featureNum));
+        Configuration.setProperty(Dict.USE_ZK_ROUTER, "false");
+        Configuration.setProperty(Dict.PROPERTY_PROXY_ADDRESS, "127.0.0.1:" + host.server.getPort());
+        return host;
+    }
+
+    public static void installLocalCacheManager() {
+        if (ApplicationHolder.applicationContext == null) {
+            StaticApplicationContext applicationContext = new StaticApplicationContext();
+            applicationContext.getBeanFactory().registerSingleton("cacheManager", new LocalCacheManager());
+            applicationContext.refresh();
+            ApplicationHolder.applicationContext = applicationContext;
+        }
+    }
+
+    public static FederatedParams guestParams(String caseId) {
+        FederatedRoles federatedRoles = new FederatedRoles();
+        federatedRoles.setRole(Dict.GUEST, Lists.newArrayList(ModelFixtures.GUEST_PARTY_ID));
+        federatedRoles.setRole(Dict.HOST, Lists.newArrayList(ModelFixtures.HOST_PARTY_ID));
+        FederatedParams federatedParams = new FederatedParams();
+        federatedParams.setCaseId(caseId);
+        federatedParams.setSeqNo(caseId);
+        federatedParams.setLocal(new FederatedParty(Dict.GUEST, ModelFixtures.GUEST_PARTY_ID));
+        federatedParams.setRole(federatedRoles);
+        federatedParams.setModelInfo(new ModelInfo("benchmark_model", "benchmark_namespace"));
+        federatedParams.getFeatureIdMap().put("device_id", caseId);
+        return federatedParams;
+    }
+
+    @Override
+    public void unaryCall(Proxy.Packet req, StreamObserver<Proxy.Packet> responseObserver) {
+        Context context = new BaseContext();
+        ReturnResult returnResult = new ReturnResult();
+        try {
+            HostFederatedParams requestData = FederatedPayloadCodec.decodeRequest(req.getBody());
+            context.setCaseId(requestData.getCaseId());
+            switch (req.getHeader().getCommand().getName()) {
+                case Dict.FEDERATED_INFERENCE:
+                    returnResult.setData(hostPipeline.predict(context, new HashMap<>(hostFeatureData), requestData));
+                    returnResult.setRetcode(InferenceRetCode.OK);
+                    break;
+                case Dict.FEDERATED_INFERENCE_FOR_TREE:
+                    returnResult.setData(treeHost(requestData).predictSingleRound(context, (Map<String, Object>) requestData.getData().get(Dict.TREE_LOCATION), requestData));
+                    returnResult.setRetcode(InferenceRetCode.OK);
+                    break;
+                case Dict.FEDERATED_INFERENCE_FOR_TREE_BITMASK:
+                    returnResult.setData(treeHost(requestData).predictBranchMask(context, (Map<String, Object>) requestData.getData().get(Dict.TREE_LOCATION), requestData));
+                    returnResult.setRetcode(InferenceRetCode.OK);
+                    break;
+                default:
+                    returnResult.setRetcode(StatusCode.PARAMERROR);
+                    break;
+            }
+        } catch (Exception e) {
+            returnResult.setRetcode(InferenceRetCode.SYSTEM_ERROR);
+            returnResult.setRetmsg(e.getMessage());
+        }
+        responseObserver.onNext(Proxy.Packet.newBuilder()
+                .setBody(FederatedPayloadCodec.encodeResponse(req.getBody(), returnResult))
+                .build());
+        responseObserver.onCompleted();
+    }
+
+    private HeteroSecureBoostingTreeHost treeHost(HostFederatedParams requestData) {
+        return (HeteroSecureBoostingTreeHost) hostPipeline.getModelByComponentName(requestData.getData().get(Dict.COMPONENT_NAME).toString());
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        server.shutdown().awaitTermination(5, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,285 @@
+/*
+ * Copyright 2019 The FATE Authors. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.webank.ai.fate.serving.benchmark;
+
+import com.google.protobuf.ByteString;
+import com.webank.ai.fate.core.mlmodel.buffer.BoostTreeModelMetaProto.BoostingTreeModelMeta;
+import com.webank.ai.fate.core.mlmodel.buffer.BoostTreeModelParamProto.BoostingTreeModelParam;
+import com.webank.ai.fate.core.mlmodel.buffer.BoostTreeModelParamProto.DecisionTreeModelParam;
+import com.webank.ai.fate.core.mlmodel.buffer.BoostTreeModelParamProto.NodeParam;
+import com.webank.ai.fate.core.mlmodel.buffer.FeatureBinningMetaProto.FeatureBinningMeta;
+import com.webank.ai.fate.core.mlmodel.buffer.FeatureBinningMetaProto.TransformMeta;
+import com.webank.ai.fate.core.mlmodel.buffer.FeatureBinningParamProto.FeatureBinningParam;
+import com.webank.ai.fate.core.mlmodel.buffer.FeatureBinningParamProto.FeatureBinningResult;
+import com.webank.ai.fate.core.mlmodel.buffer.FeatureBinningParamProto.IVParam;
+import com.webank.ai.fate.core.mlmodel.buffer.LRModelMetaProto.LRModelMeta;
+import com.webank.ai.fate.core.mlmodel.buffer.LRModelParamProto.LRModelParam;
+import com.webank.ai.fate.core.mlmodel.buffer.OneHotMetaProto.OneHotMeta;
+import com.webank.ai.fate.core.mlmodel.buffer.OneHotParamProto.ColsMap;
+import com.webank.ai.fate.core.mlmodel.buffer.OneHotParamProto.OneHotParam;
+import com.webank.ai.fate.core.mlmodel.buffer.PipelineProto;
+import com.webank.ai.fate.core.mlmodel.buffer.ScaleMetaProto.ScaleMeta;
+import com.webank.ai.fate.core.mlmodel.buffer.ScaleParamProto.ColumnScaleParam;
+import com.webank.ai.fate.core.mlmodel.buffer.ScaleParamProto.ScaleParam;
+import com.webank.ai.fate.core.mlmodel.buffer.fm.FMModelMetaProto.FMModelMeta;
+import com.webank.ai.fate.core.mlmodel.buffer.fm.FMModelParamProto.Embedding;
+import com.webank.ai.fate.core.mlmodel.buffer.fm.FMModelParamProto.FMModelParam;
+import com.webank.ai.fate.serving.core.bean.Dict;
+import com.webank.ai.fate.serving.federatedml.PipelineTask;
+import com.webank.ai.fate.serving.federatedml.model.BaseModel;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * synthetic model fixtures, built from the same protobuf messages the model loader receives
+ * so that the benchmarks run without a model repository
+ */
+public class ModelFixtures {
+
+    public static final String LR = "lr";
+    public static final String FM = "fm";
+    public static final String SECURE_BOOST = "secureboost";
+
+    public static final String GUEST_PARTY_ID = "9999";
+    public static final String HOST_PARTY_ID = "10000";
+
+    public static final int EMBED_SIZE = 8;
+    public static final int TREE_NUM = 10;
+    public static final int TREE_DEPTH = 4;
+    public static final int BIN_NUM = 10;
+    public static final int ONE_HOT_CATEGORIES = 8;
+
+    private static final long SEED = 20191112L;
+
+    public static String featureName(int index) {
+        return "x" + index;
+    }
+
+    public static Map<String, Object> featureData(int featureNum) {
+        Random random = new Random(SEED);
+        Map<String, Object> featureData = new HashMap<>(featureNum * 2);
+        for (int i = 0; i < featureNum; i++) {
+            featureData.put(featureName(i), random.nextDouble());
+        }
+        return featureData;
+    }
+
+    public static Map<String, Object> categoricalFeatureData(int featureNum) {
+        Random random = new Random(SEED);
+        Map<String, Object> featureData = new HashMap<>(featureNum * 2);
+        for (int i = 0; i < featureNum; i++) {
+            featureData.put(featureName(i), random.nextInt(ONE_HOT_CATEGORIES));
+        }
+        return featureData;
+    }
+
+    /**
+     * model proto map of a single component pipeline, keyed the way the model loader hands it to PipelineTask
+     */
+    public static Map<String, byte[]> pipelineModel(String modelType, String role, int featureNum) {
+        String componentName;
+        String className;
+        byte[] meta;
+        byte[] param;
+        String classRole = Dict.GUEST.equals(role) ? "Guest" : "Host";
+        switch (modelType) {
+            case LR:
+                componentName = "hetero_lr_0";
+                className = "HeteroLR" + classRole;
+                meta = LRModelMeta.newBuilder().build().toByteArray();
+                param = lrParam(featureNum).toByteArray();
+                break;
+            case FM:
+                componentName = "hetero_fm_0";
+                className = "HeteroFM" + classRole;
+                meta = FMModelMeta.newBuilder().build().toByteArray();
+                param = fmParam(featureNum).toByteArray();
+                break;
+            case SECURE_BOOST:
+                componentName = "secureboost_0";
+                className = "HeteroSecureBoostingTree" + classRole;
+                meta = BoostingTreeModelMeta.newBuilder().setLearningRate(0.1).setNumTrees(TREE_NUM).build().toByteArray();
+                param = secureBoostParam(featureNum).toByteArray();
+                break;
+            default:
+                throw new IllegalArgumentException("unknown model type " + modelType);
+        }
+
+        String dsl = "{\"" + Dict.DSL_COMPONENTS + "\":{\"" + componentName + "\":{"
+                + "\"" + Dict.DSL_CODE_PATH + "\":\"federatedml/benchmark/" + className + "\","
+                + "\"" + Dict.DSL_INPUT + "\":{\"" + Dict.DSL_DATA + "\":{\"data\":[\"" + Dict.DSL_ARGS + ".data\"]}}}}}";
+        PipelineProto.Pipeline pipeline = PipelineProto.Pipeline.newBuilder()
+                .setInferenceDsl(ByteString.copyFromUtf8(dsl))
+                .build();
+
+        Map<String, byte[]> modelProtoMap = new HashMap<>(8);
+        modelProtoMap.put(Dict.PIPLELINE_IN_MODEL, pipeline.toByteArray());
+        modelProtoMap.put(componentName + "." + className + "Meta", meta);
+        modelProtoMap.put(componentName + "." + className + "Param", param);
+        return modelProtoMap;
+    }
+
+    public static PipelineTask pipelineTask(String modelType, String role, int featureNum) {
+        PipelineTask pipelineTask = new PipelineTask();
+        pipelineTask.initModel(pipelineModel(modelType, role, featureNum));
+        return pipelineTask;
+    }
+
+    static LRModelParam lrParam(int featureNum) {
+        Random random = new Random(SEED);
+        LRModelParam.Builder builder = LRModelParam.newBuilder().setIntercept(random.nextGaussian());
+        for (int i = 0; i < featureNum; i++) {
+            builder.putWeight(featureName(i), random.nextGaussian());
+            builder.addHeader(featureName(i));
+        }
+        return builder.build();
+    }
+
+    static FMModelParam fmParam(int featureNum) {
+        Random random = new Random(SEED);
+        FMModelParam.Builder builder = FMModelParam.newBuilder()
+                .setIntercept(random.nextGaussian())
+                .setEmbedSize(EMBED_SIZE);
+        for (int i = 0; i < featureNum; i++) {
+            builder.putWeight(featureName(i), random.nextGaussian());
+            Embedding.Builder embedding = Embedding.newBuilder();
+            for (int j = 0; j < EMBED_SIZE; j++) {
+                embedding.addWeight(random.nextGaussian() * 0.1);
+            }
+            builder.putEmbedding(featureName(i), embedding.build());
+            builder.addHeader(featureName(i));
+        }
+        return builder.build();
+    }
+
+    /**
+     * complete binary trees whose split owner alternates between guest and host level by level,
+     * so every prediction needs TREE_DEPTH / 2 host rounds. both parties share the layout, each side
+     * only ever evaluates the splits of its own site
+     */
+    static BoostingTreeModelParam secureBoostParam(int featureNum) {
+        Random random = new Random(SEED);
+        BoostingTreeModelParam.Builder builder = BoostingTreeModelParam.newBuilder()
+                .setTreeNum(TREE_NUM)
+                .setTreeDim(1)
+                .setNumClasses(2)
+                .addInitScore(0.0)
+                .addClasses("0")
+                .addClasses("1");
+        for (int i = 0; i < featureNum; i++) {
+            builder.putFeatureNameFidMapping(i, featureName(i));
+        }
+        int nodeNum = (1 << (TREE_DEPTH + 1)) - 1;
+        int firstLeaf = (1 << TREE_DEPTH) - 1;
+        for (int t = 0; t < TREE_NUM; t++) {
+            DecisionTreeModelParam.Builder tree = DecisionTreeModelParam.newBuilder();
+            for (int nodeId = 0; nodeId < nodeNum; nodeId++) {
+                int depth = 31 - Integer.numberOfLeadingZeros(nodeId + 1);
+                boolean leaf = nodeId >= firstLeaf;
+                NodeParam.Builder node = NodeParam.newBuilder()
+                        .setId(nodeId)
+                        .setIsLeaf(leaf)
+                        .setSitename(leaf || depth % 2 == 0 ? Dict.GUEST + ":" + GUEST_PARTY_ID : Dict.HOST + ":" + HOST_PARTY_ID);
+                if (leaf) {
+                    node.setWeight(random.nextGaussian());
+                } else {
+                    node.setFid(random.nextInt(featureNum))
+                            .setLeftNodeid(2 * nodeId + 1)
+                            .setRightNodeid(2 * nodeId + 2);
+                    tree.putSplitMaskdict(nodeId, random.nextDouble());
+                    tree.putMissingDirMaskdict(nodeId, 1);
+                }
+                tree.addTree(node.build());
+            }
+            builder.addTrees(tree.build());
+        }
+        return builder.build();
+    }
+
+    public static BaseModel binning(int featureNum) {
+        Random random = new Random(SEED);
+        TransformMeta.Builder transformMeta = TransformMeta.newBuilder().setTransformType("bin_num");
+        FeatureBinningResult.Builder binningResult = FeatureBinningResult.newBuilder()
+                .setRole(Dict.GUEST)
+                .setPartyId(GUEST_PARTY_ID);
+        FeatureBinningParam.Builder param = FeatureBinningParam.newBuilder();
+        for (int i = 0; i < featureNum; i++) {
+            transformMeta.addTransformCols(i);
+            param.addHeader(featureName(i));
+            IVParam.Builder ivParam = IVParam.newBuilder().setBinNums(BIN_NUM);
+            double splitPoint = 0;
+            for (int j = 0; j < BIN_NUM; j++) {
+                splitPoint += random.nextDouble() / BIN_NUM;
+                ivParam.addSplitPoints(splitPoint);
+            }
+            binningResult.putBinningResult(featureName(i), ivParam.build());
+        }
+        FeatureBinningMeta meta = FeatureBinningMeta.newBuilder()
+                .setNeedRun(true)
+                .setBinNum(BIN_NUM)
+                .setTransformParam(transformMeta)
+                .build();
+        return component("HeteroFeatureBinningGuest", meta.toByteArray(), param.setBinningResult(binningResult).build().toByteArray());
+    }
+
+    public static BaseModel oneHot(int featureNum) {
+        OneHotMeta.Builder meta = OneHotMeta.newBuilder().setNeedRun(true);
+        OneHotParam.Builder param = OneHotParam.newBuilder();
+        for (int i = 0; i < featureNum; i++) {
+            meta.addTransformColNames(featureName(i));
+            meta.addHeader(featureName(i));
+            ColsMap.Builder colsMap = ColsMap.newBuilder();
+            for (int j = 0; j < ONE_HOT_CATEGORIES; j++) {
+                colsMap.addValues(String.valueOf(j));
+                colsMap.addTransformedHeaders(featureName(i) + "_" + j);
+                param.addResultHeader(featureName(i) + "_" + j);
+            }
+            param.putColMap(featureName(i), colsMap.build());
+        }
+        return component("OneHotEncoder", meta.build().toByteArray(), param.build().toByteArray());
+    }
+
+    public static BaseModel scale(String method, int featureNum) {
+        Random random = new Random(SEED);
+        ScaleMeta.Builder meta = ScaleMeta.newBuilder().setMethod(method).setNeedRun(true);
+        ScaleParam.Builder param = ScaleParam.newBuilder();
+        for (int i = 0; i < featureNum; i++) {
+            meta.addScaleColumn(featureName(i));
+            param.addHeader(featureName(i));
+            param.putColScaleParam(featureName(i), ColumnScaleParam.newBuilder()
+                    .setColumnLower(0.0)
+                    .setColumnUpper(1.0)
+                    .setMean(random.nextDouble())
+                    .setStd(random.nextDouble() + 0.5)
+                    .build());
+        }
+        return component("Scale", meta.build().toByteArray(), param.build().toByteArray());
+    }
+
+    private static BaseModel component(String className, byte[] meta, byte[] param) {
+        try {
+            BaseModel model = (BaseModel) Class.forName("com.webank.ai.fate.serving.federatedml.model." + className).getConstructor().newInstance();
+            model.setComponentName(className.toLowerCase() + "_0");
+            model.initModel(meta, param);
+            return model;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
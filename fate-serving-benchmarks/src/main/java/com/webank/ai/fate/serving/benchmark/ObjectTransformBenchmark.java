@@ -0,0 +1,76 @@
+/*
+ * Copyright 2019 The FATE Authors. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.webank.ai.fate.serving.benchmark;
+
+import com.webank.ai.fate.api.networking.federated.FederatedInferenceProto;
+import com.webank.ai.fate.serving.core.bean.Dict;
+import com.webank.ai.fate.serving.core.bean.ReturnResult;
+import com.webank.ai.fate.serving.core.utils.ObjectTransform;
+import com.webank.ai.fate.serving.federatedml.FederatedPayloadCodec;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * the json round trip every host response goes through, against its protobuf encoding
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ObjectTransformBenchmark {
+
+    @Param({"1", "20", "200"})
+    public int fieldNum;
+
+    private ReturnResult returnResult;
+    private String returnResultJson;
+
+    @Setup
+    public void setup() {
+        returnResult = new ReturnResult();
+        returnResult.setRetcode(0);
+        returnResult.setCaseid("bench_case");
+        returnResult.setData(new HashMap<>(ModelFixtures.featureData(fieldNum)));
+        returnResult.getData().put(Dict.SCORE, 0.5);
+        returnResultJson = ObjectTransform.bean2Json(returnResult);
+    }
+
+    @Benchmark
+    public String bean2Json() {
+        return ObjectTransform.bean2Json(returnResult);
+    }
+
+    @Benchmark
+    public Object json2Bean() {
+        return ObjectTransform.json2Bean(returnResultJson, ReturnResult.class);
+    }
+
+    @Benchmark
+    public Object roundTrip() {
+        return ObjectTransform.json2Bean(ObjectTransform.bean2Json(returnResult), ReturnResult.class);
+    }
+
+    @Benchmark
+    public Object protobufRoundTrip() throws Exception {
+        byte[] body = FederatedPayloadCodec.toProto(returnResult).toByteArray();
+        return FederatedPayloadCodec.fromProto(FederatedInferenceProto.FederatedInferenceResponse.parseFrom(body));
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2019 The FATE Authors. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.webank.ai.fate.serving.benchmark;
+
+import com.webank.ai.fate.serving.core.bean.BaseContext;
+import com.webank.ai.fate.serving.core.bean.Context;
+import com.webank.ai.fate.serving.core.bean.Dict;
+import com.webank.ai.fate.serving.federatedml.PipelineTask;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * PipelineTask.predict on both parties. the guest side includes the federated round trips
+ * to a loopback host, the host side is the pure local computation
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PipelinePredictBenchmark {
+
+    @Param({ModelFixtures.LR, ModelFixtures.FM, ModelFixtures.SECURE_BOOST})
+    public String model;
+
+    @Param({"20", "200"})
+    public int featureNum;
+
+    private final AtomicLong caseIdGenerator = new AtomicLong();
+    private LoopbackHost loopbackHost;
+    private PipelineTask guestPipeline;
+    private PipelineTask hostPipeline;
+    private Map<String, Object> featureData;
+
+    @Setup
+    public void setup() throws Exception {
+        loopbackHost = LoopbackHost.start(model, featureNum);
+        guestPipeline = ModelFixtures.pipelineTask(model, Dict.GUEST, featureNum);
+        hostPipeline = ModelFixtures.pipelineTask(model, Dict.HOST, featureNum);
+        featureData = ModelFixtures.featureData(featureNum);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        loopbackHost.close();
+    }
+
+    @Benchmark
+    public Map<String, Object> guestPredict() {
+        String caseId = "bench_" + caseIdGenerator.incrementAndGet();
+        Context context = new BaseContext();
+        context.setCaseId(caseId);
+        return guestPipeline.predict(context, new HashMap<>(featureData), LoopbackHost.guestParams(caseId));
+    }
+
+    @Benchmark
+    public Map<String, Object> hostPredict() {
+        String caseId = "bench_" + caseIdGenerator.incrementAndGet();
+        Context context = new BaseContext();
+        context.setCaseId(caseId);
+        return hostPipeline.predict(context, new HashMap<>(featureData), LoopbackHost.guestParams(caseId));
+    }
+}
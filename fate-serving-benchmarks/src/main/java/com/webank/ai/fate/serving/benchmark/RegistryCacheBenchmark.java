@@ -0,0 +1,95 @@
+/*
+ * Copyright 2019 The FATE Authors. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.webank.ai.fate.serving.benchmark;
+
+import com.webank.ai.fate.register.common.AbstractRegistry;
+import com.webank.ai.fate.register.common.Constants;
+import com.webank.ai.fate.register.url.URL;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AbstractRegistry.getCacheUrls against a registry cache holding serviceNum services,
+ * looking up the last one added
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RegistryCacheBenchmark {
+
+    private static final int PROVIDERS_PER_SERVICE = 3;
+
+    @Param({"10", "100", "1000"})
+    public int serviceNum;
+
+    private File cacheFile;
+    private LocalRegistry registry;
+    private URL serviceUrl;
+
+    @Setup
+    public void setup() throws Exception {
+        cacheFile = File.createTempFile("fate-registry-benchmark", ".cache");
+        cacheFile.deleteOnExit();
+        registry = new LocalRegistry(URL.valueOf("zookeeper://127.0.0.1:2181/fate/benchmark/registry")
+                .addParameter(Constants.FILE_KEY, cacheFile.getAbsolutePath()));
+        for (int i = 0; i < serviceNum; i++) {
+            StringBuilder providers = new StringBuilder();
+            URL url = null;
+            for (int j = 0; j < PROVIDERS_PER_SERVICE; j++) {
+                url = URL.valueOf("grpc://10.0." + j + "." + (i % 250) + ":8000/serving/online/service" + i + "?version=1.2.0");
+                providers.append(url.toFullString()).append(' ');
+            }
+            registry.getCacheProperties().setProperty(url.getServiceKey(), providers.toString().trim());
+            serviceUrl = url;
+        }
+        registry.rebuildCacheUrlIndex();
+    }
+
+    @TearDown
+    public void tearDown() {
+        registry.destroy();
+        cacheFile.delete();
+    }
+
+    @Benchmark
+    public List<URL> getCacheUrls() {
+        return registry.getCacheUrls(serviceUrl);
+    }
+
+    static class LocalRegistry extends AbstractRegistry {
+
+        LocalRegistry(URL url) {
+            super(url);
+        }
+
+        @Override
+        public void doSubProject(String project) {
+
+        }
+
+        @Override
+        public boolean isAvailable() {
+            return true;
+        }
+    }
+}
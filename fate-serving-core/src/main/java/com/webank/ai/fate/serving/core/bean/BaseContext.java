@@ -27,12 +27,15 @@ import org.slf4j.LoggerFactory;
 import org.springframework.context.ApplicationContext;
 
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicLong;
 
 public class BaseContext<Req, Resp extends ReturnResult> implements Context<Req, Resp> {
     private static final Logger logger = LoggerFactory.getLogger(LOGGER_NAME);
     public static ApplicationContext applicationContext;
     public static AtomicLong  requestInProcess= new AtomicLong(0);
+    private static final ConcurrentMap<String, ActionMetrics> actionMetrics = new ConcurrentHashMap<>();
     long timestamp;
     LoggerPrinter loggerPrinter;
     String actionType;
@@ -72,16 +75,28 @@ public class BaseContext<Req, Resp extends ReturnResult> implements Context<Req,
     public void preProcess() {
         try {
             requestInProcess.addAndGet(1);
-            Timer timer = metricRegistry.timer(actionType + "_timer");
-            Counter counter = metricRegistry.counter(actionType + "_couter");
-            counter.inc();
-            timerContext = timer.time();
+            ActionMetrics metrics = getActionMetrics(metricRegistry, actionType);
+            metrics.counter.inc();
+            timerContext = metrics.timer.time();
         } catch (Exception e) {
             logger.error("preProcess error", e);
 
         }
     }
 
+    /**
+     * the timer and counter of an action type are looked up by name once, later requests reuse them
+     */
+    private static ActionMetrics getActionMetrics(MetricRegistry metricRegistry, String actionType) {
+        String key = String.valueOf(actionType);
+        ActionMetrics metrics = actionMetrics.get(key);
+        if (metrics == null || metrics.metricRegistry != metricRegistry) {
+            metrics = new ActionMetrics(metricRegistry, key);
+            actionMetrics.put(key, metrics);
+        }
+        return metrics;
+    }
+
     @Override
     public Object getData(Object key) {
         return dataMap.get(key);
@@ -265,9 +280,19 @@ public class BaseContext<Req, Resp extends ReturnResult> implements Context<Req,
         dataMap.put(Dict.DOWN_STREAM_BEGIN, downstreamBegin);
     }
 
+    @Override
+    public long getDeadline() {
+        return (long) dataMap.getOrDefault(Dict.DEADLINE, 0L);
+    }
+
+    @Override
+    public void setDeadline(long deadline) {
+        dataMap.put(Dict.DEADLINE, deadline);
+    }
+
     @Override
     public long getRouteBasis() {
-        return (long) dataMap.get(Dict.ROUTE_BASIS);
+        return (long) dataMap.getOrDefault(Dict.ROUTE_BASIS, 0L);
     }
 
     @Override
@@ -324,4 +349,16 @@ public class BaseContext<Req, Resp extends ReturnResult> implements Context<Req,
     public void setApplyId(String applyId) {
         dataMap.put(Dict.APPLY_ID, applyId);
     }
+
+    private static class ActionMetrics {
+        final MetricRegistry metricRegistry;
+        final Timer timer;
+        final Counter counter;
+
+        ActionMetrics(MetricRegistry metricRegistry, String actionType) {
+            this.metricRegistry = metricRegistry;
+            this.timer = metricRegistry.timer(actionType + "_timer");
+            this.counter = metricRegistry.counter(actionType + "_couter");
+        }
+    }
 }
@@ -16,6 +16,9 @@
 
 package com.webank.ai.fate.serving.core.bean;
 
+import java.util.ArrayList;
+import java.util.List;
+
 
 public interface CacheManager {
 
@@ -36,4 +39,21 @@ public interface CacheManager {
     public ReturnResult getRemoteModelInferenceResult(FederatedParams guestFederatedParams  );
 
     public void putRemoteModelInferenceResult(FederatedParams guestFederatedParams, ReturnResult returnResult);
+
+    /**
+     * @return the cached results in the order of the params, null where there is none
+     */
+    default List<ReturnResult> getRemoteModelInferenceResults(List<FederatedParams> guestFederatedParams) {
+        List<ReturnResult> returnResults = new ArrayList<>(guestFederatedParams.size());
+        for (FederatedParams federatedParams : guestFederatedParams) {
+            returnResults.add(getRemoteModelInferenceResult(federatedParams));
+        }
+        return returnResults;
+    }
+
+    default void putRemoteModelInferenceResults(List<FederatedParams> guestFederatedParams, List<ReturnResult> returnResults) {
+        for (int i = 0; i < guestFederatedParams.size(); i++) {
+            putRemoteModelInferenceResult(guestFederatedParams.get(i), returnResults.get(i));
+        }
+    }
 }
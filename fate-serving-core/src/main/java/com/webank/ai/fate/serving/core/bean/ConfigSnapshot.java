@@ -0,0 +1,93 @@
+/*
+ * Copyright 2019 The FATE Authors. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webank.ai.fate.serving.core.bean;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * the properties as loaded, never changed afterwards: a reload builds a new snapshot.
+ * typed values are parsed on first use and kept, so reading one costs a map lookup, not a parse
+ */
+public class ConfigSnapshot {
+
+    private final Map<String, String> properties;
+    private final ConcurrentMap<String, Integer> ints = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Long> longs = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Double> doubles = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Boolean> booleans = new ConcurrentHashMap<>();
+
+    public ConfigSnapshot(Map<String, String> properties) {
+        this.properties = Collections.unmodifiableMap(new HashMap<>(properties));
+    }
+
+    public Map<String, String> getProperties() {
+        return properties;
+    }
+
+    public String getString(String key) {
+        return properties.get(key);
+    }
+
+    public String getString(String key, String defaultValue) {
+        String value = properties.get(key);
+        return value != null ? value : defaultValue;
+    }
+
+    /**
+     * @return null if the key is not set
+     */
+    public Integer getInt(String key) {
+        return parsed(ints, key, Integer::valueOf);
+    }
+
+    public int getInt(String key, int defaultValue) {
+        Integer value = getInt(key);
+        return value != null ? value : defaultValue;
+    }
+
+    public long getLong(String key, long defaultValue) {
+        Long value = parsed(longs, key, Long::valueOf);
+        return value != null ? value : defaultValue;
+    }
+
+    public double getDouble(String key, double defaultValue) {
+        Double value = parsed(doubles, key, Double::valueOf);
+        return value != null ? value : defaultValue;
+    }
+
+    public boolean getBoolean(String key, boolean defaultValue) {
+        Boolean value = parsed(booleans, key, Boolean::valueOf);
+        return value != null ? value : defaultValue;
+    }
+
+    private <T> T parsed(ConcurrentMap<String, T> cache, String key, Function<String, T> parser) {
+        T value = cache.get(key);
+        if (value == null) {
+            String raw = properties.get(key);
+            if (raw == null) {
+                return null;
+            }
+            value = parser.apply(raw.trim());
+            cache.putIfAbsent(key, value);
+        }
+        return value;
+    }
+}
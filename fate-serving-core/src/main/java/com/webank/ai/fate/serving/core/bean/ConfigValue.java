@@ -0,0 +1,68 @@
+/*
+ * Copyright 2019 The FATE Authors. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webank.ai.fate.serving.core.bean;
+
+import java.util.function.Function;
+
+/**
+ * one setting held by a hot path. the value is computed once per configuration snapshot,
+ * reading it is a volatile read and a reference compare until the configuration is reloaded
+ */
+public class ConfigValue<T> {
+
+    private final Function<ConfigSnapshot, T> reader;
+    private volatile Computed<T> computed;
+
+    public ConfigValue(Function<ConfigSnapshot, T> reader) {
+        this.reader = reader;
+    }
+
+    public static ConfigValue<String> ofString(String key, String defaultValue) {
+        return new ConfigValue<>(snapshot -> snapshot.getString(key, defaultValue));
+    }
+
+    public static ConfigValue<Integer> ofInt(String key, int defaultValue) {
+        return new ConfigValue<>(snapshot -> snapshot.getInt(key, defaultValue));
+    }
+
+    public static ConfigValue<Double> ofDouble(String key, double defaultValue) {
+        return new ConfigValue<>(snapshot -> snapshot.getDouble(key, defaultValue));
+    }
+
+    public static ConfigValue<Boolean> ofBoolean(String key, boolean defaultValue) {
+        return new ConfigValue<>(snapshot -> snapshot.getBoolean(key, defaultValue));
+    }
+
+    public T get() {
+        ConfigSnapshot snapshot = Configuration.getSnapshot();
+        Computed<T> current = computed;
+        if (current == null || current.snapshot != snapshot) {
+            current = new Computed<>(snapshot, reader.apply(snapshot));
+            computed = current;
+        }
+        return current.value;
+    }
+
+    private static class Computed<T> {
+        final ConfigSnapshot snapshot;
+        final T value;
+
+        Computed(ConfigSnapshot snapshot, T value) {
+            this.snapshot = snapshot;
+            this.value = value;
+        }
+    }
+}
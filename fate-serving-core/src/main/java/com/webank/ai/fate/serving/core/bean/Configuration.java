@@ -24,19 +24,21 @@ import java.io.*;
 import java.nio.file.Paths;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Optional;
 import java.util.Properties;
 
+/**
+ * the properties live in an immutable ConfigSnapshot that load() swaps in as a whole,
+ * readers never see a half loaded configuration and need no lock
+ */
 public class Configuration {
     private static final Logger logger = LoggerFactory.getLogger(Configuration.class);
     private final String confPath;
     private static String confDirectory;
-    private static HashMap<String, String> properties;
+    private static volatile ConfigSnapshot snapshot = new ConfigSnapshot(new HashMap<>());
     private static HashMap<String, Properties> adapterPropertiesMapPool;
     private static HashMap<String, JSONObject> adapterJsonConfigMapPool;
 
     static {
-        properties = new HashMap<>();
         adapterPropertiesMapPool = new HashMap<>();
         adapterJsonConfigMapPool = new HashMap<>();
     }
@@ -50,10 +52,13 @@ public class Configuration {
         try {
             Properties pro = new Properties();
             File baseConfFile = new File(this.confPath);
-            pro.load(new FileInputStream(baseConfFile));
-            pro.entrySet().forEach(e -> {
-                Configuration.putProperty((String) e.getKey(), (String) e.getValue());
-            });
+            try (FileInputStream fileInputStream = new FileInputStream(baseConfFile)) {
+                pro.load(fileInputStream);
+            }
+            Map<String, String> loaded = new HashMap<>();
+            pro.stringPropertyNames().forEach(key -> loaded.put(key, pro.getProperty(key)));
+            // a reload replaces all properties at once
+            snapshot = new ConfigSnapshot(loaded);
             loadAdapterConf(baseConfFile.getParent());
             return StatusCode.OK;
         } catch (FileNotFoundException ex) {
@@ -98,8 +103,15 @@ public class Configuration {
         }
     }
 
-    public static HashMap<String, String> getProperties() {
-        return properties;
+    public static ConfigSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * @return the current properties, read only
+     */
+    public static Map<String, String> getProperties() {
+        return snapshot.getProperties();
     }
 
     public static Properties getAdapterProperties(String confName) {
@@ -111,37 +123,34 @@ public class Configuration {
     }
 
     public static String getProperty(String key) {
-        return properties.get(key);
+        return snapshot.getString(key);
     }
 
     public static String getProperty(String key, String defaultValue) {
-        return Optional.ofNullable(properties.get(key)).orElse(defaultValue);
+        return snapshot.getString(key, defaultValue);
     }
 
     public static Integer getPropertyInt(String key) {
-        if (getProperty(key) == null) {
-            return null;
-        }
-        return Integer.parseInt(getProperty(key));
+        return snapshot.getInt(key);
     }
 
     public static Integer getPropertyInt(String key,Integer defaultInteger) {
-        if (getProperty(key) == null) {
-            return defaultInteger;
-        }
-        return Integer.parseInt(getProperty(key));
+        Integer value = snapshot.getInt(key);
+        return value != null ? value : defaultInteger;
     }
 
 
     public static Integer getPropertyInt(String key, int defaultValue) {
-        if (getProperty(key) == null) {
-            return defaultValue;
-        }
-        return Integer.parseInt(getProperty(key));
+        return snapshot.getInt(key, defaultValue);
     }
 
-    private static void putProperty(String key, String value) {
-        properties.put(key, value);
+    /**
+     * sets one property by swapping in a copy of the snapshot, meant for startup and tests, not for hot paths
+     */
+    public static synchronized void setProperty(String key, String value) {
+        Map<String, String> updated = new HashMap<>(snapshot.getProperties());
+        updated.put(key, value);
+        snapshot = new ConfigSnapshot(updated);
     }
 
     public String getConfPath() {
@@ -98,6 +98,13 @@ public interface Context<Req, Resp> {
 
     public void setDownstreamBegin(long downstreamBegin);
 
+    /**
+     * epoch millis after which the caller no longer waits for the result, 0 if it set no deadline
+     */
+    public long getDeadline();
+
+    public void setDeadline(long deadline);
+
     public long getRouteBasis();
 
     public void setRouteBasis(long routeBasis);
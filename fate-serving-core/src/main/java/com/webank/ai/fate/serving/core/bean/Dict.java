@@ -28,6 +28,8 @@ public class Dict {
     public static final String POST_PROCESSING_CONFIG = "InferencePostProcessingAdapter";
     public static final String PRE_PROCESSING_CONFIG = "InferencePreProcessingAdapter";
     public static final String GET_REMOTE_PARTY_RESULT = "getRemotePartyResult";
+    public static final String REMOTE_RESULT_CACHE_BATCH = "remoteResultCacheBatch";
+    public static final String CACHED_REMOTE_RESULT = "cachedRemoteResult";
     public static final String FEDERATED_RESULT = "federatedResult";
     public static final String PORT = "port";
 
@@ -49,6 +51,7 @@ public class Dict {
     public static final String DOWN_STREAM_COST ="downstreamCost";
     public static final String DOWN_STREAM_BEGIN ="downstreamBegin";
     public static final String ROUTE_BASIS ="routeBasis";
+    public static final String DEADLINE = "deadline";
     public static final String SOURCE_IP ="sourceIp";
 
 
@@ -78,6 +81,33 @@ public class Dict {
     public static final String PROPERTY_MODEL_CACHE_ACCESS_TTL = "modelCacheAccessTTL";
     public static final String PROPERTY_MODEL_CACHE_MAX_SIZE = "modelCacheMaxSize";
     public static final String PROPERTY_INFERENCE_WORKER_THREAD_NUM = "inferenceWorkerThreadNum";
+    public static final String PROPERTY_INFERENCE_WORKER_QUEUE_SIZE = "inferenceWorkerQueueSize";
+    public static final String PROPERTY_SYNC_INFERENCE_THREAD_NUM = "syncInferenceThreadNum";
+    public static final String PROPERTY_SYNC_INFERENCE_QUEUE_SIZE = "syncInferenceQueueSize";
+    public static final String PROPERTY_HOST_INFERENCE_THREAD_NUM = "hostInferenceThreadNum";
+    public static final String PROPERTY_HOST_INFERENCE_QUEUE_SIZE = "hostInferenceQueueSize";
+    public static final String PROPERTY_CONCURRENCY_LIMIT_ENABLE = "concurrencyLimit.enable";
+    public static final String PROPERTY_CONCURRENCY_LIMIT_INITIAL = "concurrencyLimit.initial";
+    public static final String PROPERTY_CONCURRENCY_LIMIT_MIN = "concurrencyLimit.min";
+    public static final String PROPERTY_CONCURRENCY_LIMIT_MAX = "concurrencyLimit.max";
+    public static final String PROPERTY_CONCURRENCY_LIMIT_RTT_TOLERANCE = "concurrencyLimit.rttTolerance";
+    public static final String CONCURRENCY_LIMIT_TOKEN = "concurrencyLimitToken";
+    public static final String PROPERTY_HEDGE_ENABLE = "hedge.enable";
+    public static final String PROPERTY_HEDGE_LATENCY_PERCENTILE = "hedge.latencyPercentile";
+    public static final String PROPERTY_HEDGE_MAX_RATIO = "hedge.maxRatio";
+    public static final String PROPERTY_CIRCUIT_BREAKER_ENABLE = "circuitBreaker.enable";
+    public static final String PROPERTY_CIRCUIT_BREAKER_FAILURE_RATE_THRESHOLD = "circuitBreaker.failureRateThreshold";
+    public static final String PROPERTY_CIRCUIT_BREAKER_SLOW_CALL_RATE_THRESHOLD = "circuitBreaker.slowCallRateThreshold";
+    public static final String PROPERTY_CIRCUIT_BREAKER_SLOW_CALL_DURATION = "circuitBreaker.slowCallDuration";
+    public static final String PROPERTY_CIRCUIT_BREAKER_MINIMUM_CALLS = "circuitBreaker.minimumCalls";
+    public static final String PROPERTY_CIRCUIT_BREAKER_OPEN_DURATION = "circuitBreaker.openDuration";
+    public static final String PROPERTY_BATCH_INFERENCE_MAX = "batchInferenceMax";
+    public static final String PROPERTY_TREE_SESSION_TTL = "treeSessionTTL";
+    public static final String PROPERTY_TREE_SESSION_MAX_SIZE = "treeSessionMaxSize";
+    public static final String PROPERTY_EXTERNAL_TREE_SESSION_FALLBACK = "external.treeSessionFallback";
+    public static final String PROPERTY_TREE_SINGLE_ROUND = "treeSingleRound";
+    public static final String PROPERTY_SERVE_TREE_SINGLE_ROUND = "serveTreeSingleRound";
+    public static final String PROPERTY_FEDERATED_PAYLOAD_PROTOBUF = "federatedPayloadProtobuf";
     public static final String PROPERTY_PROXY_ADDRESS = "proxy";
     public static final String ONLINE_ENVIROMMENT = "online";
     public static final String PROPERTY_ROLL_ADDRESS = "roll";
@@ -114,6 +144,9 @@ public class Dict {
     public static final String MY_PARTY_NAME = "myPartyName";
     public static final String FEDERATED_INFERENCE = "federatedInference";
     public static final String FEDERATED_INFERENCE_FOR_TREE = "federatedInference4Tree";
+    public static final String FEDERATED_INFERENCE_FOR_TREE_BITMASK = "federatedInference4TreeBitmask";
+    public static final String FEDERATED_PAYLOAD_PROTOBUF = "protobuf";
+    public static final String FEDERATED_PAYLOAD_JSON_ACCEPT_PROTOBUF = "json;accept=protobuf";
     public static final String DEVICE_ID = "device_id";
     public static final String PHONE_NUM = "phone_num";
     public static final String FEDERATED_PARAMS = "federatedParams";
@@ -140,6 +173,7 @@ public class Dict {
 
     public static final String UNARYCALL = "unaryCall";
     public static final String USE_ZK_ROUTER = "useZkRouter";
+    public static final String PROPERTY_ROUTER_LOAD_BALANCE = "routerLoadBalance";
     public static final String FALSE = "false";
     public static final String USE_REGISTER = "useRegister";
     public static final String MODEL_TRANSFER_URL = "model.transfer.url";
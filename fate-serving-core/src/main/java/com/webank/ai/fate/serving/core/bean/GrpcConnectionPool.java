@@ -16,152 +16,299 @@
 
 package com.webank.ai.fate.serving.core.bean;
 
-import com.google.common.base.Preconditions;
-import com.google.common.collect.Lists;
-import io.grpc.Channel;
+import io.grpc.CallOptions;
+import io.grpc.ClientCall;
 import io.grpc.ConnectivityState;
+import io.grpc.ForwardingClientCall;
+import io.grpc.ForwardingClientCallListener;
 import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
 import io.grpc.netty.shaded.io.grpc.netty.NegotiationType;
 import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Random;
+import java.util.Arrays;
+import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * channels per address. every call goes to the least busy healthy channel, counted in streams in flight.
+ * once a second the peak concurrency of each address is compared with rpc.per.channel.streams:
+ * a channel is added while the channels are fuller than that, one is retired while the others
+ * would stay below half of it. channels are read without locks, the list is replaced copy on write
+ */
 public class GrpcConnectionPool {
     private static final Logger logger = LoggerFactory.getLogger(GrpcConnectionPool.class);
+    private static final long CHECK_INTERVAL = 1000;
     static private GrpcConnectionPool pool = new GrpcConnectionPool();
     public ConcurrentHashMap<String, ChannelResource> poolMap = new ConcurrentHashMap<String, ChannelResource>();
-    private int maxTotalPerAddress = Configuration.getPropertyInt("rpc.connections.per.address",Runtime.getRuntime().availableProcessors());
-    private long defaultLoadFactor = Configuration.getPropertyInt("rpc.per.channel.loadfactor",10);
+    private int maxTotalPerAddress = Configuration.getPropertyInt("rpc.connections.per.address", Runtime.getRuntime().availableProcessors());
+    private int streamsPerChannel = Configuration.getPropertyInt("rpc.per.channel.streams", 100);
 
-    private void fireChannelError(String k ,ConnectivityState  status) {
-        logger.error("grpc channel {} status is {}", k,status);
+    private void fireChannelError(String k, ConnectivityState status) {
+        logger.error("grpc channel {} status is {}", k, status);
     }
-    class ChannelResource{
 
-        public  ChannelResource(String address){
+    class ChannelResource {
+        final String address;
+        final String ip;
+        final int port;
+        final AtomicReference<PooledChannel[]> channels;
+        final AtomicLong requestCount = new AtomicLong(0);
+        /**
+         * removed from the list but possibly picked just before, shut down once idle
+         */
+        final Queue<PooledChannel> retired = new ConcurrentLinkedQueue<>();
+
+        ChannelResource(String address) {
             this.address = address;
+            String[] ipPort = address.split(":");
+            this.ip = ipPort[0];
+            this.port = Integer.parseInt(ipPort[1]);
+            this.channels = new AtomicReference<>(new PooledChannel[]{new PooledChannel(createManagedChannel(ip, port))});
         }
-        String  address;
 
-        List<ManagedChannel> channels = Lists.newArrayList();
+        public AtomicLong getRequestCount() {
+            return requestCount;
+        }
 
-        AtomicLong requestCount = new AtomicLong(0);
+        public int getChannelSize() {
+            return channels.get().length;
+        }
 
-        public List<ManagedChannel> getChannels() {
-            return channels;
+        /**
+         * the healthy channel with the fewest streams in flight, the scan starts at a random channel to spread ties
+         */
+        PooledChannel pick() {
+            requestCount.incrementAndGet();
+            PooledChannel[] current = channels.get();
+            int start = current.length > 1 ? ThreadLocalRandom.current().nextInt(current.length) : 0;
+            PooledChannel best = null;
+            boolean bestHealthy = false;
+            int bestActive = Integer.MAX_VALUE;
+            for (int i = 0; i < current.length; i++) {
+                PooledChannel channel = current[(start + i) % current.length];
+                boolean healthy = channel.isHealthy();
+                int active = channel.active.get();
+                if (best == null || (healthy && !bestHealthy) || (healthy == bestHealthy && active < bestActive)) {
+                    best = channel;
+                    bestHealthy = healthy;
+                    bestActive = active;
+                }
+            }
+            return best;
         }
 
-        public void setChannels(List<ManagedChannel> channels) {
-            this.channels = channels;
+        void maintain() {
+            retired.removeIf(channel -> {
+                if (channel.active.get() == 0) {
+                    channel.shutdown();
+                    return true;
+                }
+                return false;
+            });
+            PooledChannel[] current = channels.get();
+            int peak = 0;
+            PooledChannel idlest = null;
+            for (PooledChannel channel : current) {
+                if (channel.state == ConnectivityState.SHUTDOWN) {
+                    fireChannelError(address, channel.state);
+                    replace(channel, new PooledChannel(createManagedChannel(ip, port)));
+                    continue;
+                }
+                if (channel.state == ConnectivityState.TRANSIENT_FAILURE) {
+                    fireChannelError(address, channel.state);
+                }
+                peak += channel.resetPeak();
+                if (idlest == null || channel.active.get() < idlest.active.get()) {
+                    idlest = channel;
+                }
+            }
+            int size = current.length;
+            if (peak > size * streamsPerChannel && size < maxTotalPerAddress) {
+                replace(null, new PooledChannel(createManagedChannel(ip, port)));
+                logger.info("grpc pool {} peak streams {}, channels {} -> {}", address, peak, size, size + 1);
+            } else if (size > 1 && idlest != null && peak < (size - 1) * streamsPerChannel / 2) {
+                if (replace(idlest, null)) {
+                    retired.add(idlest);
+                    logger.info("grpc pool {} peak streams {}, channels {} -> {}", address, peak, size, size - 1);
+                }
+            }
         }
 
-        public AtomicLong getRequestCount() {
-            return requestCount;
+        /**
+         * swaps oldChannel for newChannel, either may be null to only add or only remove
+         */
+        private boolean replace(PooledChannel oldChannel, PooledChannel newChannel) {
+            while (true) {
+                PooledChannel[] current = channels.get();
+                PooledChannel[] updated;
+                if (oldChannel == null) {
+                    updated = Arrays.copyOf(current, current.length + 1);
+                    updated[current.length] = newChannel;
+                } else {
+                    int index = Arrays.asList(current).indexOf(oldChannel);
+                    if (index < 0) {
+                        if (newChannel != null) {
+                            newChannel.shutdown();
+                        }
+                        return false;
+                    }
+                    if (newChannel != null) {
+                        updated = current.clone();
+                        updated[index] = newChannel;
+                    } else {
+                        updated = new PooledChannel[current.length - 1];
+                        System.arraycopy(current, 0, updated, 0, index);
+                        System.arraycopy(current, index + 1, updated, index, current.length - index - 1);
+                    }
+                }
+                if (channels.compareAndSet(current, updated)) {
+                    return true;
+                }
+            }
         }
+    }
 
-        public void setRequestCount(AtomicLong requestCount) {
-            this.requestCount = requestCount;
+    /**
+     * a pooled channel that counts the calls it carries and follows the connectivity state of its connection
+     */
+    class PooledChannel extends ManagedChannel {
+        final ManagedChannel delegate;
+        final AtomicInteger active = new AtomicInteger();
+        final AtomicInteger peakActive = new AtomicInteger();
+        volatile ConnectivityState state;
+
+        PooledChannel(ManagedChannel delegate) {
+            this.delegate = delegate;
+            watchState();
         }
 
+        private void watchState() {
+            ConnectivityState current = delegate.getState(false);
+            state = current;
+            if (current != ConnectivityState.SHUTDOWN) {
+                delegate.notifyWhenStateChanged(current, this::watchState);
+            }
+        }
 
-        public long getLatestChecktimestamp() {
-            return latestChecktimestamp;
+        boolean isHealthy() {
+            ConnectivityState current = state;
+            return current != ConnectivityState.TRANSIENT_FAILURE && current != ConnectivityState.SHUTDOWN;
         }
 
-        public void setLatestChecktimestamp(long latestChecktimestamp) {
-            this.latestChecktimestamp = latestChecktimestamp;
+        /**
+         * the most streams in flight since the last call
+         */
+        int resetPeak() {
+            return peakActive.getAndSet(active.get());
         }
 
-        long  latestChecktimestamp = 0;
+        @Override
+        public <ReqT, RespT> ClientCall<ReqT, RespT> newCall(MethodDescriptor<ReqT, RespT> methodDescriptor, CallOptions callOptions) {
+            return new ForwardingClientCall.SimpleForwardingClientCall<ReqT, RespT>(delegate.newCall(methodDescriptor, callOptions)) {
+                @Override
+                public void start(Listener<RespT> responseListener, Metadata headers) {
+                    peakActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                    try {
+                        super.start(new ForwardingClientCallListener.SimpleForwardingClientCallListener<RespT>(responseListener) {
+                            @Override
+                            public void onClose(Status status, Metadata trailers) {
+                                active.decrementAndGet();
+                                super.onClose(status, trailers);
+                            }
+                        }, headers);
+                    } catch (RuntimeException e) {
+                        active.decrementAndGet();
+                        throw e;
+                    }
+                }
+            };
+        }
 
-        public long getPreCheckCount() {
-            return preCheckCount;
+        @Override
+        public String authority() {
+            return delegate.authority();
         }
 
-        public void setPreCheckCount(long preCheckCount) {
-            this.preCheckCount = preCheckCount;
+        @Override
+        public ManagedChannel shutdown() {
+            delegate.shutdown();
+            return this;
         }
 
-        long  preCheckCount = 0;
-    }
+        @Override
+        public boolean isShutdown() {
+            return delegate.isShutdown();
+        }
 
-    private  boolean needAddChannel(ChannelResource  channelResource){
-        long requestCount = channelResource.getRequestCount().longValue();
-        long preCount = channelResource.getPreCheckCount();
-        long latestTimestamp = channelResource.getLatestChecktimestamp();
+        @Override
+        public boolean isTerminated() {
+            return delegate.isTerminated();
+        }
 
-        int channelSize  = channelResource.getChannels().size();
-        long now = System.currentTimeMillis();
-        long loadFactor = ((requestCount - preCount) * 1000) / (channelSize * (now - latestTimestamp));
-        channelResource.setLatestChecktimestamp(now);
-        channelResource.setPreCheckCount(requestCount);
-        if(channelSize>maxTotalPerAddress){
-            return  false;
+        @Override
+        public ManagedChannel shutdownNow() {
+            delegate.shutdownNow();
+            return this;
         }
-        if(latestTimestamp==0){
-            return false;
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return delegate.awaitTermination(timeout, unit);
         }
-        if(channelSize>0) {
 
-            if (loadFactor >defaultLoadFactor){
-                return true;
-            }
-            else{
-                return false;
-            }
+        @Override
+        public ConnectivityState getState(boolean requestConnection) {
+            return delegate.getState(requestConnection);
         }
-        else{
-            return true;
+
+        @Override
+        public void notifyWhenStateChanged(ConnectivityState source, Runnable callback) {
+            delegate.notifyWhenStateChanged(source, callback);
+        }
+
+        @Override
+        public void resetConnectBackoff() {
+            delegate.resetConnectBackoff();
+        }
+
+        @Override
+        public void enterIdle() {
+            delegate.enterIdle();
         }
     }
+
     private ScheduledExecutorService scheduledExecutorService = new ScheduledThreadPoolExecutor(1);
+
     private GrpcConnectionPool() {
 
         scheduledExecutorService.scheduleAtFixedRate(
                 new Runnable() {
                     @Override
                     public void run() {
-
                         poolMap.forEach((k, v) -> {
                             try {
-                                logger.info("grpc pool {} channel size {} req count {}",k,v.getChannels().size(),v.getRequestCount().get()-v.getPreCheckCount());
-
-                                if (needAddChannel(v)) {
-                                    String[] ipPort = k.split(":");
-                                    String ip = ipPort[0];
-                                    int port = Integer.parseInt(ipPort[1]);
-                                    ManagedChannel managedChannel = createManagedChannel(ip, port);
-                                    v.getChannels().add(managedChannel);
-                                }
-                                v.getChannels().forEach(e -> {
-                                    try {
-                                        ConnectivityState state = e.getState(true);
-                                        if (state.equals(ConnectivityState.TRANSIENT_FAILURE) || state.equals(ConnectivityState.SHUTDOWN)) {
-                                            fireChannelError(k,state);
-                                        }
-                                    } catch (Exception ex) {
-                                        ex.printStackTrace();
-                                        logger.error("channel {} check status error", k);
-                                    }
-
-                                });
+                                v.maintain();
                             } catch (Exception e) {
-                                logger.error("channel {} check status error", k);
+                                logger.error("channel {} check status error", k, e);
                             }
                         });
                     }
                 },
-                1000,
-                10000,
+                CHECK_INTERVAL,
+                CHECK_INTERVAL,
                 TimeUnit.MILLISECONDS);
 
     }
@@ -173,56 +320,17 @@ public class GrpcConnectionPool {
 
 
     public ManagedChannel getManagedChannel(String key) throws Exception {
-        ChannelResource channelResource = poolMap.get(key);
-        if (channelResource == null) {
-            return createInner(key);
-        } else {
-            return getRandomManagedChannel(channelResource);
-        }
-
+        return poolMap.computeIfAbsent(key, ChannelResource::new).pick();
     }
 
 
-    public ManagedChannel getManagedChannel(String ip,int port) throws Exception {
+    public ManagedChannel getManagedChannel(String ip, int port) throws Exception {
         String key = new StringBuilder().append(ip).append(":").append(port).toString();
         return this.getManagedChannel(key);
     }
-    Random r = new Random();
-
-    private ManagedChannel getRandomManagedChannel(ChannelResource  channelResource) {
-        List<ManagedChannel>  list =  channelResource.getChannels();
-        Preconditions.checkArgument(list != null && list.size() > 0);
-        int index = r.nextInt(list.size());
-        ManagedChannel result = list.get(index);
-        channelResource.getRequestCount().addAndGet(1);
-        return  result;
-
-    }
-    private synchronized ManagedChannel createInner(String key) throws Exception {
-        ChannelResource channelResource = poolMap.get(key);
-        if (channelResource == null) {
-            String[] ipPort = key.split(":");
-            String ip = ipPort[0];
-            int port = Integer.parseInt(ipPort[1]);
-            ManagedChannel managedChannel = createManagedChannel(ip, port);
-            List<ManagedChannel> managedChannelList = new ArrayList<ManagedChannel>();
-            managedChannelList.add(managedChannel);
-            channelResource = new  ChannelResource(key);
-            channelResource.setChannels(managedChannelList);
-            channelResource.getRequestCount().addAndGet(1);
-            poolMap.put(key, channelResource);
-            return managedChannel;
-        } else {
-            return getRandomManagedChannel(channelResource);
-        }
-
-    }
-    ;
-
-
 
 
-    public synchronized ManagedChannel createManagedChannel(String ip, int port) throws Exception {
+    public ManagedChannel createManagedChannel(String ip, int port) {
 
         if (logger.isDebugEnabled()) {
             logger.debug("create ManagedChannel");
@@ -247,4 +355,4 @@ public class GrpcConnectionPool {
 
     }
 
-}
\ No newline at end of file
+}
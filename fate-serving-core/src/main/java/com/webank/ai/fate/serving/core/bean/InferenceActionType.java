@@ -29,4 +29,8 @@ public enum InferenceActionType {
      * GET_RESULT
      */
     GET_RESULT,
+    /**
+     * BATCH_RUN
+     */
+    BATCH_RUN,
 }
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2019 The FATE Authors. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.webank.ai.fate.serving.core.breaker;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * circuit breaker of one remote endpoint. calls are counted over a window of 10 seconds, the breaker opens
+ * once at least minimumCalls were made and the share of failed or slow calls reaches its threshold.
+ * an open breaker rejects calls for openDuration, then lets a few probe calls through:
+ * if they all succeed in time it closes again, otherwise it stays open for another openDuration
+ */
+public class CircuitBreaker {
+    private static final Logger logger = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    private static final long WINDOW_MILLIS = 10000;
+    private static final int HALF_OPEN_PROBES = 3;
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String name;
+    private final double failureRateThreshold;
+    private final double slowCallRateThreshold;
+    private final long slowCallDuration;
+    private final int minimumCalls;
+    private final long openDuration;
+
+    private State state = State.CLOSED;
+    private long windowStart = System.currentTimeMillis();
+    private int calls;
+    private int failures;
+    private int slowCalls;
+    private long openedAt;
+    private int probesIssued;
+    private int probesSucceeded;
+
+    public CircuitBreaker(String name, double failureRateThreshold, double slowCallRateThreshold, long slowCallDuration, int minimumCalls, long openDuration) {
+        this.name = name;
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.slowCallDuration = slowCallDuration;
+        this.minimumCalls = minimumCalls;
+        this.openDuration = openDuration;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * @return a permit for one call, or null if the breaker is open
+     */
+    public synchronized Permit tryAcquire() {
+        long now = System.currentTimeMillis();
+        switch (state) {
+            case OPEN:
+                if (now - openedAt < openDuration) {
+                    return null;
+                }
+                transitionTo(State.HALF_OPEN, now);
+                // fall through, the first probe is this call
+            case HALF_OPEN:
+                if (probesIssued >= HALF_OPEN_PROBES) {
+                    return null;
+                }
+                probesIssued++;
+                return new Permit(true);
+            default:
+                return new Permit(false);
+        }
+    }
+
+    private synchronized void onResult(boolean probe, boolean failed, long latency) {
+        long now = System.currentTimeMillis();
+        boolean slow = latency >= slowCallDuration;
+        if (probe) {
+            if (state != State.HALF_OPEN) {
+                return;
+            }
+            if (failed || slow) {
+                transitionTo(State.OPEN, now);
+            } else if (++probesSucceeded >= HALF_OPEN_PROBES) {
+                transitionTo(State.CLOSED, now);
+            }
+            return;
+        }
+        if (state != State.CLOSED) {
+            return;
+        }
+        if (now - windowStart >= WINDOW_MILLIS) {
+            resetWindow(now);
+        }
+        calls++;
+        if (failed) {
+            failures++;
+        }
+        if (slow) {
+            slowCalls++;
+        }
+        if (calls >= minimumCalls
+                && (failures >= calls * failureRateThreshold || slowCalls >= calls * slowCallRateThreshold)) {
+            logger.warn("circuit breaker {} trips after {} calls, {} failed, {} slow", name, calls, failures, slowCalls);
+            transitionTo(State.OPEN, now);
+        }
+    }
+
+    /**
+     * a probe that ended without a verdict frees its slot for the next one
+     */
+    private synchronized void onProbeIgnored() {
+        if (state == State.HALF_OPEN) {
+            probesIssued--;
+        }
+    }
+
+    private void transitionTo(State newState, long now) {
+        if (state != newState) {
+            logger.warn("circuit breaker {} changed from {} to {}", name, state, newState);
+        }
+        state = newState;
+        if (newState == State.OPEN) {
+            openedAt = now;
+        }
+        probesIssued = 0;
+        probesSucceeded = 0;
+        resetWindow(now);
+    }
+
+    private void resetWindow(long now) {
+        windowStart = now;
+        calls = 0;
+        failures = 0;
+        slowCalls = 0;
+    }
+
+    /**
+     * one admitted call, the first of the callbacks counts, later calls are ignored
+     */
+    public class Permit {
+        private final boolean probe;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(boolean probe) {
+            this.probe = probe;
+        }
+
+        public void onSuccess(long latency) {
+            if (released.compareAndSet(false, true)) {
+                onResult(probe, false, latency);
+            }
+        }
+
+        public void onError(long latency) {
+            if (released.compareAndSet(false, true)) {
+                onResult(probe, true, latency);
+            }
+        }
+
+        /**
+         * the call ended in a way that says nothing about the endpoint, e.g. it was cancelled by the caller
+         */
+        public void onIgnore() {
+            if (released.compareAndSet(false, true) && probe) {
+                onProbeIgnored();
+            }
+        }
+    }
+}
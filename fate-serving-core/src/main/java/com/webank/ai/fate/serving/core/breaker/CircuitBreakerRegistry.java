@@ -0,0 +1,124 @@
+/*
+ * Copyright 2019 The FATE Authors. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.webank.ai.fate.serving.core.breaker;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.webank.ai.fate.serving.core.bean.ConfigSnapshot;
+import com.webank.ai.fate.serving.core.bean.Dict;
+import io.grpc.Status;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * one circuit breaker per remote party and endpoint, so that a partner that is down
+ * fails fast instead of holding a thread and a channel for the whole rpc timeout
+ */
+public class CircuitBreakerRegistry {
+
+    private final boolean enable;
+    private final double failureRateThreshold;
+    private final double slowCallRateThreshold;
+    private final long slowCallDuration;
+    private final int minimumCalls;
+    private final long openDuration;
+
+    private final ConcurrentMap<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    public CircuitBreakerRegistry(boolean enable, double failureRateThreshold, double slowCallRateThreshold, long slowCallDuration, int minimumCalls, long openDuration) {
+        this.enable = enable;
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.slowCallDuration = slowCallDuration;
+        this.minimumCalls = minimumCalls;
+        this.openDuration = openDuration;
+    }
+
+    /**
+     * a registry with the settings of one configuration snapshot, hold it in a ConfigValue
+     * to get a new registry, with fresh breakers, when the configuration is reloaded
+     */
+    public static CircuitBreakerRegistry fromSnapshot(ConfigSnapshot snapshot) {
+        return new CircuitBreakerRegistry(
+                snapshot.getBoolean(Dict.PROPERTY_CIRCUIT_BREAKER_ENABLE, true),
+                snapshot.getDouble(Dict.PROPERTY_CIRCUIT_BREAKER_FAILURE_RATE_THRESHOLD, 0.5),
+                snapshot.getDouble(Dict.PROPERTY_CIRCUIT_BREAKER_SLOW_CALL_RATE_THRESHOLD, 0.8),
+                snapshot.getInt(Dict.PROPERTY_CIRCUIT_BREAKER_SLOW_CALL_DURATION, 3000),
+                snapshot.getInt(Dict.PROPERTY_CIRCUIT_BREAKER_MINIMUM_CALLS, 20),
+                snapshot.getInt(Dict.PROPERTY_CIRCUIT_BREAKER_OPEN_DURATION, 5000));
+    }
+
+    public boolean isEnabled() {
+        return enable;
+    }
+
+    public CircuitBreaker get(String partyId, String address) {
+        return breakers.computeIfAbsent(partyId + "@" + address,
+                name -> new CircuitBreaker(name, failureRateThreshold, slowCallRateThreshold, slowCallDuration, minimumCalls, openDuration));
+    }
+
+    public <T> ListenableFuture<T> call(String partyId, String address, Supplier<ListenableFuture<T>> call) {
+        return call(partyId, address, false, call);
+    }
+
+    /**
+     * runs the call through the breaker of the endpoint, fails with CircuitBreakerOpenException without calling if it is open.
+     * calls cancelled by the caller, e.g. the loser of a hedge, are not counted. neither is a timeout when shortTimeout is set,
+     * i.e. the caller's deadline left the call less time than the configured rpc timeout, since the endpoint was not given a fair chance
+     */
+    public <T> ListenableFuture<T> call(String partyId, String address, boolean shortTimeout, Supplier<ListenableFuture<T>> call) {
+        if (!enable) {
+            return call.get();
+        }
+        CircuitBreaker breaker = get(partyId, address);
+        CircuitBreaker.Permit permit = breaker.tryAcquire();
+        if (permit == null) {
+            return Futures.immediateFailedFuture(new CircuitBreakerOpenException(partyId + "@" + address));
+        }
+        long begin = System.currentTimeMillis();
+        ListenableFuture<T> future;
+        try {
+            future = call.get();
+        } catch (RuntimeException e) {
+            permit.onError(System.currentTimeMillis() - begin);
+            throw e;
+        }
+        Futures.addCallback(future, new FutureCallback<T>() {
+            @Override
+            public void onSuccess(T result) {
+                permit.onSuccess(System.currentTimeMillis() - begin);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                Status.Code code = Status.fromThrowable(t).getCode();
+                if (t instanceof CancellationException || code == Status.Code.CANCELLED
+                        || (shortTimeout && code == Status.Code.DEADLINE_EXCEEDED)) {
+                    permit.onIgnore();
+                } else {
+                    permit.onError(System.currentTimeMillis() - begin);
+                }
+            }
+        }, MoreExecutors.directExecutor());
+        return future;
+    }
+}
@@ -32,4 +32,5 @@ public class InferenceRetCode {
     public static final int ADAPTER_ERROR = 111;
     public static final int DEAL_FEATURE_FAILED = 112;
     public static final int NO_FEATURE = 113;
+    public static final int BATCH_LIMIT_EXCEEDED = 114;
 }
@@ -0,0 +1,10 @@
+package com.webank.ai.fate.serving.core.exceptions;
+
+/**
+ * the caller has given up on the request, reported like any other missing downstream result
+ */
+public class DeadlineExceededException extends NoResultException {
+
+    public DeadlineExceededException() {
+    }
+}
@@ -5,4 +5,11 @@ package com.webank.ai.fate.serving.core.exceptions;
  * @Author
  **/
 public class OverLoadException  extends RuntimeException {
+
+    public OverLoadException() {
+    }
+
+    public OverLoadException(String message) {
+        super(message);
+    }
 }
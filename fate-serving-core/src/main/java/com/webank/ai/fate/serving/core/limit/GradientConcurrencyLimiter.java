@@ -0,0 +1,197 @@
+/*
+ * Copyright 2019 The FATE Authors. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.webank.ai.fate.serving.core.limit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * concurrency limit that follows the measured latency. requests above the limit fail fast instead of queueing.
+ * once per sample window the limit grows by sqrt(limit) while the average latency stays within rttTolerance
+ * of the no-load latency, shrinks with their ratio once it does not, and backs off multiplicatively
+ * if requests were dropped further down. the no-load latency is the minimum seen over the current and
+ * the previous period of 10 seconds
+ */
+public class GradientConcurrencyLimiter {
+    private static final Logger logger = LoggerFactory.getLogger(GradientConcurrencyLimiter.class);
+
+    private static final double SMOOTHING = 0.2;
+    private static final double BACKOFF_RATIO = 0.9;
+    private static final int MIN_WINDOW_SAMPLES = 10;
+    private static final long MIN_WINDOW_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long NO_LOAD_PERIOD_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double rttTolerance;
+    private final AtomicInteger inflight = new AtomicInteger();
+
+    private volatile int limit;
+    private double estimatedLimit;
+    private long noLoadRtt;
+    private long periodMinRtt;
+    private long periodStart;
+    private long windowStart;
+    private int windowSamples;
+    private int windowRttSamples;
+    private long windowRttSum;
+    private int windowMaxInflight;
+    private boolean windowDropped;
+
+    public GradientConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit, double rttTolerance) {
+        if (minLimit <= 0 || maxLimit < minLimit || rttTolerance < 1.0) {
+            throw new IllegalArgumentException("invalid concurrency limit of " + name + ", min " + minLimit
+                    + " max " + maxLimit + " rtt tolerance " + rttTolerance);
+        }
+        this.name = name;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.rttTolerance = rttTolerance;
+        this.estimatedLimit = Math.min(maxLimit, Math.max(minLimit, initialLimit));
+        this.limit = (int) estimatedLimit;
+    }
+
+    /**
+     * @return null if the limit is reached, the caller must fail the request
+     */
+    public Token tryAcquire() {
+        while (true) {
+            int current = inflight.get();
+            if (current >= limit) {
+                return null;
+            }
+            if (inflight.compareAndSet(current, current + 1)) {
+                return new Token(current + 1);
+            }
+        }
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInflight() {
+        return inflight.get();
+    }
+
+    private synchronized void onSample(long rttNanos, int inflightAtStart, boolean dropped) {
+        long now = System.nanoTime();
+        if (windowStart == 0) {
+            windowStart = now;
+            periodStart = now;
+        }
+        if (!dropped) {
+            trackNoLoadRtt(rttNanos, now);
+            windowRttSum += rttNanos;
+            windowRttSamples++;
+        }
+        windowDropped |= dropped;
+        windowMaxInflight = Math.max(windowMaxInflight, inflightAtStart);
+        if (++windowSamples < MIN_WINDOW_SAMPLES || now - windowStart < MIN_WINDOW_NANOS) {
+            return;
+        }
+
+        if (windowDropped) {
+            update(estimatedLimit * BACKOFF_RATIO);
+        } else if (windowMaxInflight >= estimatedLimit / 2) {
+            // nothing is learned about the capacity while far below the limit
+            double rtt = (double) windowRttSum / windowRttSamples;
+            double gradient = Math.max(0.5, Math.min(1.0, rttTolerance * noLoadRtt / rtt));
+            double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+            update(estimatedLimit * (1 - SMOOTHING) + newLimit * SMOOTHING);
+        }
+        windowStart = now;
+        windowSamples = 0;
+        windowRttSamples = 0;
+        windowRttSum = 0;
+        windowMaxInflight = 0;
+        windowDropped = false;
+    }
+
+    private void trackNoLoadRtt(long rttNanos, long now) {
+        if (noLoadRtt == 0 || rttNanos < noLoadRtt) {
+            noLoadRtt = rttNanos;
+        }
+        periodMinRtt = periodMinRtt == 0 ? rttNanos : Math.min(periodMinRtt, rttNanos);
+        // lets the no-load latency rise again, e.g. after a slower model was loaded
+        if (now - periodStart > NO_LOAD_PERIOD_NANOS) {
+            noLoadRtt = periodMinRtt;
+            periodMinRtt = rttNanos;
+            periodStart = now;
+        }
+    }
+
+    private void update(double newLimit) {
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+        int previous = limit;
+        limit = (int) estimatedLimit;
+        if (previous != limit && logger.isDebugEnabled()) {
+            logger.debug("concurrency limit of {} changed from {} to {}, no-load rtt {}us", name, previous, limit, noLoadRtt / 1000);
+        }
+    }
+
+    /**
+     * one admitted request, exactly one of the callbacks counts, later calls are ignored
+     */
+    public class Token {
+        private final long startNanos = System.nanoTime();
+        private final int inflightAtStart;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Token(int inflightAtStart) {
+            this.inflightAtStart = inflightAtStart;
+        }
+
+        /**
+         * the request completed, its latency is a sample
+         */
+        public void onSuccess() {
+            if (release()) {
+                onSample(System.nanoTime() - startNanos, inflightAtStart, false);
+            }
+        }
+
+        /**
+         * the request timed out or was rejected downstream, a sign of overload
+         */
+        public void onDropped() {
+            if (release()) {
+                onSample(0, inflightAtStart, true);
+            }
+        }
+
+        /**
+         * the request ended in a way that says nothing about the load, e.g. a client cancellation
+         */
+        public void onIgnore() {
+            release();
+        }
+
+        private boolean release() {
+            if (released.compareAndSet(false, true)) {
+                inflight.decrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    }
+}
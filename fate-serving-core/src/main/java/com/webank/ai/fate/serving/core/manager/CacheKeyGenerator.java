@@ -0,0 +1,82 @@
+/*
+ * Copyright 2019 The FATE Authors. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.webank.ai.fate.serving.core.manager;
+
+import com.google.common.base.Preconditions;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.webank.ai.fate.serving.core.bean.FederatedParams;
+
+import java.util.ArrayList;
+import java.util.Map;
+
+/**
+ * remote result cache keys are the 128 bit murmur3 hash of their parts, as 32 hex chars. every string is hashed
+ * as its length followed by its chars, so adjacent parts can not run into each other.
+ * the feature ids are hashed in key order, sorted in a buffer kept per thread
+ */
+public class CacheKeyGenerator {
+
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+    private static final ThreadLocal<ArrayList<String>> SORT_BUFFER = ThreadLocal.withInitial(() -> new ArrayList<>(16));
+
+    private CacheKeyGenerator() {
+    }
+
+    /**
+     * the model and the feature ids sent to the host, which together decide the host's answer
+     */
+    public static String remoteModelInferenceResultKey(FederatedParams federatedParams) {
+        Preconditions.checkNotNull(federatedParams);
+        Preconditions.checkNotNull(federatedParams.getModelInfo());
+        Preconditions.checkNotNull(federatedParams.getFeatureIdMap());
+        Hasher hasher = HASH_FUNCTION.newHasher();
+        putString(hasher, federatedParams.getModelInfo().getNamespace());
+        putString(hasher, federatedParams.getModelInfo().getName());
+        putSorted(hasher, federatedParams.getFeatureIdMap());
+        return hasher.hash().toString();
+    }
+
+    private static void putSorted(Hasher hasher, Map<String, Object> map) {
+        ArrayList<String> keys = SORT_BUFFER.get();
+        try {
+            for (String key : map.keySet()) {
+                keys.add(key);
+            }
+            keys.sort(null);
+            hasher.putInt(keys.size());
+            for (String key : keys) {
+                putString(hasher, key);
+                Object value = map.get(key);
+                putString(hasher, value instanceof String ? (String) value : String.valueOf(value));
+            }
+        } finally {
+            keys.clear();
+        }
+    }
+
+    private static void putString(Hasher hasher, String value) {
+        if (value == null) {
+            hasher.putInt(-1);
+        } else {
+            hasher.putInt(value.length());
+            hasher.putUnencodedChars(value);
+        }
+    }
+}
@@ -16,31 +16,28 @@
 
 package com.webank.ai.fate.serving.core.manager;
 
-import com.alibaba.fastjson.JSON;
-import com.google.common.base.Preconditions;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
-import com.google.common.collect.Maps;
 import com.webank.ai.fate.serving.core.bean.*;
-import org.apache.commons.codec.digest.Md5Crypt;
+import com.webank.ai.fate.serving.core.utils.BinaryCodec;
+import com.webank.ai.fate.serving.core.utils.JsonCodec;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.stereotype.Service;
-import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
 import redis.clients.jedis.JedisPoolConfig;
-import redis.clients.jedis.Pipeline;
 
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 
 @Service
 public class DefaultCacheManager implements CacheManager, InitializingBean {
 
     private final Logger logger = LoggerFactory.getLogger(DefaultCacheManager.class);
-    private JedisPool jedisPool;
+    private RedisStore redisStore;
     private Cache<String, ReturnResult> inferenceResultCache;
     private Cache<String, ReturnResult> remoteModelInferenceResultCache;
     private Cache<String, Object> processDataCache;
@@ -49,8 +46,9 @@ public class DefaultCacheManager implements CacheManager, InitializingBean {
     private int processCacheDBIndex;
 
 
-    private int externalRemoteModelInferenceResultCacheTTL;
-    private int externalInferenceResultCacheTTL;
+    private final ConfigValue<Integer> externalRemoteModelInferenceResultCacheTTL = ConfigValue.ofInt(Dict.PROPERTY_EXTERNAL_REMOTE_MODEL_INFERENCE_RESULT_CACHE_TTL, 86400);
+    private final ConfigValue<Integer> externalInferenceResultCacheTTL = ConfigValue.ofInt(Dict.PROPERTY_EXTERNAL_INFERENCE_RESULT_CACHE_TTL, 300);
+    private final ConfigValue<Boolean> remoteModelInferenceResultCacheSwitch = ConfigValue.ofBoolean(Dict.PROPERTY_REMOTE_MODEL_INFERENCE_RESULT_CACHE_SWITCH, true);
     private Set<Integer> canCacheRetcode;
 
     DefaultCacheManager() {
@@ -81,7 +79,7 @@ public class DefaultCacheManager implements CacheManager, InitializingBean {
         if(StringUtils.isNotEmpty(passowrdString)){
             password = passowrdString;
         }
-        jedisPool = new JedisPool(jedisPoolConfig,
+        redisStore = new RedisStore(jedisPoolConfig,
                 Configuration.getProperty("redis.ip"),
                 Configuration.getPropertyInt("redis.port",6379),
                 Configuration.getPropertyInt("redis.timeout",2000),
@@ -89,10 +87,8 @@ public class DefaultCacheManager implements CacheManager, InitializingBean {
                 );
 
         inferenceResultCacheDBIndex = Configuration.getPropertyInt(Dict.PROPERTY_EXTERNAL_INFERENCE_RESULT_CACHE_DB_INDEX,0);
-        externalInferenceResultCacheTTL = Configuration.getPropertyInt(Dict.PROPERTY_EXTERNAL_INFERENCE_RESULT_CACHE_TTL,300);
         remoteModelInferenceResultCacheDBIndex = Configuration.getPropertyInt(Dict.PROPERTY_EXTERNAL_REMOTE_MODEL_INFERENCE_RESULT_CACHE_DB_INDEX,0);
         processCacheDBIndex = Configuration.getPropertyInt(Dict.PROPERTY_EXTERNAL_PROCESS_CACHE_DB_INDEX,0);
-        externalRemoteModelInferenceResultCacheTTL = Configuration.getPropertyInt(Dict.PROPERTY_EXTERNAL_REMOTE_MODEL_INFERENCE_RESULT_CACHE_TTL,86400);
         canCacheRetcode = initializeCanCacheRetcode();
     }
 
@@ -108,7 +104,8 @@ public class DefaultCacheManager implements CacheManager, InitializingBean {
             logger.debug("store key {} value {}", key, object);
         }
         CacheValueConfig cacheValueConfig = getCacheValueConfig(key, CacheType.PROCESS_DATA);
-        putIntoRedisCache(key, cacheValueConfig, object);
+        // tree sessions are restored by whichever host instance serves the next round, which may be an older version
+        putJsonIntoRedisCache(key, cacheValueConfig, object);
 
 
     }
@@ -160,7 +157,7 @@ public class DefaultCacheManager implements CacheManager, InitializingBean {
 
     @Override
     public void putRemoteModelInferenceResult(FederatedParams guestFederatedParams, ReturnResult returnResult) {
-        if (!Boolean.parseBoolean(Configuration.getProperty(Dict.PROPERTY_REMOTE_MODEL_INFERENCE_RESULT_CACHE_SWITCH,"true"))) {
+        if (!remoteModelInferenceResultCacheSwitch.get()) {
             return;
         }
         String remoteModelInferenceResultCacheKey = generateRemoteModelInferenceResultCacheKey(guestFederatedParams);
@@ -175,7 +172,7 @@ public class DefaultCacheManager implements CacheManager, InitializingBean {
 
     @Override
     public ReturnResult getRemoteModelInferenceResult(FederatedParams guestFederatedParams) {
-        if (!Boolean.parseBoolean(Configuration.getProperty(Dict.PROPERTY_REMOTE_MODEL_INFERENCE_RESULT_CACHE_SWITCH,"true"))) {
+        if (!remoteModelInferenceResultCacheSwitch.get()) {
             return null;
         }
         String remoteModelInferenceResultCacheKey = generateRemoteModelInferenceResultCacheKey(guestFederatedParams);
@@ -188,6 +185,61 @@ public class DefaultCacheManager implements CacheManager, InitializingBean {
         return returnResult;
     }
 
+    /**
+     * the params that miss the in-process cache are looked up in redis with one MGET
+     */
+    @Override
+    public List<ReturnResult> getRemoteModelInferenceResults(List<FederatedParams> guestFederatedParams) {
+        List<ReturnResult> returnResults = new ArrayList<>(Collections.nCopies(guestFederatedParams.size(), (ReturnResult) null));
+        if (!remoteModelInferenceResultCacheSwitch.get()) {
+            return returnResults;
+        }
+        List<Integer> missIndexes = new ArrayList<>();
+        List<String> missKeys = new ArrayList<>();
+        for (int i = 0; i < guestFederatedParams.size(); i++) {
+            String cacheKey = generateRemoteModelInferenceResultCacheKey(guestFederatedParams.get(i));
+            ReturnResult returnResult = remoteModelInferenceResultCache.getIfPresent(cacheKey);
+            if (returnResult != null) {
+                returnResults.set(i, returnResult);
+            } else {
+                missIndexes.add(i);
+                missKeys.add(cacheKey);
+            }
+        }
+        List<byte[]> values = redisStore.mget(remoteModelInferenceResultCacheDBIndex, missKeys);
+        for (int i = 0; i < missKeys.size(); i++) {
+            ReturnResult returnResult = BinaryCodec.decode(values.get(i), ReturnResult.class);
+            if (returnResult != null) {
+                remoteModelInferenceResultCache.put(missKeys.get(i), returnResult);
+                returnResults.set(missIndexes.get(i), returnResult);
+            }
+        }
+        return returnResults;
+    }
+
+    /**
+     * all cacheable results go to redis in one pipelined round trip
+     */
+    @Override
+    public void putRemoteModelInferenceResults(List<FederatedParams> guestFederatedParams, List<ReturnResult> returnResults) {
+        if (!remoteModelInferenceResultCacheSwitch.get()) {
+            return;
+        }
+        List<String> cacheKeys = new ArrayList<>(guestFederatedParams.size());
+        List<byte[]> values = new ArrayList<>(guestFederatedParams.size());
+        for (int i = 0; i < guestFederatedParams.size(); i++) {
+            ReturnResult returnResult = returnResults.get(i);
+            if (returnResult != null && canCacheRetcode.contains(returnResult.getRetcode())) {
+                String cacheKey = generateRemoteModelInferenceResultCacheKey(guestFederatedParams.get(i));
+                remoteModelInferenceResultCache.put(cacheKey, returnResult);
+                cacheKeys.add(cacheKey);
+                values.add(BinaryCodec.encode(returnResult));
+            }
+        }
+        CacheValueConfig cacheValueConfig = getCacheValueConfig(null, CacheType.REMOTE_MODEL_INFERENCE_RESULT);
+        redisStore.msetex(cacheValueConfig.getDbIndex(), cacheKeys, values, cacheValueConfig.getTtl());
+    }
+
     private ReturnResult getFromCache(String cacheKey, CacheType cacheType) {
         CacheValueConfig cacheValueConfig = getCacheValueConfig(cacheKey, cacheType);
         ReturnResult returnResultFromInCache = (ReturnResult) cacheValueConfig.getInProcessCache().getIfPresent(cacheKey);
@@ -205,7 +257,12 @@ public class DefaultCacheManager implements CacheManager, InitializingBean {
         CacheValueConfig cacheValueConfig = getCacheValueConfig(cacheKey, cacheType);
         if (canCacheRetcode.contains(returnResult.getRetcode())) {
             cacheValueConfig.getInProcessCache().put(cacheKey, returnResult);
-            putIntoRedisCache(cacheKey, cacheValueConfig, returnResult);
+            if (cacheType == CacheType.INFERENCE_RESULT) {
+                // async job results are fetched across versions sharing one redis, so they stay in the json older versions read
+                putJsonIntoRedisCache(cacheKey, cacheValueConfig, returnResult);
+            } else {
+                putIntoRedisCache(cacheKey, cacheValueConfig, returnResult);
+            }
             return true;
         } else {
             return false;
@@ -213,25 +270,15 @@ public class DefaultCacheManager implements CacheManager, InitializingBean {
     }
 
     private <T> T getFromRedisCache(String cacheKey, CacheValueConfig cacheValueConfig, Class<T> dataType) {
-        try (Jedis jedis = jedisPool.getResource()) {
-            jedis.select(cacheValueConfig.getDbIndex());
-            String cacheValueString = jedis.get(cacheKey);
-            T returnResultFromExternalCache  =JSON.parseObject(cacheValueString,dataType);
-            return returnResultFromExternalCache;
-        }
-
+        return BinaryCodec.decode(redisStore.get(cacheValueConfig.getDbIndex(), cacheKey), dataType);
     }
 
     private void putIntoRedisCache(String cacheKey, CacheValueConfig cacheValueConfig, Object returnResult) {
-        try (Jedis jedis = jedisPool.getResource()) {
-            Pipeline redisPipeline = jedis.pipelined();
-            redisPipeline.select(cacheValueConfig.getDbIndex());
-            redisPipeline.set(cacheKey, JSON.toJSONString(returnResult));
-            redisPipeline.expire(cacheKey, cacheValueConfig.getTtl());
-            redisPipeline.sync();
-
+        redisStore.setex(cacheValueConfig.getDbIndex(), cacheKey, cacheValueConfig.getTtl(), BinaryCodec.encode(returnResult));
+    }
 
-        }
+    private void putJsonIntoRedisCache(String cacheKey, CacheValueConfig cacheValueConfig, Object value) {
+        redisStore.setex(cacheValueConfig.getDbIndex(), cacheKey, cacheValueConfig.getTtl(), JsonCodec.toJsonBytes(value));
     }
 
     private int[] initializeCacheDBIndex(String config) {
@@ -266,11 +313,11 @@ public class DefaultCacheManager implements CacheManager, InitializingBean {
         switch (cacheType) {
             case INFERENCE_RESULT:
                 dbIndex = inferenceResultCacheDBIndex;
-                ttl = externalInferenceResultCacheTTL + new Random().nextInt(10);
+                ttl = externalInferenceResultCacheTTL.get() + ThreadLocalRandom.current().nextInt(10);
                 return new CacheValueConfig<>(dbIndex, ttl, inferenceResultCache);
             case REMOTE_MODEL_INFERENCE_RESULT:
                 dbIndex = remoteModelInferenceResultCacheDBIndex;
-                ttl = externalRemoteModelInferenceResultCacheTTL + new Random().nextInt(100);
+                ttl = externalRemoteModelInferenceResultCacheTTL.get() + ThreadLocalRandom.current().nextInt(100);
                 return new CacheValueConfig<>(dbIndex, ttl, remoteModelInferenceResultCache);
             case PROCESS_DATA:
                 dbIndex = processCacheDBIndex;
@@ -283,30 +330,16 @@ public class DefaultCacheManager implements CacheManager, InitializingBean {
 
 
 
+    /**
+     * kept as the plain join it always was, async job results are fetched by this key across versions
+     */
     private String generateInferenceResultCacheKey(String partyId, String caseid) {
         return StringUtils.join(Arrays.asList(partyId, caseid), "_");
     }
 
 
     private String generateRemoteModelInferenceResultCacheKey(FederatedParams  federatedParams){
-        Preconditions.checkNotNull(federatedParams);
-        Preconditions.checkNotNull(federatedParams.getModelInfo());
-        Preconditions.checkNotNull(federatedParams.getFeatureIdMap());
-        String namespace = federatedParams.getModelInfo().getNamespace();
-        String name = federatedParams.getModelInfo().getName();
-
-        Map  sortedMap = Maps.newTreeMap();
-        federatedParams.getFeatureIdMap().forEach((k,v)->{
-            sortedMap.put(k,v);
-        });
-        StringBuffer sb  =  new StringBuffer();
-        sb.append(namespace);
-        sb.append(name);
-        sortedMap.forEach((k,v)->{
-            sb.append(k).append(v);
-        });
-        String md5key = Md5Crypt.md5Crypt(sb.toString().getBytes(), Dict.MD5_SALT);
-        return  md5key;
+        return CacheKeyGenerator.remoteModelInferenceResultKey(federatedParams);
     }
 
     private String generateRemoteModelInferenceResultCacheKey(FederatedParty remoteParty, FederatedRoles federatedRoles, Map<String, Object> featureIds) {
@@ -17,15 +17,30 @@
 package com.webank.ai.fate.serving.core.manager;
 
 
+import com.google.common.hash.Hashing;
+import com.webank.ai.fate.serving.core.bean.EncryptMethod;
 import com.webank.ai.fate.serving.core.bean.FederatedRoles;
+import com.webank.ai.fate.serving.core.utils.EncryptUtils;
 import org.apache.commons.lang3.StringUtils;
 
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 public class FederatedUtils {
     public FederatedUtils() {
     }
 
+    /**
+     * the environment a host serving registers for a model of its partner, proxies route unaryCall by it
+     */
+    public static String modelRouteKey(String partnerModelName, String partnerModelNamespace) {
+        return EncryptUtils.encrypt(StringUtils.join(Arrays.asList(partnerModelName, partnerModelNamespace), "&"), EncryptMethod.MD5);
+    }
+
+    public static long routeHash(String caseId) {
+        return Hashing.murmur3_128().hashString(caseId, StandardCharsets.UTF_8).asLong();
+    }
+
     public static String federatedRolesIdentificationString(FederatedRoles federatedRoles) {
         if (federatedRoles == null) {
             return "all";
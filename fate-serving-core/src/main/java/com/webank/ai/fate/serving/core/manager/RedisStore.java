@@ -0,0 +1,106 @@
+/*
+ * Copyright 2019 The FATE Authors. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.webank.ai.fate.serving.core.manager;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.Pipeline;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * binary get and set on redis. there is one connection pool per database, a connection is opened on its database
+ * and never switches, so no operation needs a select. batches are one MGET or one pipelined round trip
+ */
+public class RedisStore {
+
+    private final JedisPoolConfig jedisPoolConfig;
+    private final String host;
+    private final int port;
+    private final int timeout;
+    private final String password;
+    private final ConcurrentMap<Integer, JedisPool> pools = new ConcurrentHashMap<>();
+
+    public RedisStore(JedisPoolConfig jedisPoolConfig, String host, int port, int timeout, String password) {
+        this.jedisPoolConfig = jedisPoolConfig;
+        this.host = host;
+        this.port = port;
+        this.timeout = timeout;
+        this.password = password;
+    }
+
+    public static byte[] key(String key) {
+        return key.getBytes(StandardCharsets.UTF_8);
+    }
+
+    public byte[] get(int database, String key) {
+        try (Jedis jedis = pool(database).getResource()) {
+            return jedis.get(key(key));
+        }
+    }
+
+    /**
+     * @return the values in the order of the keys, null where a key is missing
+     */
+    public List<byte[]> mget(int database, List<String> keys) {
+        if (keys.isEmpty()) {
+            return new ArrayList<>();
+        }
+        byte[][] binaryKeys = new byte[keys.size()][];
+        for (int i = 0; i < binaryKeys.length; i++) {
+            binaryKeys[i] = key(keys.get(i));
+        }
+        try (Jedis jedis = pool(database).getResource()) {
+            return jedis.mget(binaryKeys);
+        }
+    }
+
+    public void setex(int database, String key, int ttl, byte[] value) {
+        try (Jedis jedis = pool(database).getResource()) {
+            jedis.setex(key(key), ttl, value);
+        }
+    }
+
+    /**
+     * sets all keys with the same ttl in one pipelined round trip
+     */
+    public void msetex(int database, List<String> keys, List<byte[]> values, int ttl) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        try (Jedis jedis = pool(database).getResource()) {
+            Pipeline pipeline = jedis.pipelined();
+            for (int i = 0; i < keys.size(); i++) {
+                pipeline.setex(key(keys.get(i)), ttl, values.get(i));
+            }
+            pipeline.sync();
+        }
+    }
+
+    private JedisPool pool(int database) {
+        JedisPool pool = pools.get(database);
+        if (pool == null) {
+            pool = pools.computeIfAbsent(database, db -> new JedisPool(jedisPoolConfig, host, port, timeout, password, db));
+        }
+        return pool;
+    }
+}
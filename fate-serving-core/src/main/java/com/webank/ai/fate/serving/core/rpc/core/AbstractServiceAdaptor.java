@@ -7,10 +7,18 @@ import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONObject;
 import com.alibaba.fastjson.serializer.SerializerFeature;
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
 import com.webank.ai.fate.serving.core.bean.Context;
 import com.webank.ai.fate.serving.core.bean.Dict;
 import com.webank.ai.fate.serving.core.exceptions.ErrorCode;
+import com.webank.ai.fate.serving.core.exceptions.NoResultException;
 import com.webank.ai.fate.serving.core.exceptions.ShowDownRejectException;
+import com.webank.ai.fate.serving.core.exceptions.UnSupportMethodException;
+import com.webank.ai.fate.serving.core.limit.GradientConcurrencyLimiter;
 
 
 import io.grpc.stub.AbstractStub;
@@ -90,7 +98,16 @@ public abstract class AbstractServiceAdaptor<req,resp> implements ServiceAdaptor
 
     String serviceName;
 
-    public abstract resp doService(Context context, InboundPackage<req> data, OutboundPackage<resp>  outboundPackage)  ;
+    /**
+     * synchronous services implement this one, services waiting on a downstream call override doServiceAsync instead
+     */
+    public resp doService(Context context, InboundPackage<req> data, OutboundPackage<resp> outboundPackage) {
+        throw new UnSupportMethodException();
+    }
+
+    public ListenableFuture<resp> doServiceAsync(Context context, InboundPackage<req> data, OutboundPackage<resp> outboundPackage) {
+        return Futures.immediateFuture(doService(context, data, outboundPackage));
+    }
 
     /**
      * @param context
@@ -100,6 +117,15 @@ public abstract class AbstractServiceAdaptor<req,resp> implements ServiceAdaptor
      */
     @Override
     public  OutboundPackage<resp> service(Context context , InboundPackage<req> data) throws Exception {
+        return serviceAsync(context, data).get();
+    }
+
+    /**
+     * runs the chains around doServiceAsync, no thread waits for the downstream call,
+     * the returned future completes with the error package if anything failed
+     */
+    @Override
+    public ListenableFuture<OutboundPackage<resp>> serviceAsync(Context context, InboundPackage<req> data) {
 
         OutboundPackage<resp>    outboundPackage= new OutboundPackage<resp>();
         long begin = System.currentTimeMillis();
@@ -107,66 +133,106 @@ public abstract class AbstractServiceAdaptor<req,resp> implements ServiceAdaptor
         List<Throwable> exceptions = Lists.newArrayList();
         context.setReturnCode("0");
         if(!isOpen){
-            return  this.serviceFailInner(context,data,new ShowDownRejectException());
+            try {
+                return Futures.immediateFuture(this.serviceFailInner(context, data, new ShowDownRejectException()));
+            } catch (Exception e) {
+                return Futures.immediateFailedFuture(e);
+            }
         }
 
+        requestInHandle.addAndGet(1);
+        context.setServiceName(this.serviceName);
         try {
-            requestInHandle.addAndGet(1);
-
-
-            resp result=null;
-            context.setServiceName(this.serviceName);
-
             preChain.doPreProcess(context,data,outboundPackage);
+        } catch (Throwable e) {
+            exceptions.add(e);
+            logger.error(e.getMessage());
+            return Futures.immediateFuture(this.complete(context, data, outboundPackage, exceptions, begin));
+        }
 
-            try {
-                result = doService(context, data, outboundPackage);
+        ListenableFuture<resp> resultFuture;
+        try {
+            resultFuture = doServiceAsync(context, data, outboundPackage);
+        } catch (Throwable e) {
+            resultFuture = Futures.immediateFailedFuture(e);
+        }
+
+        SettableFuture<OutboundPackage<resp>> future = SettableFuture.create();
+        Futures.addCallback(resultFuture, new FutureCallback<resp>() {
+            @Override
+            public void onSuccess(resp result) {
                 if(logger.isDebugEnabled()) {
                     logger.debug("do service, router info: {}, service name: {}, result: {}", JSON.toJSONString(data.getRouterInfo()), serviceName, result);
                 }
-            }catch(Throwable e){
+                postProcess(result);
+            }
+
+            @Override
+            public void onFailure(Throwable e) {
                 /**
                  * 这里catch的原因是，就算发生异常也要走完后处理
                  */
-                e.printStackTrace();
                 exceptions.add(e);
                 logger.error("do service fail, cause by: {}", e.getMessage());
+                postProcess(null);
             }
-            outboundPackage.setData(result);
-            postChain.doPostProcess(context,data,outboundPackage);
 
-        }
-        catch (Throwable e) {
-            exceptions.add(e);
-            logger.error(e.getMessage());
-        } finally {
-
-            requestInHandle.decrementAndGet();
-            long end = System.currentTimeMillis();
-            long cost = end - begin;
-
-            if(exceptions.size()!=0){
+            private void postProcess(resp result) {
+                outboundPackage.setData(result);
                 try {
-                    outboundPackage = this.serviceFail(context, data, exceptions);
-                }catch(Throwable e){
-                    logger.error("handle serviceFail error",e);
+                    postChain.doPostProcess(context, data, outboundPackage);
+                } catch (Throwable e) {
+                    exceptions.add(e);
+                    logger.error(e.getMessage());
                 }
+                future.set(complete(context, data, outboundPackage, exceptions, begin));
             }
-            try {
-                flowLogger.info("{}|{}|{}|{}|" +
-                                "{}|{}|{}|{}|" +
-                                "{}|{}",
-                        begin, context.getSourceIp(), context.getCaseId(), context.getGuestAppId(),
-                        context.getHostAppid(), context.getReturnCode(), end - begin,
-                        context.getDownstreamCost(), serviceName, context.getRouterInfo() != null ? context.getRouterInfo() : "NO_ROUTER_INFO");
-            }catch(Exception e){
-                logger.error("print flow log error",e);
-            }
+        }, MoreExecutors.directExecutor());
+        return future;
+    }
 
+    private OutboundPackage<resp> complete(Context context, InboundPackage<req> data, OutboundPackage<resp> outboundPackage,
+                                           List<Throwable> exceptions, long begin) {
+        requestInHandle.decrementAndGet();
+        releaseConcurrencyLimit(context, exceptions);
+        long end = System.currentTimeMillis();
 
+        if(exceptions.size()!=0){
+            try {
+                outboundPackage = this.serviceFail(context, data, exceptions);
+            }catch(Throwable e){
+                logger.error("handle serviceFail error",e);
+            }
+        }
+        try {
+            flowLogger.info("{}|{}|{}|{}|" +
+                            "{}|{}|{}|{}|" +
+                            "{}|{}",
+                    begin, context.getSourceIp(), context.getCaseId(), context.getGuestAppId(),
+                    context.getHostAppid(), context.getReturnCode(), end - begin,
+                    context.getDownstreamCost(), serviceName, context.getRouterInfo() != null ? context.getRouterInfo() : "NO_ROUTER_INFO");
+        }catch(Exception e){
+            logger.error("print flow log error",e);
         }
         return outboundPackage;
+    }
 
+    /**
+     * hands the latency of this call back to the concurrency limiter that admitted it, if any
+     */
+    private void releaseConcurrencyLimit(Context context, List<Throwable> exceptions) {
+        Object token = context.getData(Dict.CONCURRENCY_LIMIT_TOKEN);
+        if (!(token instanceof GradientConcurrencyLimiter.Token)) {
+            return;
+        }
+        GradientConcurrencyLimiter.Token limitToken = (GradientConcurrencyLimiter.Token) token;
+        if (exceptions.isEmpty()) {
+            limitToken.onSuccess();
+        } else if (exceptions.stream().anyMatch(e -> e instanceof NoResultException)) {
+            limitToken.onDropped();
+        } else {
+            limitToken.onIgnore();
+        }
     }
 
     protected  OutboundPackage<resp>  serviceFailInner(Context context, InboundPackage<req> data, Throwable e) throws Exception{
@@ -2,6 +2,7 @@ package com.webank.ai.fate.serving.core.rpc.core;
 
 import com.alibaba.csp.sentinel.slots.block.BlockException;
 import com.webank.ai.fate.serving.core.bean.Dict;
+import com.webank.ai.fate.serving.core.breaker.CircuitBreakerOpenException;
 import com.webank.ai.fate.serving.core.exceptions.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -32,7 +33,7 @@ public class ErrorMessageUtil {
            result.put(Dict.MESSAGE, "SYSTEM_ERROR");
 
 
-       } else if (e instanceof BlockException) {
+       } else if (e instanceof BlockException || e instanceof OverLoadException) {
            result.put(Dict.CODE, ErrorCode.LIMIT_ERROR);
 
            result.put(Dict.MESSAGE, "OVERLOAD");
@@ -45,6 +46,10 @@ public class ErrorMessageUtil {
            result.put(Dict.MESSAGE, "SHUTDOWN_ERROR");
 
        }
+       else if (e instanceof CircuitBreakerOpenException) {
+           result.put(Dict.CODE, ErrorCode.NET_ERROR);
+           result.put(Dict.MESSAGE, "NET_ERROR");
+       }
        else if (e instanceof NoResultException) {
            logger.error("NET_ERROR ",e);
            result.put(Dict.CODE, ErrorCode.NET_ERROR);
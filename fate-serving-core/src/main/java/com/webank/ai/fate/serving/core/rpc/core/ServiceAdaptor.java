@@ -1,5 +1,6 @@
 package com.webank.ai.fate.serving.core.rpc.core;
 
+import com.google.common.util.concurrent.ListenableFuture;
 import com.webank.ai.fate.serving.core.bean.Context;
 
 import java.util.List;
@@ -7,6 +8,8 @@ import java.util.List;
 public interface ServiceAdaptor<req, rsp> {
     public OutboundPackage<rsp> service(Context context, InboundPackage<req> inboundPackage) throws Exception;
 
+    public ListenableFuture<OutboundPackage<rsp>> serviceAsync(Context context, InboundPackage<req> inboundPackage);
+
     public OutboundPackage<rsp> serviceFail( Context context,InboundPackage<req> data,List<Throwable> e) throws Exception;
 
 
@@ -0,0 +1,303 @@
+/*
+ * Copyright 2019 The FATE Authors. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.webank.ai.fate.serving.core.utils;
+
+import com.webank.ai.fate.serving.core.bean.ReturnResult;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * compact binary form of cached values: a tag byte per value, varint lengths and ints, utf-8 strings.
+ * maps, lists, numbers, strings, double arrays and ReturnResult are written natively and keep their java types,
+ * anything else is embedded as json. values start with a magic byte that json never starts with,
+ * so values written as json by older versions are still read
+ */
+public class BinaryCodec {
+
+    private static final byte MAGIC = (byte) 0xFB;
+
+    private static final byte NULL = 0;
+    private static final byte TRUE = 1;
+    private static final byte FALSE = 2;
+    private static final byte INT = 3;
+    private static final byte LONG = 4;
+    private static final byte FLOAT = 5;
+    private static final byte DOUBLE = 6;
+    private static final byte STRING = 7;
+    private static final byte MAP = 8;
+    private static final byte LIST = 9;
+    private static final byte DOUBLE_ARRAY = 10;
+    private static final byte RETURN_RESULT = 11;
+    private static final byte JSON = 12;
+
+    private BinaryCodec() {
+    }
+
+    public static byte[] encode(Object value) {
+        Output output = new Output();
+        output.write(MAGIC);
+        writeValue(output, value);
+        return output.toByteArray();
+    }
+
+    /**
+     * @return null for empty input
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T decode(byte[] bytes, Class<T> type) {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != MAGIC) {
+            return JsonCodec.fromJson(bytes, type);
+        }
+        Input input = new Input(bytes, 1);
+        if (bytes.length > 1 && bytes[1] == JSON) {
+            input.position++;
+            return JsonCodec.fromJson(input.readBytes(), type);
+        }
+        Object value = readValue(input);
+        if (value == null || type.isInstance(value)) {
+            return (T) value;
+        }
+        return JsonCodec.convertValue(value, type);
+    }
+
+    private static void writeValue(Output output, Object value) {
+        if (value == null) {
+            output.write(NULL);
+        } else if (value instanceof Boolean) {
+            output.write((Boolean) value ? TRUE : FALSE);
+        } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            output.write(INT);
+            output.writeVarLong(zigZag(((Number) value).intValue()));
+        } else if (value instanceof Long) {
+            output.write(LONG);
+            output.writeVarLong(zigZag((Long) value));
+        } else if (value instanceof Float) {
+            output.write(FLOAT);
+            output.writeFixed(Float.floatToIntBits((Float) value), 4);
+        } else if (value instanceof Double) {
+            output.write(DOUBLE);
+            output.writeFixed(Double.doubleToLongBits((Double) value), 8);
+        } else if (value instanceof String) {
+            output.write(STRING);
+            output.writeString((String) value);
+        } else if (value instanceof Map) {
+            output.write(MAP);
+            writeMap(output, (Map<?, ?>) value);
+        } else if (value instanceof Collection) {
+            Collection<?> collection = (Collection<?>) value;
+            output.write(LIST);
+            output.writeVarLong(collection.size());
+            for (Object element : collection) {
+                writeValue(output, element);
+            }
+        } else if (value instanceof double[]) {
+            double[] array = (double[]) value;
+            output.write(DOUBLE_ARRAY);
+            output.writeVarLong(array.length);
+            for (double element : array) {
+                output.writeFixed(Double.doubleToLongBits(element), 8);
+            }
+        } else if (value instanceof ReturnResult) {
+            ReturnResult returnResult = (ReturnResult) value;
+            output.write(RETURN_RESULT);
+            output.writeVarLong(zigZag(returnResult.getRetcode()));
+            output.writeVarLong(zigZag(returnResult.getFlag()));
+            writeValue(output, returnResult.getRetmsg());
+            writeValue(output, returnResult.getCaseid());
+            writeValue(output, returnResult.getData());
+            writeValue(output, returnResult.getLog());
+            writeValue(output, returnResult.getWarn());
+        } else {
+            output.write(JSON);
+            output.writeBytes(JsonCodec.toJsonBytes(value));
+        }
+    }
+
+    private static void writeMap(Output output, Map<?, ?> map) {
+        output.writeVarLong(map.size());
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            output.writeString(String.valueOf(entry.getKey()));
+            writeValue(output, entry.getValue());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object readValue(Input input) {
+        byte tag = input.read();
+        switch (tag) {
+            case NULL:
+                return null;
+            case TRUE:
+                return Boolean.TRUE;
+            case FALSE:
+                return Boolean.FALSE;
+            case INT:
+                return (int) unZigZag(input.readVarLong());
+            case LONG:
+                return unZigZag(input.readVarLong());
+            case FLOAT:
+                return Float.intBitsToFloat((int) input.readFixed(4));
+            case DOUBLE:
+                return Double.longBitsToDouble(input.readFixed(8));
+            case STRING:
+                return input.readString();
+            case MAP: {
+                int size = (int) input.readVarLong();
+                Map<String, Object> map = new HashMap<>(size * 4 / 3 + 1);
+                for (int i = 0; i < size; i++) {
+                    map.put(input.readString(), readValue(input));
+                }
+                return map;
+            }
+            case LIST: {
+                int size = (int) input.readVarLong();
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(input));
+                }
+                return list;
+            }
+            case DOUBLE_ARRAY: {
+                double[] array = new double[(int) input.readVarLong()];
+                for (int i = 0; i < array.length; i++) {
+                    array[i] = Double.longBitsToDouble(input.readFixed(8));
+                }
+                return array;
+            }
+            case RETURN_RESULT: {
+                ReturnResult returnResult = new ReturnResult();
+                returnResult.setRetcode((int) unZigZag(input.readVarLong()));
+                returnResult.setFlag((int) unZigZag(input.readVarLong()));
+                returnResult.setRetmsg((String) readValue(input));
+                returnResult.setCaseid((String) readValue(input));
+                returnResult.setData((Map<String, Object>) readValue(input));
+                returnResult.setLog((Map<String, Object>) readValue(input));
+                returnResult.setWarn((Map<String, Object>) readValue(input));
+                return returnResult;
+            }
+            case JSON:
+                return JsonCodec.fromJson(input.readBytes(), Object.class);
+            default:
+                throw new IllegalArgumentException("unknown value tag " + tag);
+        }
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static class Output extends ByteArrayOutputStream {
+
+        Output() {
+            super(256);
+        }
+
+        void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        void writeFixed(long value, int length) {
+            for (int i = 0; i < length; i++) {
+                write((int) (value >>> (8 * i)));
+            }
+        }
+
+        void writeBytes(byte[] bytes) {
+            writeVarLong(bytes.length);
+            write(bytes, 0, bytes.length);
+        }
+
+        void writeString(String value) {
+            writeBytes(value.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static class Input {
+        private final byte[] buffer;
+        private int position;
+
+        Input(byte[] buffer, int position) {
+            this.buffer = buffer;
+            this.position = position;
+        }
+
+        byte read() {
+            if (position >= buffer.length) {
+                throw new IllegalArgumentException("truncated value");
+            }
+            return buffer[position++];
+        }
+
+        long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = read();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("malformed varint");
+        }
+
+        long readFixed(int length) {
+            long value = 0;
+            for (int i = 0; i < length; i++) {
+                value |= (long) (read() & 0xFF) << (8 * i);
+            }
+            return value;
+        }
+
+        byte[] readBytes() {
+            int length = (int) readVarLong();
+            if (length < 0 || position + length > buffer.length) {
+                throw new IllegalArgumentException("truncated value");
+            }
+            byte[] bytes = new byte[length];
+            System.arraycopy(buffer, position, bytes, 0, length);
+            position += length;
+            return bytes;
+        }
+
+        String readString() {
+            int length = (int) readVarLong();
+            if (length < 0 || position + length > buffer.length) {
+                throw new IllegalArgumentException("truncated value");
+            }
+            String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+    }
+}
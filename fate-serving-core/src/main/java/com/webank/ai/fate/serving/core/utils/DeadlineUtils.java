@@ -0,0 +1,69 @@
+/*
+ * Copyright 2019 The FATE Authors. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.webank.ai.fate.serving.core.utils;
+
+import io.grpc.Deadline;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * deadlines are epoch millis, 0 stands for no deadline.
+ * they only travel between parties as a remaining budget, so clocks of different hosts never get compared
+ */
+public class DeadlineUtils {
+
+    public static final long NO_DEADLINE = 0;
+
+    /**
+     * the deadline of the grpc call being served on this thread
+     */
+    public static long fromGrpcContext() {
+        Deadline deadline = io.grpc.Context.current().getDeadline();
+        if (deadline == null) {
+            return NO_DEADLINE;
+        }
+        return System.currentTimeMillis() + deadline.timeRemaining(TimeUnit.MILLISECONDS);
+    }
+
+    public static long fromBudget(long budgetMillis) {
+        return budgetMillis > 0 ? System.currentTimeMillis() + budgetMillis : NO_DEADLINE;
+    }
+
+    public static long earliest(long deadline, long otherDeadline) {
+        if (deadline == NO_DEADLINE) {
+            return otherDeadline;
+        }
+        if (otherDeadline == NO_DEADLINE) {
+            return deadline;
+        }
+        return Math.min(deadline, otherDeadline);
+    }
+
+    public static boolean isExpired(long deadline) {
+        return deadline != NO_DEADLINE && System.currentTimeMillis() >= deadline;
+    }
+
+    /**
+     * the time a call may take, bounded by the deadline if there is one
+     */
+    public static long timeout(long deadline, long defaultTimeout) {
+        if (deadline == NO_DEADLINE) {
+            return defaultTimeout;
+        }
+        return Math.max(0, Math.min(defaultTimeout, deadline - System.currentTimeMillis()));
+    }
+}
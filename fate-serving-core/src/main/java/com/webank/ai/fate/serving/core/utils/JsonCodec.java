@@ -0,0 +1,121 @@
+/*
+ * Copyright 2019 The FATE Authors. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.webank.ai.fate.serving.core.utils;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.webank.ai.fate.serving.core.bean.FederatedParams;
+import com.webank.ai.fate.serving.core.bean.HostFederatedParams;
+import com.webank.ai.fate.serving.core.bean.ReturnResult;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * the one jackson mapper of the process. readers and writers are cached per type so that
+ * serializers are resolved once, the beans that cross the wire on every request are resolved up front
+ */
+public class JsonCodec {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private static final ConcurrentMap<Class<?>, ObjectReader> READERS = new ConcurrentHashMap<>();
+
+    private static final ConcurrentMap<Class<?>, ObjectWriter> WRITERS = new ConcurrentHashMap<>();
+
+    static {
+        register(ReturnResult.class);
+        register(FederatedParams.class);
+        register(HostFederatedParams.class);
+    }
+
+    private JsonCodec() {
+    }
+
+    public static void register(Class<?> type) {
+        reader(type);
+        writer(type);
+    }
+
+    public static String toJson(Object value) {
+        try {
+            return writer(value.getClass()).writeValueAsString(value);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("can not encode " + value.getClass().getName(), e);
+        }
+    }
+
+    public static byte[] toJsonBytes(Object value) {
+        try {
+            return writer(value.getClass()).writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("can not encode " + value.getClass().getName(), e);
+        }
+    }
+
+    /**
+     * @return null for empty input
+     */
+    public static <T> T fromJson(String json, Class<T> type) {
+        if (json == null || json.isEmpty()) {
+            return null;
+        }
+        try {
+            return reader(type).readValue(json);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("can not decode " + type.getName(), e);
+        }
+    }
+
+    /**
+     * @return null for empty input
+     */
+    public static <T> T fromJson(byte[] json, Class<T> type) {
+        if (json == null || json.length == 0) {
+            return null;
+        }
+        try {
+            return reader(type).readValue(json);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("can not decode " + type.getName(), e);
+        }
+    }
+
+    public static <T> T convertValue(Object value, Class<T> type) {
+        return MAPPER.convertValue(value, type);
+    }
+
+    private static ObjectReader reader(Class<?> type) {
+        ObjectReader reader = READERS.get(type);
+        if (reader == null) {
+            reader = READERS.computeIfAbsent(type, MAPPER::readerFor);
+        }
+        return reader;
+    }
+
+    private static ObjectWriter writer(Class<?> type) {
+        ObjectWriter writer = WRITERS.get(type);
+        if (writer == null) {
+            writer = WRITERS.computeIfAbsent(type, MAPPER::writerFor);
+        }
+        return writer;
+    }
+}
@@ -16,8 +16,6 @@
 
 package com.webank.ai.fate.serving.core.utils;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.commons.lang3.StringUtils;
 
 public class ObjectTransform {
@@ -30,8 +28,8 @@ public class ObjectTransform {
             return "";
         } else {
             try {
-                return (new ObjectMapper()).writeValueAsString(object);
-            } catch (JsonProcessingException var2) {
+                return JsonCodec.toJson(object);
+            } catch (Exception var2) {
                 return "";
             }
         }
@@ -42,7 +40,7 @@ public class ObjectTransform {
             return null;
         } else {
             try {
-                return (new ObjectMapper()).readValue(json, objectType);
+                return JsonCodec.fromJson(json, objectType);
             } catch (Exception var3) {
                 return null;
             }
@@ -0,0 +1,312 @@
+/*
+ * Copyright 2019 The FATE Authors. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.webank.ai.fate.serving.federatedml;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.webank.ai.fate.api.networking.federated.FederatedInferenceProto;
+import com.webank.ai.fate.api.networking.proxy.Proxy;
+import com.webank.ai.fate.serving.core.bean.*;
+import com.webank.ai.fate.serving.core.utils.JsonCodec;
+import com.webank.ai.fate.serving.core.utils.ObjectTransform;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * encodes the body of the guest -> host unaryCall.
+ * the payload type travels in Proxy.Data.key: a guest sends json and advertises protobuf,
+ * a host that understands it answers in protobuf, after which the guest sends protobuf to that party as well.
+ * an empty key is the plain json of older versions.
+ * the answer only proves that one host serving instance understands protobuf, an older proxy or another
+ * instance of the party may not, so protobuf is opt-in and a failed protobuf call is retried once as json by the caller.
+ * the party then gets plain json without the offer for a while, so a mixed deployment does not switch back and forth
+ */
+public class FederatedPayloadCodec {
+
+    private static final long PROTOBUF_RETRY_INTERVAL = 5 * 60 * 1000;
+
+    /**
+     * host parties that answered in protobuf
+     */
+    private static final ConcurrentMap<String, Boolean> protobufParties = new ConcurrentHashMap<>();
+
+    /**
+     * host parties whose protobuf call failed, with the time it failed
+     */
+    private static final ConcurrentMap<String, Long> jsonOnlyParties = new ConcurrentHashMap<>();
+
+    private static final ConfigValue<Boolean> protobufEnabled = ConfigValue.ofBoolean(Dict.PROPERTY_FEDERATED_PAYLOAD_PROTOBUF, false);
+
+    public static boolean isProtobufEnabled() {
+        return protobufEnabled.get();
+    }
+
+    public static Proxy.Data encodeRequest(String partyId, HostFederatedParams hostFederatedParams) {
+        if (!isProtobufEnabled() || isJsonOnly(partyId)) {
+            return encodeJsonRequest(hostFederatedParams);
+        }
+        if (protobufParties.containsKey(partyId)) {
+            return Proxy.Data.newBuilder()
+                    .setKey(Dict.FEDERATED_PAYLOAD_PROTOBUF)
+                    .setValue(toProto(hostFederatedParams).toByteString())
+                    .build();
+        }
+        return Proxy.Data.newBuilder()
+                .setKey(Dict.FEDERATED_PAYLOAD_JSON_ACCEPT_PROTOBUF)
+                .setValue(ByteString.copyFrom(JsonCodec.toJsonBytes(hostFederatedParams)))
+                .build();
+    }
+
+    public static ReturnResult decodeResponse(String partyId, Proxy.Data body) throws InvalidProtocolBufferException {
+        if (isProtobuf(body)) {
+            protobufParties.put(partyId, Boolean.TRUE);
+            return fromProto(FederatedInferenceProto.FederatedInferenceResponse.parseFrom(body.getValue()));
+        }
+        return (ReturnResult) ObjectTransform.json2Bean(body.getValue().toStringUtf8(), ReturnResult.class);
+    }
+
+    /**
+     * plain json, understood by every version
+     */
+    public static Proxy.Data encodeJsonRequest(HostFederatedParams hostFederatedParams) {
+        return Proxy.Data.newBuilder().setValue(ByteString.copyFrom(JsonCodec.toJsonBytes(hostFederatedParams))).build();
+    }
+
+    public static boolean isProtobuf(Proxy.Data body) {
+        return Dict.FEDERATED_PAYLOAD_PROTOBUF.equals(body.getKey());
+    }
+
+    /**
+     * some hop to the party could not handle a protobuf request, the party gets plain json for a while
+     */
+    public static void onProtobufFailure(String partyId) {
+        protobufParties.remove(partyId);
+        jsonOnlyParties.put(partyId, System.currentTimeMillis());
+    }
+
+    private static boolean isJsonOnly(String partyId) {
+        Long failedAt = jsonOnlyParties.get(partyId);
+        if (failedAt == null) {
+            return false;
+        }
+        if (System.currentTimeMillis() - failedAt < PROTOBUF_RETRY_INTERVAL) {
+            return true;
+        }
+        jsonOnlyParties.remove(partyId, failedAt);
+        return false;
+    }
+
+    public static HostFederatedParams decodeRequest(Proxy.Data body) throws InvalidProtocolBufferException {
+        if (isProtobuf(body)) {
+            return fromProto(FederatedInferenceProto.FederatedInferenceRequest.parseFrom(body.getValue()));
+        }
+        return JsonCodec.fromJson(body.getValue().toByteArray(), HostFederatedParams.class);
+    }
+
+    /**
+     * answers in the payload type the request asked for
+     */
+    public static Proxy.Data encodeResponse(Proxy.Data requestBody, ReturnResult returnResult) {
+        boolean protobuf = Dict.FEDERATED_PAYLOAD_PROTOBUF.equals(requestBody.getKey())
+                || (Dict.FEDERATED_PAYLOAD_JSON_ACCEPT_PROTOBUF.equals(requestBody.getKey()) && isProtobufEnabled());
+        if (protobuf) {
+            return Proxy.Data.newBuilder()
+                    .setKey(Dict.FEDERATED_PAYLOAD_PROTOBUF)
+                    .setValue(toProto(returnResult).toByteString())
+                    .build();
+        }
+        return Proxy.Data.newBuilder().setValue(ByteString.copyFrom(JsonCodec.toJsonBytes(returnResult))).build();
+    }
+
+    public static FederatedInferenceProto.FederatedInferenceRequest toProto(HostFederatedParams hostFederatedParams) {
+        FederatedInferenceProto.FederatedInferenceRequest.Builder builder = FederatedInferenceProto.FederatedInferenceRequest.newBuilder();
+        if (hostFederatedParams.getCaseId() != null) {
+            builder.setCaseId(hostFederatedParams.getCaseId());
+        }
+        if (hostFederatedParams.getSeqNo() != null) {
+            builder.setSeqNo(hostFederatedParams.getSeqNo());
+        }
+        if (hostFederatedParams.getLocal() != null) {
+            builder.setLocal(toProto(hostFederatedParams.getLocal()));
+        }
+        if (hostFederatedParams.getPartnerLocal() != null) {
+            builder.setPartnerLocal(toProto(hostFederatedParams.getPartnerLocal()));
+        }
+        if (hostFederatedParams.getRole() != null) {
+            for (Map.Entry<String, List<String>> entry : hostFederatedParams.getRole().getRoleMap().entrySet()) {
+                builder.putRole(entry.getKey(), FederatedInferenceProto.PartyIds.newBuilder().addAllPartyIds(entry.getValue()).build());
+            }
+        }
+        ModelInfo partnerModelInfo = hostFederatedParams.getPartnerModelInfo();
+        if (partnerModelInfo != null) {
+            FederatedInferenceProto.ModelInfo.Builder modelInfoBuilder = FederatedInferenceProto.ModelInfo.newBuilder();
+            if (partnerModelInfo.getName() != null) {
+                modelInfoBuilder.setName(partnerModelInfo.getName());
+            }
+            if (partnerModelInfo.getNamespace() != null) {
+                modelInfoBuilder.setNamespace(partnerModelInfo.getNamespace());
+            }
+            builder.setPartnerModelInfo(modelInfoBuilder);
+        }
+        for (Map.Entry<String, Object> entry : hostFederatedParams.getFeatureIdMap().entrySet()) {
+            builder.putFeatureIds(entry.getKey(), toValue(entry.getValue()));
+        }
+        if (hostFederatedParams.getData() != null) {
+            for (Map.Entry<String, Object> entry : hostFederatedParams.getData().entrySet()) {
+                if (Dict.COMPONENT_NAME.equals(entry.getKey()) && entry.getValue() instanceof String) {
+                    builder.setComponentName((String) entry.getValue());
+                } else if (Dict.TREE_LOCATION.equals(entry.getKey()) && entry.getValue() instanceof Map) {
+                    for (Map.Entry<?, ?> location : ((Map<?, ?>) entry.getValue()).entrySet()) {
+                        builder.putTreeLocation(Integer.parseInt(location.getKey().toString()), ((Number) location.getValue()).intValue());
+                    }
+                } else {
+                    builder.putData(entry.getKey(), toValue(entry.getValue()));
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    public static HostFederatedParams fromProto(FederatedInferenceProto.FederatedInferenceRequest request) {
+        HostFederatedParams hostFederatedParams = new HostFederatedParams();
+        hostFederatedParams.setCaseId(request.getCaseId());
+        hostFederatedParams.setSeqNo(request.getSeqNo());
+        if (request.hasLocal()) {
+            hostFederatedParams.setLocal(new FederatedParty(request.getLocal().getRole(), request.getLocal().getPartyId()));
+        }
+        if (request.hasPartnerLocal()) {
+            hostFederatedParams.setPartnerLocal(new FederatedParty(request.getPartnerLocal().getRole(), request.getPartnerLocal().getPartyId()));
+        }
+        FederatedRoles federatedRoles = new FederatedRoles();
+        for (Map.Entry<String, FederatedInferenceProto.PartyIds> entry : request.getRoleMap().entrySet()) {
+            federatedRoles.setRole(entry.getKey(), new ArrayList<>(entry.getValue().getPartyIdsList()));
+        }
+        hostFederatedParams.setRole(federatedRoles);
+        if (request.hasPartnerModelInfo()) {
+            hostFederatedParams.setPartnerModelInfo(new ModelInfo(request.getPartnerModelInfo().getName(), request.getPartnerModelInfo().getNamespace()));
+        }
+        for (Map.Entry<String, FederatedInferenceProto.Value> entry : request.getFeatureIdsMap().entrySet()) {
+            hostFederatedParams.getFeatureIdMap().put(entry.getKey(), fromValue(entry.getValue()));
+        }
+        Map<String, Object> data = new HashMap<>(8);
+        for (Map.Entry<String, FederatedInferenceProto.Value> entry : request.getDataMap().entrySet()) {
+            data.put(entry.getKey(), fromValue(entry.getValue()));
+        }
+        if (!request.getComponentName().isEmpty()) {
+            data.put(Dict.COMPONENT_NAME, request.getComponentName());
+        }
+        if (request.getTreeLocationCount() > 0) {
+            Map<String, Object> treeLocation = new HashMap<>(request.getTreeLocationCount() * 2);
+            for (Map.Entry<Integer, Integer> location : request.getTreeLocationMap().entrySet()) {
+                treeLocation.put(String.valueOf(location.getKey()), location.getValue());
+            }
+            data.put(Dict.TREE_LOCATION, treeLocation);
+        }
+        hostFederatedParams.setData(data);
+        return hostFederatedParams;
+    }
+
+    public static FederatedInferenceProto.FederatedInferenceResponse toProto(ReturnResult returnResult) {
+        FederatedInferenceProto.FederatedInferenceResponse.Builder builder = FederatedInferenceProto.FederatedInferenceResponse.newBuilder()
+                .setRetcode(returnResult.getRetcode());
+        if (returnResult.getRetmsg() != null) {
+            builder.setRetmsg(returnResult.getRetmsg());
+        }
+        if (returnResult.getCaseid() != null) {
+            builder.setCaseid(returnResult.getCaseid());
+        }
+        if (returnResult.getData() != null) {
+            for (Map.Entry<String, Object> entry : returnResult.getData().entrySet()) {
+                builder.putData(entry.getKey(), toValue(entry.getValue()));
+            }
+        }
+        return builder.build();
+    }
+
+    public static ReturnResult fromProto(FederatedInferenceProto.FederatedInferenceResponse response) {
+        ReturnResult returnResult = new ReturnResult();
+        returnResult.setRetcode(response.getRetcode());
+        returnResult.setRetmsg(response.getRetmsg());
+        returnResult.setCaseid(response.getCaseid());
+        Map<String, Object> data = new HashMap<>(response.getDataCount() * 2);
+        for (Map.Entry<String, FederatedInferenceProto.Value> entry : response.getDataMap().entrySet()) {
+            data.put(entry.getKey(), fromValue(entry.getValue()));
+        }
+        returnResult.setData(data);
+        return returnResult;
+    }
+
+    private static FederatedInferenceProto.FederatedParty toProto(FederatedParty federatedParty) {
+        FederatedInferenceProto.FederatedParty.Builder builder = FederatedInferenceProto.FederatedParty.newBuilder();
+        if (federatedParty.getRole() != null) {
+            builder.setRole(federatedParty.getRole());
+        }
+        if (federatedParty.getPartyId() != null) {
+            builder.setPartyId(federatedParty.getPartyId());
+        }
+        return builder.build();
+    }
+
+    private static FederatedInferenceProto.Value toValue(Object value) {
+        FederatedInferenceProto.Value.Builder builder = FederatedInferenceProto.Value.newBuilder();
+        if (value == null) {
+            return builder.build();
+        }
+        if (value instanceof Double || value instanceof Float) {
+            builder.setDoubleValue(((Number) value).doubleValue());
+        } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            builder.setIntValue(((Number) value).intValue());
+        } else if (value instanceof Long) {
+            builder.setLongValue((Long) value);
+        } else if (value instanceof String) {
+            builder.setStringValue((String) value);
+        } else if (value instanceof Boolean) {
+            builder.setBoolValue((Boolean) value);
+        } else if (value instanceof byte[]) {
+            builder.setBytesValue(ByteString.copyFrom((byte[]) value));
+        } else {
+            builder.setJsonValue(JsonCodec.toJson(value));
+        }
+        return builder.build();
+    }
+
+    private static Object fromValue(FederatedInferenceProto.Value value) {
+        switch (value.getKindCase()) {
+            case DOUBLEVALUE:
+                return value.getDoubleValue();
+            case INTVALUE:
+                return value.getIntValue();
+            case LONGVALUE:
+                return value.getLongValue();
+            case STRINGVALUE:
+                return value.getStringValue();
+            case BOOLVALUE:
+                return value.getBoolValue();
+            case BYTESVALUE:
+                return value.getBytesValue().toByteArray();
+            case JSONVALUE:
+                return JsonCodec.fromJson(value.getJsonValue(), Object.class);
+            default:
+                return null;
+        }
+    }
+}
@@ -20,6 +20,9 @@ package com.webank.ai.fate.serving.federatedml;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.webank.ai.fate.core.mlmodel.buffer.PipelineProto;
 import com.webank.ai.fate.serving.core.bean.*;
 import com.webank.ai.fate.serving.federatedml.model.BaseModel;
@@ -104,21 +107,7 @@ public class PipelineTask {
                     logger.debug("component class is {}", this.pipeLineNode.get(i));
                 }
             }
-            List<Map<String, Object>> inputs = new ArrayList<>();
-            HashSet<Integer> upInputComponents = this.dslParser.getUpInputComponents(i);
-            if (upInputComponents != null) {
-                Iterator<Integer> iters = upInputComponents.iterator();
-                while (iters.hasNext()) {
-                    Integer upInput = iters.next();
-                    if (upInput == -1) {
-                        inputs.add(inputData);
-                    } else {
-                        inputs.add(outputData.get(upInput));
-                    }
-                }
-            } else {
-                inputs.add(inputData);
-            }
+            List<Map<String, Object>> inputs = getComponentInputs(i, inputData, outputData);
             if (this.pipeLineNode.get(i) != null) {
                 Map<String, Object>  modelResult = this.pipeLineNode.get(i).handlePredict(context, inputs, predictParams);
                 outputData.add(modelResult);
@@ -143,6 +132,106 @@ public class PipelineTask {
 
     }
 
+    /**
+     * same as predict, but components are chained through their futures, so a component waiting for
+     * the host party does not hold the calling thread
+     */
+    public ListenableFuture<Map<String, Object>> predictAsync(Context context, Map<String, Object> inputData, FederatedParams predictParams) {
+        return predictComponentAsync(context, inputData, predictParams, 0, new ArrayList<>(this.pipeLineNode.size()), null);
+    }
+
+    private ListenableFuture<Map<String, Object>> predictComponentAsync(Context context, Map<String, Object> inputData, FederatedParams predictParams,
+                                                                        int index, List<Map<String, Object>> outputData, Map<String, Object> lastResult) {
+        if (index >= this.pipeLineNode.size()) {
+            ReturnResult federatedResult = context.getFederatedResult();
+            if (federatedResult != null) {
+                inputData.put(Dict.RET_CODE, federatedResult.getRetcode());
+            }
+            return Futures.immediateFuture(lastResult != null ? lastResult : Maps.newHashMap());
+        }
+        List<Map<String, Object>> inputs = getComponentInputs(index, inputData, outputData);
+        BaseModel node = this.pipeLineNode.get(index);
+        if (node == null) {
+            outputData.add(inputs.get(0));
+            return predictComponentAsync(context, inputData, predictParams, index + 1, outputData, lastResult);
+        }
+        return Futures.transformAsync(node.handlePredictAsync(context, inputs, predictParams), modelResult -> {
+            outputData.add(modelResult);
+            return predictComponentAsync(context, inputData, predictParams, index + 1, outputData, modelResult);
+        }, MoreExecutors.directExecutor());
+    }
+
+    private List<Map<String, Object>> getComponentInputs(int index, Map<String, Object> inputData, List<Map<String, Object>> outputData) {
+        List<Map<String, Object>> inputs = new ArrayList<>();
+        HashSet<Integer> upInputComponents = this.dslParser.getUpInputComponents(index);
+        if (upInputComponents != null) {
+            Iterator<Integer> iters = upInputComponents.iterator();
+            while (iters.hasNext()) {
+                Integer upInput = iters.next();
+                if (upInput == -1) {
+                    inputs.add(inputData);
+                } else {
+                    inputs.add(outputData.get(upInput));
+                }
+            }
+        } else {
+            inputs.add(inputData);
+        }
+        return inputs;
+    }
+
+    public List<Map<String, Object>> predictBatch(List<Context> contexts, List<Map<String, Object>> batchInputData, List<FederatedParams> batchPredictParams) {
+        Preconditions.checkArgument(contexts.size() == batchInputData.size() && batchInputData.size() == batchPredictParams.size());
+        int batchSize = batchInputData.size();
+        int pipelineSize = this.pipeLineNode.size();
+        List<List<Map<String, Object>>> outputData = new ArrayList<>(pipelineSize);
+        List<Map<String, Object>> result = null;
+        for (int i = 0; i < pipelineSize; i++) {
+            BaseModel node = this.pipeLineNode.get(i);
+            HashSet<Integer> upInputComponents = this.dslParser.getUpInputComponents(i);
+            List<List<Map<String, Object>>> batchInputs = new ArrayList<>(batchSize);
+            for (int j = 0; j < batchSize; j++) {
+                List<Map<String, Object>> inputs = new ArrayList<>();
+                if (upInputComponents != null) {
+                    for (Integer upInput : upInputComponents) {
+                        if (upInput == -1) {
+                            inputs.add(batchInputData.get(j));
+                        } else {
+                            inputs.add(outputData.get(upInput).get(j));
+                        }
+                    }
+                } else {
+                    inputs.add(batchInputData.get(j));
+                }
+                batchInputs.add(inputs);
+            }
+            if (node != null) {
+                List<Map<String, Object>> modelResult = node.handleBatchPredict(contexts, batchInputs, batchPredictParams);
+                outputData.add(modelResult);
+                result = modelResult;
+            } else {
+                List<Map<String, Object>> passThrough = new ArrayList<>(batchSize);
+                for (List<Map<String, Object>> inputs : batchInputs) {
+                    passThrough.add(inputs.get(0));
+                }
+                outputData.add(passThrough);
+            }
+        }
+        for (int j = 0; j < batchSize; j++) {
+            ReturnResult federatedResult = contexts.get(j).getFederatedResult();
+            if (federatedResult != null) {
+                batchInputData.get(j).put(Dict.RET_CODE, federatedResult.getRetcode());
+            }
+        }
+        if (result == null) {
+            result = new ArrayList<>(batchSize);
+            for (int j = 0; j < batchSize; j++) {
+                result.add(Maps.newHashMap());
+            }
+        }
+        return result;
+    }
+
     private HashMap<String, byte[]> changeModelProto(Map<String, byte[]> modelProtoMap) {
         HashMap<String, byte[]> newModelProtoMap = new HashMap<String, byte[]>(8);
         for (Map.Entry<String, byte[]> entry : modelProtoMap.entrySet()) {
@@ -0,0 +1,241 @@
+/*
+ * Copyright 2019 The FATE Authors. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.webank.ai.fate.serving.federatedml;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import com.webank.ai.fate.register.common.NamedThreadFactory;
+import com.webank.ai.fate.serving.core.bean.ConfigValue;
+import com.webank.ai.fate.serving.core.bean.Dict;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * hedged remote calls: when the first endpoint has not answered within a percentile of the recent latency,
+ * the same request goes to a second endpoint, the first answer wins and the other call is cancelled.
+ * errors are not hedged, and hedges are limited to a share of all calls so that a slow partner is not sent double load.
+ * latency and hedge budget are kept per destination party and command, so a slow partner or a slow command
+ * neither delays the hedges of the others nor uses up their budget
+ */
+public class RemoteCallHedging {
+
+    private static final Logger logger = LoggerFactory.getLogger(RemoteCallHedging.class);
+
+    private static final int LATENCY_WINDOW = 1024;
+
+    private static final int MIN_LATENCY_SAMPLES = 100;
+
+    private static final long HEDGE_DELAY_REFRESH_INTERVAL = 1000;
+
+    /**
+     * a hedge costs one token, every call deposits maxRatio of one, at most MAX_HEDGE_BURST hedges are saved up
+     */
+    private static final long TOKEN = 1000;
+
+    private static final long MAX_HEDGE_BURST = 10;
+
+    /**
+     * party id -> command -> hedge state
+     */
+    private static final ConcurrentMap<String, ConcurrentMap<String, HedgeState>> hedgeStates = new ConcurrentHashMap<>();
+
+    private static final ConfigValue<Boolean> enable = ConfigValue.ofBoolean(Dict.PROPERTY_HEDGE_ENABLE, false);
+
+    private static final ConfigValue<Double> latencyPercentile = ConfigValue.ofDouble(Dict.PROPERTY_HEDGE_LATENCY_PERCENTILE, 95);
+
+    private static final ConfigValue<Double> maxRatio = ConfigValue.ofDouble(Dict.PROPERTY_HEDGE_MAX_RATIO, 0.1);
+
+    private static final ScheduledExecutorService hedgeTimer = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("hedge-timer", true));
+
+    public static boolean isEnabled() {
+        return enable.get();
+    }
+
+    /**
+     * @param partyId        the destination party
+     * @param command        the remote method, its latency is tracked apart from the other commands
+     * @param primaryAddress where the request goes first
+     * @param hedgeAddress   chooses the second endpoint when the hedge fires, null if there is none
+     * @param caller         sends the request to one address
+     */
+    public static <T> ListenableFuture<T> call(String partyId, String command, String primaryAddress, Supplier<String> hedgeAddress,
+                                               Function<String, ListenableFuture<T>> caller) {
+        if (!isEnabled()) {
+            return caller.apply(primaryAddress);
+        }
+        HedgeState state = getHedgeState(partyId, command);
+        state.depositToken();
+        ListenableFuture<T> primary = timedCall(state, primaryAddress, caller);
+        long delay = state.hedgeDelay;
+        if (delay < 0) {
+            return primary;
+        }
+
+        SettableFuture<T> result = SettableFuture.create();
+        AtomicInteger pending = new AtomicInteger(1);
+        List<ListenableFuture<T>> attempts = new CopyOnWriteArrayList<>();
+        attempts.add(primary);
+        ScheduledFuture<?> hedge = hedgeTimer.schedule(() -> {
+            if (result.isDone()) {
+                return;
+            }
+            String address = hedgeAddress.get();
+            if (address == null || address.equals(primaryAddress) || !state.tryAcquireToken()) {
+                return;
+            }
+            pending.incrementAndGet();
+            logger.info("no answer from {} for {} of party {} after {} ms, hedge to {}", primaryAddress, command, partyId, delay, address);
+            ListenableFuture<T> hedged = timedCall(state, address, caller);
+            attempts.add(hedged);
+            complete(hedged, result, pending);
+            if (result.isDone()) {
+                hedged.cancel(true);
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+        complete(primary, result, pending);
+        result.addListener(() -> {
+            hedge.cancel(false);
+            attempts.forEach(attempt -> attempt.cancel(true));
+        }, MoreExecutors.directExecutor());
+        return result;
+    }
+
+    private static HedgeState getHedgeState(String partyId, String command) {
+        ConcurrentMap<String, HedgeState> commandStates = hedgeStates.get(partyId);
+        if (commandStates == null) {
+            commandStates = hedgeStates.computeIfAbsent(partyId, k -> new ConcurrentHashMap<>());
+        }
+        HedgeState state = commandStates.get(command);
+        if (state == null) {
+            state = commandStates.computeIfAbsent(command, k -> new HedgeState());
+        }
+        return state;
+    }
+
+    /**
+     * the first success completes the result, a failure only once no other attempt is left
+     */
+    private static <T> void complete(ListenableFuture<T> attempt, SettableFuture<T> result, AtomicInteger pending) {
+        Futures.addCallback(attempt, new FutureCallback<T>() {
+            @Override
+            public void onSuccess(T value) {
+                result.set(value);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                if (pending.decrementAndGet() == 0) {
+                    result.setException(t);
+                }
+            }
+        }, MoreExecutors.directExecutor());
+    }
+
+    private static <T> ListenableFuture<T> timedCall(HedgeState state, String address, Function<String, ListenableFuture<T>> caller) {
+        long begin = System.currentTimeMillis();
+        ListenableFuture<T> future;
+        try {
+            future = caller.apply(address);
+        } catch (Exception e) {
+            return Futures.immediateFailedFuture(e);
+        }
+        Futures.addCallback(future, new FutureCallback<T>() {
+            @Override
+            public void onSuccess(T value) {
+                state.recordLatency(System.currentTimeMillis() - begin);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+            }
+        }, MoreExecutors.directExecutor());
+        return future;
+    }
+
+    /**
+     * recent latency, hedge delay and hedge budget of one party and command
+     */
+    private static class HedgeState {
+
+        private final long[] latencies = new long[LATENCY_WINDOW];
+
+        private final AtomicLong latencyCount = new AtomicLong();
+
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        private volatile long hedgeDelay = -1;
+
+        private volatile long hedgeDelayRefreshTime;
+
+        private final AtomicLong hedgeTokens = new AtomicLong();
+
+        void recordLatency(long latency) {
+            long count = latencyCount.getAndIncrement();
+            latencies[(int) (count % LATENCY_WINDOW)] = latency;
+            long now = System.currentTimeMillis();
+            if (count + 1 >= MIN_LATENCY_SAMPLES && now - hedgeDelayRefreshTime >= HEDGE_DELAY_REFRESH_INTERVAL
+                    && refreshing.compareAndSet(false, true)) {
+                try {
+                    long[] window = Arrays.copyOf(latencies, (int) Math.min(count + 1, LATENCY_WINDOW));
+                    Arrays.sort(window);
+                    double percentile = latencyPercentile.get();
+                    int index = (int) Math.min(window.length - 1, Math.ceil(window.length * percentile / 100) - 1);
+                    hedgeDelay = window[Math.max(0, index)];
+                    hedgeDelayRefreshTime = now;
+                } finally {
+                    refreshing.set(false);
+                }
+            }
+        }
+
+        void depositToken() {
+            long deposit = (long) (TOKEN * maxRatio.get());
+            long max = TOKEN * MAX_HEDGE_BURST;
+            hedgeTokens.accumulateAndGet(deposit, (tokens, added) -> Math.min(max, tokens + added));
+        }
+
+        boolean tryAcquireToken() {
+            while (true) {
+                long tokens = hedgeTokens.get();
+                if (tokens < TOKEN) {
+                    return false;
+                }
+                if (hedgeTokens.compareAndSet(tokens, tokens - TOKEN)) {
+                    return true;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2019 The FATE Authors. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.webank.ai.fate.serving.federatedml;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.webank.ai.fate.serving.core.bean.CacheManager;
+import com.webank.ai.fate.serving.core.bean.Configuration;
+import com.webank.ai.fate.serving.core.bean.Context;
+import com.webank.ai.fate.serving.core.bean.Dict;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * host side state of a multi-round SecureBoost inference, kept in process between the tree rounds.
+ * the external cache is only a fallback for a round that lands on another host instance
+ */
+public class TreeSessionStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(TreeSessionStore.class);
+
+    private static final TreeSessionStore INSTANCE = new TreeSessionStore();
+
+    private final Cache<String, double[]> localSessions;
+    private final boolean externalFallback;
+    private volatile CacheManager fallbackCacheManager;
+
+    private TreeSessionStore() {
+        localSessions = CacheBuilder.newBuilder()
+                .expireAfterWrite(Configuration.getPropertyInt(Dict.PROPERTY_TREE_SESSION_TTL, 60), TimeUnit.SECONDS)
+                .maximumSize(Configuration.getPropertyInt(Dict.PROPERTY_TREE_SESSION_MAX_SIZE, 100000))
+                .build();
+        externalFallback = Boolean.parseBoolean(Configuration.getProperty(Dict.PROPERTY_EXTERNAL_TREE_SESSION_FALLBACK, "true"));
+    }
+
+    public static TreeSessionStore getInstance() {
+        return INSTANCE;
+    }
+
+    public static String sessionKey(String caseId, String componentName) {
+        return caseId + "." + componentName + "." + Dict.INPUT_DATA;
+    }
+
+    /**
+     * replaces the external cache used as fallback, defaults to CacheManager.getInstance()
+     */
+    public void setFallbackCacheManager(CacheManager fallbackCacheManager) {
+        this.fallbackCacheManager = fallbackCacheManager;
+    }
+
+    /**
+     * @param fidValueMapping only evaluated when the external fallback is on, it is what other instances restore from
+     */
+    public void save(Context context, String sessionKey, double[] featureVector, Supplier<Map<String, Object>> fidValueMapping) {
+        localSessions.put(sessionKey, featureVector);
+        if (externalFallback) {
+            getFallbackCacheManager().store(context, sessionKey, fidValueMapping.get());
+        }
+    }
+
+    /**
+     * @param decoder turns the fid value map of the external fallback into a feature vector
+     * @return null if the session is unknown
+     */
+    public double[] restore(Context context, String sessionKey, Function<Map<String, Object>, double[]> decoder) {
+        double[] featureVector = localSessions.getIfPresent(sessionKey);
+        if (featureVector != null || !externalFallback) {
+            return featureVector;
+        }
+        Map<String, Object> fidValueMapping = getFallbackCacheManager().restore(context, sessionKey, Map.class);
+        if (fidValueMapping == null) {
+            return null;
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("tree session {} restored from external cache", sessionKey);
+        }
+        featureVector = decoder.apply(fidValueMapping);
+        localSessions.put(sessionKey, featureVector);
+        return featureVector;
+    }
+
+    private CacheManager getFallbackCacheManager() {
+        CacheManager cacheManager = fallbackCacheManager;
+        if (cacheManager == null) {
+            cacheManager = CacheManager.getInstance();
+            fallbackCacheManager = cacheManager;
+        }
+        return cacheManager;
+    }
+}
@@ -16,31 +16,57 @@
 
 package com.webank.ai.fate.serving.federatedml.model;
 
-import com.alibaba.fastjson.JSON;
 import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
-import com.google.protobuf.ByteString;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.protobuf.InvalidProtocolBufferException;
 import com.webank.ai.fate.api.networking.proxy.DataTransferServiceGrpc;
 import com.webank.ai.fate.api.networking.proxy.Proxy;
 import com.webank.ai.fate.register.common.Constants;
+import com.webank.ai.fate.register.loadbalance.LoadBalanceModel;
+import com.webank.ai.fate.register.loadbalance.RpcStatus;
 import com.webank.ai.fate.register.router.RouterService;
 import com.webank.ai.fate.register.url.URL;
 import com.webank.ai.fate.serving.core.bean.*;
-import com.webank.ai.fate.serving.core.utils.ObjectTransform;
+import com.webank.ai.fate.serving.core.breaker.CircuitBreakerOpenException;
+import com.webank.ai.fate.serving.core.constant.InferenceRetCode;
+import com.webank.ai.fate.serving.core.breaker.CircuitBreakerRegistry;
+import com.webank.ai.fate.serving.core.exceptions.DeadlineExceededException;
+import com.webank.ai.fate.serving.core.manager.FederatedUtils;
+import com.webank.ai.fate.serving.federatedml.FederatedPayloadCodec;
+import com.webank.ai.fate.serving.federatedml.RemoteCallHedging;
+import com.webank.ai.fate.serving.core.utils.DeadlineUtils;
 import com.webank.ai.fate.serving.core.utils.ProtobufUtils;
+import io.grpc.Deadline;
 import io.grpc.ManagedChannel;
+import io.grpc.Status;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 public abstract class BaseModel implements Predictor<List<Map<String, Object>>, FederatedParams, Map<String, Object>> {
 
     private static final Logger logger = LoggerFactory.getLogger(BaseModel.class);
     public static RouterService routerService;
+    private static final ConfigValue<CircuitBreakerRegistry> circuitBreakerRegistry = new ConfigValue<>(CircuitBreakerRegistry::fromSnapshot);
+    private static final ConfigValue<Integer> rpcTimeout = ConfigValue.ofInt("rpc.time.out", 3000);
+    private static final ConfigValue<String> roleName = ConfigValue.ofString(Dict.PROPERTY_SERVICE_ROLE_NAME, Dict.PROPERTY_SERVICE_ROLE_NAME_DEFAULT_VALUE);
+    private static final ConfigValue<String> servingVersion = ConfigValue.ofString(Dict.VERSION, "");
+    private static final ConfigValue<Boolean> useZkRouter = ConfigValue.ofBoolean(Dict.USE_ZK_ROUTER, true);
+    private static final ConfigValue<String> proxyAddress = ConfigValue.ofString(Dict.PROPERTY_PROXY_ADDRESS, null);
     protected String componentName;
 
     public String getComponentName() {
@@ -95,79 +121,184 @@ public abstract class BaseModel implements Predictor<List<Map<String, Object>>,
 
     public abstract Map<String, Object> handlePredict(Context context, List<Map<String, Object>> inputData, FederatedParams predictParams);
 
+    /**
+     * run this component over a whole batch, one context and one set of federated params per row.
+     * rows are issued through handlePredictAsync so that their remote calls overlap,
+     * components that can vectorize the batch should override this
+     */
+    public List<Map<String, Object>> handleBatchPredict(List<Context> contexts, List<List<Map<String, Object>>> batchInputData, List<FederatedParams> batchPredictParams) {
+        Queue<Map.Entry<FederatedParams, ReturnResult>> remoteResults = null;
+        if (cachesRemoteResult()) {
+            // one lookup for the whole batch, each row finds its cached result in its context
+            List<ReturnResult> cachedResults = CacheManager.getInstance().getRemoteModelInferenceResults(batchPredictParams);
+            remoteResults = new ConcurrentLinkedQueue<>();
+            for (int i = 0; i < contexts.size(); i++) {
+                contexts.get(i).putData(Dict.REMOTE_RESULT_CACHE_BATCH, remoteResults);
+                contexts.get(i).putData(Dict.CACHED_REMOTE_RESULT, cachedResults.get(i));
+            }
+        }
+        List<ListenableFuture<Map<String, Object>>> batchFutures = new ArrayList<>(batchInputData.size());
+        for (int i = 0; i < batchInputData.size(); i++) {
+            Context context = contexts.get(i);
+            ListenableFuture<Map<String, Object>> rowFuture;
+            try {
+                rowFuture = handlePredictAsync(context, batchInputData.get(i), batchPredictParams.get(i));
+            } catch (Exception e) {
+                rowFuture = Futures.immediateFailedFuture(e);
+            }
+            // a failed row gets its own retcode instead of failing the batch
+            batchFutures.add(Futures.catching(rowFuture, Exception.class, e -> {
+                logger.error("caseid {} predict failed", context.getCaseId(), e);
+                return failedPredictResult(e);
+            }, MoreExecutors.directExecutor()));
+        }
+        List<Map<String, Object>> results;
+        try {
+            results = Futures.getUnchecked(Futures.allAsList(batchFutures));
+        } finally {
+            if (remoteResults != null) {
+                for (Context context : contexts) {
+                    context.putData(Dict.REMOTE_RESULT_CACHE_BATCH, null);
+                    context.putData(Dict.CACHED_REMOTE_RESULT, null);
+                }
+            }
+        }
+        if (remoteResults != null && !remoteResults.isEmpty()) {
+            List<FederatedParams> cachedParams = new ArrayList<>(remoteResults.size());
+            List<ReturnResult> newResults = new ArrayList<>(remoteResults.size());
+            for (Map.Entry<FederatedParams, ReturnResult> remoteResult : remoteResults) {
+                cachedParams.add(remoteResult.getKey());
+                newResults.add(remoteResult.getValue());
+            }
+            CacheManager.getInstance().putRemoteModelInferenceResults(cachedParams, newResults);
+        }
+        return results;
+    }
 
-    protected ReturnResult getFederatedPredict(Context context, FederatedParams guestFederatedParams, String remoteMethodName, boolean useCache) {
-        ReturnResult remoteResult = null;
+    /**
+     * the result of a row whose prediction failed, carrying the retcode of the failure
+     */
+    protected static Map<String, Object> failedPredictResult(Throwable e) {
+        Map<String, Object> result = new HashMap<>(8);
+        boolean networkError = e instanceof io.grpc.StatusRuntimeException || e instanceof DeadlineExceededException
+                || e instanceof CircuitBreakerOpenException;
+        result.put(Dict.RET_CODE, networkError ? InferenceRetCode.NETWORK_ERROR : InferenceRetCode.SYSTEM_ERROR);
+        return result;
+    }
 
+    /**
+     * components that call getFederatedPredictAsync with useCache return true,
+     * their batches then read and write the remote result cache in one round trip each
+     */
+    protected boolean cachesRemoteResult() {
+        return false;
+    }
+
+
+    /**
+     * asynchronous variant of handlePredict, components that talk to the host party should override it
+     * so that no thread is parked while waiting for the remote result
+     */
+    public ListenableFuture<Map<String, Object>> handlePredictAsync(Context context, List<Map<String, Object>> inputData, FederatedParams predictParams) {
         try {
-            FederatedParty srcParty = guestFederatedParams.getLocal();
-            FederatedRoles federatedRoles = guestFederatedParams.getRole();
-            Map<String, Object> featureIds = (Map<String, Object>) guestFederatedParams.getFeatureIdMap();
-            FederatedParty dstParty = new FederatedParty(Dict.HOST, federatedRoles.getRole(Dict.HOST).get(0));
-            if (useCache) {
-                ReturnResult remoteResultFromCache = CacheManager.getInstance().getRemoteModelInferenceResult(guestFederatedParams);
-                if (remoteResultFromCache != null) {
-                    if(logger.isDebugEnabled()) {
-                        logger.debug("caseid {} get remote party model inference result from cache", context.getCaseId());
-                    }
-                    context.putData(Dict.GET_REMOTE_PARTY_RESULT, false);
-                    context.hitCache(true);
-                    remoteResult = remoteResultFromCache;
-                    return remoteResult;
+            return Futures.immediateFuture(handlePredict(context, inputData, predictParams));
+        } catch (Exception e) {
+            return Futures.immediateFailedFuture(e);
+        }
+    }
+
+    protected ReturnResult getFederatedPredict(Context context, FederatedParams guestFederatedParams, String remoteMethodName, boolean useCache) {
+        return Futures.getUnchecked(getFederatedPredictAsync(context, guestFederatedParams, remoteMethodName, useCache));
+    }
+
+    protected ListenableFuture<ReturnResult> getFederatedPredictAsync(Context context, FederatedParams guestFederatedParams, String remoteMethodName, boolean useCache) {
+        context.setFederatedResult(null);
+        FederatedParty srcParty = guestFederatedParams.getLocal();
+        FederatedRoles federatedRoles = guestFederatedParams.getRole();
+        FederatedParty dstParty = new FederatedParty(Dict.HOST, federatedRoles.getRole(Dict.HOST).get(0));
+        if (useCache) {
+            ReturnResult remoteResultFromCache = context.getData(Dict.REMOTE_RESULT_CACHE_BATCH) != null
+                    ? (ReturnResult) context.getData(Dict.CACHED_REMOTE_RESULT)
+                    : CacheManager.getInstance().getRemoteModelInferenceResult(guestFederatedParams);
+            if (remoteResultFromCache != null) {
+                if(logger.isDebugEnabled()) {
+                    logger.debug("caseid {} get remote party model inference result from cache", context.getCaseId());
                 }
+                context.putData(Dict.GET_REMOTE_PARTY_RESULT, false);
+                context.hitCache(true);
+                context.setFederatedResult(remoteResultFromCache);
+                return Futures.immediateFuture(remoteResultFromCache);
             }
-            HostFederatedParams hostFederatedParams = new HostFederatedParams();
-            hostFederatedParams.setCaseId(guestFederatedParams.getCaseId());
-            hostFederatedParams.setSeqNo(guestFederatedParams.getSeqNo());
-            hostFederatedParams.getFeatureIdMap().putAll(guestFederatedParams.getFeatureIdMap());
-            hostFederatedParams.setLocal(dstParty);
-            hostFederatedParams.setPartnerLocal(srcParty);
-            hostFederatedParams.setRole(federatedRoles);
-            hostFederatedParams.setPartnerModelInfo(guestFederatedParams.getModelInfo());
-            hostFederatedParams.setData(guestFederatedParams.getData());
-            context.putData(Dict.GET_REMOTE_PARTY_RESULT, true);
-            remoteResult = getFederatedPredictFromRemote(context, srcParty, dstParty, hostFederatedParams, remoteMethodName);
-            if (useCache&& remoteResult!=null&&remoteResult.getRetcode()==0) {
-                CacheManager.getInstance().putRemoteModelInferenceResult(guestFederatedParams, remoteResult);
+        }
+        HostFederatedParams hostFederatedParams = new HostFederatedParams();
+        hostFederatedParams.setCaseId(guestFederatedParams.getCaseId());
+        hostFederatedParams.setSeqNo(guestFederatedParams.getSeqNo());
+        hostFederatedParams.getFeatureIdMap().putAll(guestFederatedParams.getFeatureIdMap());
+        hostFederatedParams.setLocal(dstParty);
+        hostFederatedParams.setPartnerLocal(srcParty);
+        hostFederatedParams.setRole(federatedRoles);
+        hostFederatedParams.setPartnerModelInfo(guestFederatedParams.getModelInfo());
+        hostFederatedParams.setData(guestFederatedParams.getData());
+        context.putData(Dict.GET_REMOTE_PARTY_RESULT, true);
+        ListenableFuture<ReturnResult> remoteFuture = getFederatedPredictFromRemote(context, srcParty, dstParty, hostFederatedParams, remoteMethodName);
+        return Futures.transform(remoteFuture, remoteResult -> {
+            if (useCache && remoteResult != null && remoteResult.getRetcode() == 0) {
+                Queue<Map.Entry<FederatedParams, ReturnResult>> batchRemoteResults = (Queue<Map.Entry<FederatedParams, ReturnResult>>) context.getData(Dict.REMOTE_RESULT_CACHE_BATCH);
+                if (batchRemoteResults != null) {
+                    // stored by handleBatchPredict together with the rest of the batch
+                    batchRemoteResults.add(new AbstractMap.SimpleImmutableEntry<>(guestFederatedParams, remoteResult));
+                } else {
+                    CacheManager.getInstance().putRemoteModelInferenceResult(guestFederatedParams, remoteResult);
+                }
                 if(logger.isDebugEnabled()) {
                     logger.info("caseid {} get remote party model inference result from federated request.", context.getCaseId());
                 }
             }
-            return remoteResult;
-        } finally {
             context.setFederatedResult(remoteResult);
-        }
+            return remoteResult;
+        }, MoreExecutors.directExecutor());
     }
 
-    protected ReturnResult getFederatedPredictFromRemote(Context context, FederatedParty srcParty, FederatedParty dstParty, HostFederatedParams hostFederatedParams, String remoteMethodName) {
+    protected ListenableFuture<ReturnResult> getFederatedPredictFromRemote(Context context, FederatedParty srcParty, FederatedParty dstParty, HostFederatedParams hostFederatedParams, String remoteMethodName) {
 
 
         long beginTime = System.currentTimeMillis();
-        ReturnResult remoteResult = null;
+        ListenableFuture<ReturnResult> resultFuture;
         try {
+            // later tree rounds run on callback threads, so the deadline comes from the context, not the grpc one
+            if (DeadlineUtils.isExpired(context.getDeadline())) {
+                throw new DeadlineExceededException();
+            }
+            long timeout = DeadlineUtils.timeout(context.getDeadline(), rpcTimeout.get());
 
             Proxy.Packet.Builder packetBuilder = Proxy.Packet.newBuilder();
-            packetBuilder.setBody(Proxy.Data.newBuilder()
-                    .setValue(ByteString.copyFrom(JSON.toJSONBytes(hostFederatedParams)))
-                    .build());
+            packetBuilder.setBody(FederatedPayloadCodec.encodeRequest(dstParty.getPartyId(), hostFederatedParams));
 
             Proxy.Metadata.Builder metaDataBuilder = Proxy.Metadata.newBuilder();
             Proxy.Topic.Builder topicBuilder = Proxy.Topic.newBuilder();
 
             metaDataBuilder.setSrc(
                     topicBuilder.setPartyId(String.valueOf(srcParty.getPartyId())).
-                            setRole(Configuration.getProperty(Dict.PROPERTY_SERVICE_ROLE_NAME, Dict.PROPERTY_SERVICE_ROLE_NAME_DEFAULT_VALUE))
+                            setRole(roleName.get())
                             .setName(Dict.PARTNER_PARTY_NAME)
                             .build());
             metaDataBuilder.setDst(
                     topicBuilder.setPartyId(String.valueOf(dstParty.getPartyId()))
-                            .setRole(Configuration.getProperty(Dict.PROPERTY_SERVICE_ROLE_NAME, Dict.PROPERTY_SERVICE_ROLE_NAME_DEFAULT_VALUE))
+                            .setRole(roleName.get())
                             .setName(Dict.PARTY_NAME)
                             .build());
             metaDataBuilder.setCommand(Proxy.Command.newBuilder().setName(remoteMethodName).build());
-            metaDataBuilder.setConf(Proxy.Conf.newBuilder().setOverallTimeout(60 * 1000));
-            String version =  Configuration.getProperty(Dict.VERSION,"");
-            metaDataBuilder.setOperator(Configuration.getProperty(Dict.VERSION,""));
+            // the host learns how long the guest still waits
+            metaDataBuilder.setConf(Proxy.Conf.newBuilder().setOverallTimeout(timeout));
+            String version = servingVersion.get();
+            metaDataBuilder.setOperator(version);
+            ModelInfo partnerModelInfo = hostFederatedParams.getPartnerModelInfo();
+            if (partnerModelInfo != null) {
+                metaDataBuilder.setModelRouteKey(FederatedUtils.modelRouteKey(partnerModelInfo.getName(), partnerModelInfo.getNamespace()));
+            }
+            if (context.getCaseId() != null) {
+                metaDataBuilder.setRouteHash(FederatedUtils.routeHash(context.getCaseId()));
+            }
             packetBuilder.setHeader(metaDataBuilder.build());
 			Proxy.AuthInfo.Builder authBuilder = Proxy.AuthInfo.newBuilder();
 			if(context.getCaseId()!=null) {
@@ -184,16 +315,15 @@ public abstract class BaseModel implements Predictor<List<Map<String, Object>>,
             }
             packetBuilder.setAuth(authBuilder.build());
 			
-            GrpcConnectionPool grpcConnectionPool = GrpcConnectionPool.getPool();
-            String routerByZkString = Configuration.getProperty(Dict.USE_ZK_ROUTER, "true");
-            boolean routerByzk = Boolean.valueOf(routerByZkString);
+            boolean routerByzk = useZkRouter.get();
             String address = null;
+            URL newUrl = null;
             if (!routerByzk) {
-                address = Configuration.getProperty(Dict.PROPERTY_PROXY_ADDRESS);
+                address = proxyAddress.get();
             } else {
 
                 URL paramUrl = URL.valueOf(Dict.PROPERTY_PROXY_ADDRESS + "/" + Dict.ONLINE_ENVIROMMENT + "/" + Dict.UNARYCALL);
-                URL newUrl =paramUrl.addParameter(Constants.VERSION_KEY,version);
+                newUrl =paramUrl.addParameter(Constants.VERSION_KEY,version);
                 List<URL> urls = routerService.router(newUrl);
                 if (urls!=null&&urls.size() > 0) {
                     URL url = urls.get(0);
@@ -203,29 +333,105 @@ public abstract class BaseModel implements Predictor<List<Map<String, Object>>,
                 }
             }
             Preconditions.checkArgument(StringUtils.isNotEmpty(address));
-            ManagedChannel channel1 = grpcConnectionPool.getManagedChannel(address);
-            ListenableFuture<Proxy.Packet> future= null;
-
-                //DataTransferServiceGrpc.DataTransferServiceBlockingStub stub1 = DataTransferServiceGrpc.newBlockingStub(channel1);
-            DataTransferServiceGrpc.DataTransferServiceFutureStub stub1 = DataTransferServiceGrpc.newFutureStub(channel1);
-            future =stub1.unaryCall(packetBuilder.build());
 
-            if(future!=null){
-                Proxy.Packet packet = future.get(Configuration.getPropertyInt("rpc.time.out",3000), TimeUnit.MILLISECONDS);
-                remoteResult = (ReturnResult) ObjectTransform.json2Bean(packet.getBody().getValue().toStringUtf8(), ReturnResult.class);
+            Proxy.Packet requestPacket = packetBuilder.build();
+            // a hedged duplicate keeps the deadline of the first call
+            Deadline deadline = Deadline.after(timeout, TimeUnit.MILLISECONDS);
+            boolean shortTimeout = timeout < rpcTimeout.get();
+            String primaryAddress = address;
+            URL routerUrl = newUrl;
+            String dstPartyId = String.valueOf(dstParty.getPartyId());
+            Function<Proxy.Packet, ListenableFuture<ReturnResult>> send = sendPacket -> Futures.transform(
+                    RemoteCallHedging.call(dstPartyId, remoteMethodName, primaryAddress,
+                            () -> routerByzk ? pickHedgeAddress(routerUrl, primaryAddress) : null,
+                            target -> unaryCall(dstPartyId, target, sendPacket, deadline, shortTimeout, routerByzk)),
+                    packet -> {
+                        try {
+                            return FederatedPayloadCodec.decodeResponse(dstParty.getPartyId(), packet.getBody());
+                        } catch (InvalidProtocolBufferException e) {
+                            throw new IllegalStateException(e);
+                        }
+                    },
+                    MoreExecutors.directExecutor());
+
+            resultFuture = send.apply(requestPacket);
+            if (FederatedPayloadCodec.isProtobuf(requestPacket.getBody())) {
+                // an older host instance behind the party may only read json
+                resultFuture = Futures.catchingAsync(resultFuture, Exception.class, e -> {
+                    if (!isUndecodableRequest(e) || DeadlineUtils.isExpired(context.getDeadline())) {
+                        throw e;
+                    }
+                    FederatedPayloadCodec.onProtobufFailure(dstParty.getPartyId());
+                    logger.warn("caseid {} protobuf call to party {} failed, retry as json: {}", context.getCaseId(), dstPartyId, e.getMessage());
+                    return send.apply(requestPacket.toBuilder().setBody(FederatedPayloadCodec.encodeJsonRequest(hostFederatedParams)).build());
+                }, MoreExecutors.directExecutor());
             }
-            return remoteResult;
         } catch (Exception e) {
-            logger.error("getFederatedPredictFromRemote error", e.getMessage());
-            throw new RuntimeException(e);
-        } finally {
-            long end = System.currentTimeMillis();
-            long cost = end - beginTime;
-            logger.info("caseid {} getFederatedPredictFromRemote cost {} remote retcode {}", context.getCaseId(), cost, remoteResult != null ? remoteResult.getRetcode() : Dict.NONE);
+            resultFuture = Futures.immediateFailedFuture(e);
         }
+        Futures.addCallback(resultFuture, new FutureCallback<ReturnResult>() {
+            @Override
+            public void onSuccess(ReturnResult remoteResult) {
+                logger.info("caseid {} getFederatedPredictFromRemote cost {} remote retcode {}", context.getCaseId(), System.currentTimeMillis() - beginTime, remoteResult != null ? remoteResult.getRetcode() : Dict.NONE);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                logger.error("caseid {} getFederatedPredictFromRemote cost {} error {}", context.getCaseId(), System.currentTimeMillis() - beginTime, t.getMessage());
+            }
+        }, MoreExecutors.directExecutor());
+        return resultFuture;
+
+    }
+
+
+    /**
+     * the host could not read the request body: INVALID_ARGUMENT from a host that decodes protobuf,
+     * INTERNAL from an older host whose json parse threw
+     */
+    private static boolean isUndecodableRequest(Throwable e) {
+        Status.Code code = Status.fromThrowable(e).getCode();
+        return code == Status.Code.INVALID_ARGUMENT || code == Status.Code.INTERNAL;
+    }
 
+    private ListenableFuture<Proxy.Packet> unaryCall(String partyId, String address, Proxy.Packet packet, Deadline deadline, boolean shortTimeout, boolean routerByzk) {
+        return circuitBreakerRegistry.get().call(partyId, address, shortTimeout, () -> unaryCall(address, packet, deadline, routerByzk));
+    }
+
+    private ListenableFuture<Proxy.Packet> unaryCall(String address, Proxy.Packet packet, Deadline deadline, boolean routerByzk) {
+        ManagedChannel channel;
+        try {
+            channel = GrpcConnectionPool.getPool().getManagedChannel(address);
+        } catch (Exception e) {
+            return Futures.immediateFailedFuture(e);
+        }
+        ListenableFuture<Proxy.Packet> future = DataTransferServiceGrpc.newFutureStub(channel).withDeadline(deadline).unaryCall(packet);
+        if (routerByzk) {
+            // feeds the load balancers that weigh proxies by in-flight calls and latency
+            long callBeginTime = System.currentTimeMillis();
+            RpcStatus.beginCount(address);
+            future.addListener(() -> RpcStatus.endCount(address, System.currentTimeMillis() - callBeginTime), MoreExecutors.directExecutor());
+        }
+        return future;
     }
 
+    /**
+     * any proxy but the one the first call went to
+     */
+    private String pickHedgeAddress(URL url, String primaryAddress) {
+        List<URL> urls = routerService.router(url, LoadBalanceModel.all);
+        if (urls == null) {
+            return null;
+        }
+        List<String> candidates = new ArrayList<>(urls.size());
+        for (URL candidate : urls) {
+            String candidateAddress = candidate.getHost() + ":" + candidate.getPort();
+            if (!candidateAddress.equals(primaryAddress)) {
+                candidates.add(candidateAddress);
+            }
+        }
+        return candidates.isEmpty() ? null : candidates.get(ThreadLocalRandom.current().nextInt(candidates.size()));
+    }
 
     /*public  static  void main(String[] args){
 
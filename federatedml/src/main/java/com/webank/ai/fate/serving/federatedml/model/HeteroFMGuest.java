@@ -17,12 +17,15 @@
 package com.webank.ai.fate.serving.federatedml.model;
 
 
-import com.alibaba.fastjson.JSON;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.webank.ai.fate.serving.core.bean.Context;
 import com.webank.ai.fate.serving.core.bean.Dict;
 import com.webank.ai.fate.serving.core.bean.FederatedParams;
 import com.webank.ai.fate.serving.core.bean.ReturnResult;
 import com.webank.ai.fate.serving.core.constant.InferenceRetCode;
+import com.webank.ai.fate.serving.core.utils.JsonCodec;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -41,42 +44,61 @@ public class HeteroFMGuest extends HeteroFM {
 
     @Override
     public Map<String, Object> handlePredict(Context context, List<Map<String, Object>> inputData, FederatedParams predictParams) {
-        Map<String, Object> result = new HashMap<>();
+        return Futures.getUnchecked(handlePredictAsync(context, inputData, predictParams));
+    }
+
+    @Override
+    protected boolean cachesRemoteResult() {
+        return true;
+    }
+
+    @Override
+    public ListenableFuture<Map<String, Object>> handlePredictAsync(Context context, List<Map<String, Object>> inputData, FederatedParams predictParams) {
         Map<String, Object> forwardRet = forward(inputData);
-        double score = new Double(forwardRet.get(Dict.SCORE).toString());
+        double guestScore = new Double(forwardRet.get(Dict.SCORE).toString());
         double[] guestCrosses = (double[]) forwardRet.get(Dict.FM_CROSS);
         if(logger.isDebugEnabled()) {
-            logger.debug("caseid {} guest score:{}, cross data:{}", context.getCaseId(), score, guestCrosses);
+            logger.debug("caseid {} guest score:{}, cross data:{}", context.getCaseId(), guestScore, guestCrosses);
         }
-        try {
-            ReturnResult hostPredictResponse = this.getFederatedPredict(context, predictParams, Dict.FEDERATED_INFERENCE, true);
-            if(hostPredictResponse !=null) {
-                result.put(Dict.RET_CODE,hostPredictResponse.getRetcode());
-                if(logger.isDebugEnabled()) {
-                    logger.debug("caseid {} host response is {}",context.getCaseId(),hostPredictResponse.getData());
+
+        ListenableFuture<Map<String, Object>> mergedFuture = Futures.transform(
+                this.getFederatedPredictAsync(context, predictParams, Dict.FEDERATED_INFERENCE, true),
+                hostPredictResponse -> mergeHostResult(context, guestScore, guestCrosses, forwardRet, hostPredictResponse),
+                MoreExecutors.directExecutor());
+        return Futures.catching(mergedFuture, Exception.class, ex -> {
+            logger.error("merge host predict failed:", ex);
+            Map<String, Object> result = new HashMap<>();
+            result.put(Dict.RET_CODE, ex instanceof io.grpc.StatusRuntimeException ? InferenceRetCode.NETWORK_ERROR : InferenceRetCode.SYSTEM_ERROR);
+            result.put(Dict.PROB, sigmod(guestScore));
+            result.put(Dict.GUEST_MODEL_WEIGHT_HIT_RATE + ":{}", forwardRet.get(Dict.MODEL_WRIGHT_HIT_RATE));
+            result.put(Dict.GUEST_INPUT_DATA_HIT_RATE + ":{}", forwardRet.get(Dict.INPUT_DATA_HIT_RATE));
+            return result;
+        }, MoreExecutors.directExecutor());
+    }
+
+    private Map<String, Object> mergeHostResult(Context context, double guestScore, double[] guestCrosses, Map<String, Object> forwardRet, ReturnResult hostPredictResponse) {
+        Map<String, Object> result = new HashMap<>();
+        double score = guestScore;
+        if(hostPredictResponse !=null) {
+            result.put(Dict.RET_CODE,hostPredictResponse.getRetcode());
+            if(logger.isDebugEnabled()) {
+                logger.debug("caseid {} host response is {}",context.getCaseId(),hostPredictResponse.getData());
+            }
+            if (hostPredictResponse.getData() != null && hostPredictResponse.getData().get(Dict.SCORE) != null) {
+                double hostScore = ((Number) hostPredictResponse.getData().get(Dict.SCORE)).doubleValue();
+                Object crossValue = hostPredictResponse.getData().get(Dict.FM_CROSS);
+                double[] hostCrosses = crossValue instanceof String ? JsonCodec.fromJson((String) crossValue, double[].class) : JsonCodec.convertValue(crossValue, double[].class);
+                logger.info("caseid {} host score:{}, cross data: {}",context.getCaseId(), hostScore, crossValue);
+                score += hostScore;
+                if (hostCrosses == null || hostCrosses.length != guestCrosses.length) {
+                    throw new RuntimeException("the length of the cross part is not match");
                 }
-                if (hostPredictResponse.getData() != null && hostPredictResponse.getData().get(Dict.SCORE) != null) {
-                    double hostScore = ((Number) hostPredictResponse.getData().get(Dict.SCORE)).doubleValue();
-                    List<Double> hostCrosses = JSON.parseArray(hostPredictResponse.getData().get(Dict.FM_CROSS).toString(),double.class);
-                    logger.info("caseid {} host score:{}, cross data: {}",context.getCaseId(), hostScore, hostCrosses);
-                    score += hostScore;
-                    if (hostCrosses == null || hostCrosses.size() != guestCrosses.length) {
-                        throw new RuntimeException("the length of the cross part is not match");
-                    }
-                    for (int i = 0; i < guestCrosses.length; i++) {
-                        score += hostCrosses.get(i) * guestCrosses[i];
-                    }
+                for (int i = 0; i < guestCrosses.length; i++) {
+                    score += hostCrosses[i] * guestCrosses[i];
                 }
-            }else{
-                logger.info("caseid {} host response is null",context.getCaseId());
             }
-        } catch (io.grpc.StatusRuntimeException ex) {
-            logger.error("merge host predict failed:", ex);
-            result.put(Dict.RET_CODE, InferenceRetCode.NETWORK_ERROR);
-        }
-        catch(Exception ex){
-            logger.error("merge host predict failed:", ex);
-            result.put(Dict.RET_CODE, InferenceRetCode.SYSTEM_ERROR);
+        }else{
+            logger.info("caseid {} host response is null",context.getCaseId());
         }
         double prob = sigmod(score);
         result.put(Dict.PROB, prob);
@@ -17,6 +17,9 @@
 package com.webank.ai.fate.serving.federatedml.model;
 
 
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.webank.ai.fate.serving.core.bean.Context;
 import com.webank.ai.fate.serving.core.bean.Dict;
 import com.webank.ai.fate.serving.core.bean.FederatedParams;
@@ -40,39 +43,52 @@ public class HeteroLRGuest extends HeteroLR {
 
     @Override
     public Map<String, Object> handlePredict(Context context, List<Map<String, Object>> inputData, FederatedParams predictParams) {
-        Map<String, Object> result = new HashMap<>(8);
+        return Futures.getUnchecked(handlePredictAsync(context, inputData, predictParams));
+    }
+
+    @Override
+    protected boolean cachesRemoteResult() {
+        return true;
+    }
+
+    @Override
+    public ListenableFuture<Map<String, Object>> handlePredictAsync(Context context, List<Map<String, Object>> inputData, FederatedParams predictParams) {
         Map<String, Double> forwardRet = forward(inputData);
-        double score = forwardRet.get(Dict.SCORE);
+        double guestScore = forwardRet.get(Dict.SCORE);
 
-        logger.info("caseid {} guest score:{}", context.getCaseId(), score);
+        logger.info("caseid {} guest score:{}", context.getCaseId(), guestScore);
 
-        try {
-            ReturnResult hostPredictResponse = this.getFederatedPredict(context, predictParams, Dict.FEDERATED_INFERENCE, true);
-            if(hostPredictResponse !=null) {
-                result.put(Dict.RET_CODE,hostPredictResponse.getRetcode());
-                if(logger.isDebugEnabled()) {
-                    logger.debug("caseid {} host response is {}", context.getCaseId(), hostPredictResponse.getData());
-                }
-                if (hostPredictResponse.getData() != null && hostPredictResponse.getData().get(Dict.SCORE) != null) {
-                    double hostScore = ((Number) hostPredictResponse.getData().get(Dict.SCORE)).doubleValue();
-                    logger.info("caseid {} host score:{}", context.getCaseId(), hostScore);
-                    score += hostScore;
-                }
-            }else{
-                logger.info("caseid {} host response is null",context.getCaseId());
-            }
-        } catch (io.grpc.StatusRuntimeException ex) {
+        ListenableFuture<Map<String, Object>> mergedFuture = Futures.transform(
+                this.getFederatedPredictAsync(context, predictParams, Dict.FEDERATED_INFERENCE, true),
+                hostPredictResponse -> mergeHostResult(context, guestScore, hostPredictResponse),
+                MoreExecutors.directExecutor());
+        return Futures.catching(mergedFuture, Exception.class, ex -> {
             logger.error("get host predict failed:", ex);
-            result.put(Dict.RET_CODE, InferenceRetCode.NETWORK_ERROR);
-        }
-        catch(Exception ex){
-            logger.error("get host predict failed:", ex);
-            result.put(Dict.RET_CODE,InferenceRetCode.SYSTEM_ERROR);
+            Map<String, Object> result = new HashMap<>(8);
+            result.put(Dict.RET_CODE, ex instanceof io.grpc.StatusRuntimeException ? InferenceRetCode.NETWORK_ERROR : InferenceRetCode.SYSTEM_ERROR);
+            result.put(Dict.PROB, sigmod(guestScore));
+            return result;
+        }, MoreExecutors.directExecutor());
+    }
+
+    private Map<String, Object> mergeHostResult(Context context, double guestScore, ReturnResult hostPredictResponse) {
+        Map<String, Object> result = new HashMap<>(8);
+        double score = guestScore;
+        if(hostPredictResponse !=null) {
+            result.put(Dict.RET_CODE,hostPredictResponse.getRetcode());
+            if(logger.isDebugEnabled()) {
+                logger.debug("caseid {} host response is {}", context.getCaseId(), hostPredictResponse.getData());
+            }
+            if (hostPredictResponse.getData() != null && hostPredictResponse.getData().get(Dict.SCORE) != null) {
+                double hostScore = ((Number) hostPredictResponse.getData().get(Dict.SCORE)).doubleValue();
+                logger.info("caseid {} host score:{}", context.getCaseId(), hostScore);
+                score += hostScore;
+            }
+        }else{
+            logger.info("caseid {} host response is null",context.getCaseId());
         }
         double prob = sigmod(score);
         result.put(Dict.PROB, prob);
-        //result.put(Dict.GUEST_MODEL_WEIGHT_HIT_RATE + ":{}", forwardRet.get(Dict.MODEL_WRIGHT_HIT_RATE));
-        //result.put(Dict.GUEST_INPUT_DATA_HIT_RATE + ":{}", forwardRet.get(Dict.INPUT_DATA_HIT_RATE));
         return result;
     }
 }
@@ -20,17 +20,28 @@ import com.google.common.collect.Maps;
 import com.webank.ai.fate.core.mlmodel.buffer.BoostTreeModelMetaProto.BoostingTreeModelMeta;
 import com.webank.ai.fate.core.mlmodel.buffer.BoostTreeModelParamProto.BoostingTreeModelParam;
 import com.webank.ai.fate.core.mlmodel.buffer.BoostTreeModelParamProto.DecisionTreeModelParam;
+import com.webank.ai.fate.core.mlmodel.buffer.BoostTreeModelParamProto.NodeParam;
 import com.webank.ai.fate.serving.core.bean.Context;
 import com.webank.ai.fate.serving.core.bean.FederatedParams;
 import com.webank.ai.fate.serving.core.bean.StatusCode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
 public abstract class HeteroSecureBoost extends BaseModel {
     public static final Logger logger = LoggerFactory.getLogger(HeteroSecureBoost.class);
+    protected static final byte SITE_UNKNOWN = 0;
+    protected static final byte SITE_GUEST = 1;
+    protected static final byte SITE_HOST = 2;
+    /**
+     * a missing feature is a NaN with its own payload, so that a NaN given as the value stays apart from it:
+     * missing features follow the node's missing direction, a NaN value fails the comparison and goes right
+     */
+    private static final long MISSING_BITS = 0x7ff8000000000badL;
+    private static final double MISSING = Double.longBitsToDouble(MISSING_BITS);
     protected List<Map<Integer, Double>> splitMaskdict;
     protected Map<String, Integer> featureNameFidMapping = Maps.newHashMap();
     protected int treeNum;
@@ -40,6 +51,18 @@ public abstract class HeteroSecureBoost extends BaseModel {
     protected List<String> classes;
     protected int treeDim;
     protected double learningRate;
+    /**
+     * trees compiled into flat arrays, indexed by [treeId][treeNodeId]
+     */
+    protected int[][] fid;
+    protected double[][] bid;
+    protected int[][] left;
+    protected int[][] right;
+    protected boolean[][] isLeaf;
+    protected byte[][] site;
+    protected boolean[][] missingGoRight;
+    protected double[][] weight;
+    protected int featureVectorSize;
 
     @Override
     public int initModel(byte[] protoMeta, byte[] protoParam) {
@@ -66,6 +89,7 @@ public abstract class HeteroSecureBoost extends BaseModel {
             this.classes = param.getClassesList();
             this.treeDim = param.getTreeDim();
             this.learningRate = meta.getLearningRate();
+            this.compileTrees();
 
         } catch (Exception ex) {
             ex.printStackTrace();
@@ -75,8 +99,111 @@ public abstract class HeteroSecureBoost extends BaseModel {
         return StatusCode.OK;
     }
 
-    protected String getSite(int treeId, int treeNodeId) {
-        return this.trees.get(treeId).getTree(treeNodeId).getSitename().split(":", -1)[0];
+    private void compileTrees() {
+        int treeCount = this.trees.size();
+        this.fid = new int[treeCount][];
+        this.bid = new double[treeCount][];
+        this.left = new int[treeCount][];
+        this.right = new int[treeCount][];
+        this.isLeaf = new boolean[treeCount][];
+        this.site = new byte[treeCount][];
+        this.missingGoRight = new boolean[treeCount][];
+        this.weight = new double[treeCount][];
+
+        int maxFid = -1;
+        for (Integer featureId : this.featureNameFidMapping.values()) {
+            maxFid = Math.max(maxFid, featureId);
+        }
+
+        for (int i = 0; i < treeCount; ++i) {
+            DecisionTreeModelParam tree = this.trees.get(i);
+            Map<Integer, Double> splitMaskdict = tree.getSplitMaskdictMap();
+            Map<Integer, Integer> missingDirMaskdict = tree.getMissingDirMaskdictMap();
+            int nodeCount = tree.getTreeCount();
+            fid[i] = new int[nodeCount];
+            bid[i] = new double[nodeCount];
+            left[i] = new int[nodeCount];
+            right[i] = new int[nodeCount];
+            isLeaf[i] = new boolean[nodeCount];
+            site[i] = new byte[nodeCount];
+            missingGoRight[i] = new boolean[nodeCount];
+            weight[i] = new double[nodeCount];
+            for (int j = 0; j < nodeCount; ++j) {
+                NodeParam node = tree.getTree(j);
+                fid[i][j] = node.getFid();
+                bid[i][j] = splitMaskdict.getOrDefault(j, 0.0);
+                left[i][j] = node.getLeftNodeid();
+                right[i][j] = node.getRightNodeid();
+                isLeaf[i][j] = node.getIsLeaf();
+                site[i][j] = parseSite(node.getSitename());
+                Integer missingDir = missingDirMaskdict.get(j);
+                missingGoRight[i][j] = missingDir == null || missingDir == 1;
+                weight[i][j] = node.getWeight();
+                maxFid = Math.max(maxFid, node.getFid());
+            }
+        }
+        this.featureVectorSize = maxFid + 1;
+    }
+
+    private static byte parseSite(String sitename) {
+        String siteName = sitename.split(":", -1)[0];
+        if ("guest".equals(siteName)) {
+            return SITE_GUEST;
+        } else if ("host".equals(siteName)) {
+            return SITE_HOST;
+        }
+        return SITE_UNKNOWN;
+    }
+
+    /**
+     * build a dense feature vector indexed by fid, features that are absent, null or not a number are MISSING
+     */
+    protected double[] toFeatureVector(Map<String, Object> input) {
+        double[] featureVector = newFeatureVector();
+        for (Map.Entry<String, Object> entry : input.entrySet()) {
+            Integer featureId = this.featureNameFidMapping.get(entry.getKey());
+            if (featureId != null) {
+                featureVector[featureId] = toDouble(entry.getValue());
+            }
+        }
+        return featureVector;
+    }
+
+    /**
+     * same as toFeatureVector, but the input is already keyed by fid
+     */
+    protected double[] toFeatureVectorByFid(Map<String, Object> fidValueMapping) {
+        double[] featureVector = newFeatureVector();
+        if (fidValueMapping == null) {
+            return featureVector;
+        }
+        for (Map.Entry<String, Object> entry : fidValueMapping.entrySet()) {
+            int featureId = Integer.parseInt(entry.getKey());
+            if (featureId >= 0 && featureId < featureVector.length) {
+                featureVector[featureId] = toDouble(entry.getValue());
+            }
+        }
+        return featureVector;
+    }
+
+    private double[] newFeatureVector() {
+        double[] featureVector = new double[this.featureVectorSize];
+        Arrays.fill(featureVector, MISSING);
+        return featureVector;
+    }
+
+    private static double toDouble(Object value) {
+        if (value == null) {
+            return MISSING;
+        }
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        try {
+            return Double.parseDouble(value.toString());
+        } catch (NumberFormatException e) {
+            return MISSING;
+        }
     }
 
     protected String generateTag(String caseId, String modelId, int communicationRound) {
@@ -88,32 +215,15 @@ public abstract class HeteroSecureBoost extends BaseModel {
         return tag.split("_");
     }
 
-    protected int gotoNextLevel(int treeId, int treeNodeId, Map<String, Object> input) {
-        int nextTreeNodeId;
-        int fid = this.trees.get(treeId).getTree(treeNodeId).getFid();
-        double splitValue = this.trees.get(treeId).getSplitMaskdict().get(treeNodeId);
-        String fidStr = String.valueOf(fid);
-        if (input.containsKey(fidStr)) {
-            if (Double.parseDouble(input.get(fidStr).toString()) <= splitValue + 1e-20) {
-                nextTreeNodeId = this.trees.get(treeId).getTree(treeNodeId).getLeftNodeid();
-            } else {
-                nextTreeNodeId = this.trees.get(treeId).getTree(treeNodeId).getRightNodeid();
-            }
-        } else {
-            if (this.trees.get(treeId).getMissingDirMaskdict().containsKey(treeNodeId)) {
-                int missingDir = this.trees.get(treeId).getMissingDirMaskdict().get(treeNodeId);
-                if (missingDir == 1) {
-                    nextTreeNodeId = this.trees.get(treeId).getTree(treeNodeId).getRightNodeid();
-                } else {
-                    nextTreeNodeId = this.trees.get(treeId).getTree(treeNodeId).getLeftNodeid();
-                }
-            } else {
-                nextTreeNodeId = this.trees.get(treeId).getTree(treeNodeId).getRightNodeid();
-            }
+    protected int gotoNextLevel(int treeId, int treeNodeId, double[] featureVector) {
+        double value = featureVector[this.fid[treeId][treeNodeId]];
+        if (Double.doubleToRawLongBits(value) == MISSING_BITS) {
+            return this.missingGoRight[treeId][treeNodeId] ? this.right[treeId][treeNodeId] : this.left[treeId][treeNodeId];
         }
-
-        return nextTreeNodeId;
-
+        if (value <= this.bid[treeId][treeNodeId] + 1e-20) {
+            return this.left[treeId][treeNodeId];
+        }
+        return this.right[treeId][treeNodeId];
     }
 
     @Override
@@ -17,19 +17,37 @@
 package com.webank.ai.fate.serving.federatedml.model;
 
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.webank.ai.fate.serving.core.bean.ConfigValue;
 import com.webank.ai.fate.serving.core.bean.Context;
 import com.webank.ai.fate.serving.core.bean.Dict;
 import com.webank.ai.fate.serving.core.bean.FederatedParams;
 import com.webank.ai.fate.serving.core.bean.ReturnResult;
+import com.webank.ai.fate.serving.core.bean.StatusCode;
 
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public class HeteroSecureBoostingTreeGuest extends HeteroSecureBoost {
 
-    private final String site = "guest";
+    private static final ConfigValue<Boolean> treeSingleRound = ConfigValue.ofBoolean(Dict.PROPERTY_TREE_SINGLE_ROUND, false);
+
+    private static final long BRANCH_MASK_RETRY_INTERVAL = 5 * 60 * 1000;
+
+    /**
+     * host parties that refused the bitmask command, with the time they refused
+     */
+    private static final ConcurrentMap<String, Long> branchMaskRefusedParties = new ConcurrentHashMap<>();
+
+    private final byte localSite = SITE_GUEST;
 
     private double sigmoid(double x) {
         return 1. / (1. + Math.exp(-x));
@@ -82,7 +100,7 @@ public class HeteroSecureBoostingTreeGuest extends HeteroSecureBoost {
     */
 
     private boolean isLocateInLeaf(int treeId, int treeNodeId) {
-        return this.trees.get(treeId).getTree(treeNodeId).getIsLeaf();
+        return this.isLeaf[treeId][treeNodeId];
     }
 
     private boolean checkLeafAll(int[] treeNodeIds) {
@@ -95,17 +113,49 @@ public class HeteroSecureBoostingTreeGuest extends HeteroSecureBoost {
     }
 
     private double getTreeLeafWeight(int treeId, int treeNodeId) {
-        return this.trees.get(treeId).getTree(treeNodeId).getWeight();
+        return this.weight[treeId][treeNodeId];
     }
 
-    private int traverseTree(int treeId, int treeNodeId, Map<String, Object> input) {
-        while (!this.isLocateInLeaf(treeId, treeNodeId) && this.getSite(treeId, treeNodeId).equals(this.site)) {
-            treeNodeId = this.gotoNextLevel(treeId, treeNodeId, input);
+    private int traverseTree(int treeId, int treeNodeId, double[] featureVector) {
+        while (!this.isLocateInLeaf(treeId, treeNodeId) && this.site[treeId][treeNodeId] == this.localSite) {
+            treeNodeId = this.gotoNextLevel(treeId, treeNodeId, featureVector);
         }
 
         return treeNodeId;
     }
 
+    /**
+     * walk a tree to its leaf, host nodes are decided by the bitmask the host returned for this tree
+     */
+    private int traverseTree(int treeId, int treeNodeId, double[] featureVector, BitSet hostBranchMask) {
+        while (!this.isLocateInLeaf(treeId, treeNodeId)) {
+            if (this.site[treeId][treeNodeId] == this.localSite) {
+                treeNodeId = this.gotoNextLevel(treeId, treeNodeId, featureVector);
+            } else {
+                treeNodeId = hostBranchMask.get(treeNodeId) ? this.right[treeId][treeNodeId] : this.left[treeId][treeNodeId];
+            }
+        }
+
+        return treeNodeId;
+    }
+
+    /**
+     * move every tree as far as the guest can, returns the trees stuck on a host node with their location
+     */
+    private HashMap<String, Object> locatePendingTrees(double[] featureVector, int[] treeNodeIds) {
+        HashMap<String, Object> treeLocation = new HashMap<String, Object>(8);
+        for (int i = 0; i < this.treeNum; ++i) {
+            if (this.isLocateInLeaf(i, treeNodeIds[i])) {
+                continue;
+            }
+            treeNodeIds[i] = this.traverseTree(i, treeNodeIds[i], featureVector);
+            if (!this.isLocateInLeaf(i, treeNodeIds[i])) {
+                treeLocation.put(String.valueOf(i), treeNodeIds[i]);
+            }
+        }
+        return treeLocation;
+    }
+
 
     private Map<String, Object> getFinalPredict(double[] weights) {
         Map<String, Object> ret = new HashMap<String, Object>(8);
@@ -139,76 +189,127 @@ public class HeteroSecureBoostingTreeGuest extends HeteroSecureBoost {
 
     @Override
     public Map<String, Object> handlePredict(Context context, List<Map<String, Object>> inputData, FederatedParams predictParams) {
+        return Futures.getUnchecked(handlePredictAsync(context, inputData, predictParams));
+    }
+
+    @Override
+    public ListenableFuture<Map<String, Object>> handlePredictAsync(Context context, List<Map<String, Object>> inputData, FederatedParams predictParams) {
         if(logger.isDebugEnabled()) {
             logger.debug("HeteroSecureBoostingTreeGuest FederatedParams {}", predictParams);
         }
 
         Map<String, Object> input = inputData.get(0);
-        HashMap<String, Object> fidValueMapping = new HashMap<String, Object>(8);
 
-        ReturnResult returnResult = this.getFederatedPredict(context, predictParams, Dict.FEDERATED_INFERENCE, false);
+        ListenableFuture<ReturnResult> returnResult = this.getFederatedPredictAsync(context, predictParams, Dict.FEDERATED_INFERENCE, false);
 
-        int featureHit = 0;
-        for (String key : input.keySet()) {
-            if (this.featureNameFidMapping.containsKey(key)) {
-                fidValueMapping.put(this.featureNameFidMapping.get(key).toString(), input.get(key));
-                ++featureHit;
-            }
-        }
-        if(logger.isDebugEnabled()) {
-            logger.debug("feature hit rate : {}", 1.0 * featureHit / this.featureNameFidMapping.size());
-        }
+        double[] featureVector = this.toFeatureVector(input);
         int[] treeNodeIds = new int[this.treeNum];
-        double[] weights = new double[this.treeNum];
-        int communicationRound = 0;
-        while (true) {
-            HashMap<String, Object> treeLocation = new HashMap<String, Object>(8);
-            for (int i = 0; i < this.treeNum; ++i) {
-                if (this.isLocateInLeaf(i, treeNodeIds[i])) {
-                    continue;
-                }
-                treeNodeIds[i] = this.traverseTree(i, treeNodeIds[i], fidValueMapping);
-                if (!this.isLocateInLeaf(i, treeNodeIds[i])) {
-                    treeLocation.put(String.valueOf(i), treeNodeIds[i]);
-                }
-            }
-            if (treeLocation.size() == 0) {
-                break;
-            }
-            //  String tag = this.generateTag(predictParams.getCaseId(), this.componentName, communicationRound++);
-
-            // predictParams.getData().put(Dict.TAG,tag);
-
-            predictParams.getData().put(Dict.COMPONENT_NAME, this.componentName);
-
-            predictParams.getData().put(Dict.TREE_COMPUTE_ROUND, communicationRound++);
-
-            predictParams.getData().put(Dict.TREE_LOCATION, treeLocation);
-
-            try {
+        String hostPartyId = predictParams.getRole().getRole(Dict.HOST).get(0);
+        boolean singleRound = treeSingleRound.get() && !isBranchMaskRefused(hostPartyId);
+
+        ListenableFuture<Map<String, Object>> result = Futures.transformAsync(returnResult,
+                hostResult -> singleRound ? predictByBranchMaskAsync(context, predictParams, hostPartyId, featureVector, treeNodeIds)
+                        : predictRoundAsync(context, predictParams, featureVector, treeNodeIds, 0),
+                MoreExecutors.directExecutor());
+        return Futures.catching(result, Exception.class, ex -> {
+            logger.error("get host predict failed:", ex);
+            return failedPredictResult(ex);
+        }, MoreExecutors.directExecutor());
+    }
 
-                ReturnResult tempResult = this.getFederatedPredict(context, predictParams, Dict.FEDERATED_INFERENCE_FOR_TREE, false);
+    /**
+     * send the location of every pending tree in one request, the host answers with its branch decisions
+     * for all of its nodes below them so that the guest finishes every tree locally. this shows the guest
+     * host decisions off the path the row takes, so hosts only answer it when they enabled serveTreeSingleRound;
+     * hosts that refuse or do not know the command are served round by round, and are not asked again for a while
+     */
+    private ListenableFuture<Map<String, Object>> predictByBranchMaskAsync(Context context, FederatedParams predictParams, String hostPartyId, double[] featureVector, int[] treeNodeIds) {
+        HashMap<String, Object> treeLocation = locatePendingTrees(featureVector, treeNodeIds);
+        if (treeLocation.size() == 0) {
+            return Futures.immediateFuture(getLeafPredict(treeNodeIds));
+        }
 
-                Map<String, Object> afterLocation = tempResult.getData();
-                if(logger.isDebugEnabled()) {
-                    logger.debug("after loccation is {}", afterLocation);
-                }
-                for (String location : afterLocation.keySet()) {
-                    treeNodeIds[new Integer(location)] = ((Number) afterLocation.get(location)).intValue();
-                }
+        predictParams.getData().put(Dict.COMPONENT_NAME, this.componentName);
+
+        predictParams.getData().put(Dict.TREE_LOCATION, treeLocation);
+
+        return Futures.transformAsync(
+                this.getFederatedPredictAsync(context, predictParams, Dict.FEDERATED_INFERENCE_FOR_TREE_BITMASK, false),
+                maskResult -> {
+                    if (maskResult != null && maskResult.getRetcode() == StatusCode.PARAMERROR) {
+                        logger.warn("host {} does not support {}, fall back to round by round tree inference", hostPartyId, Dict.FEDERATED_INFERENCE_FOR_TREE_BITMASK);
+                        branchMaskRefusedParties.put(hostPartyId, System.currentTimeMillis());
+                        return predictRoundAsync(context, predictParams, featureVector, treeNodeIds, 0);
+                    }
+                    Map<String, Object> branchMasks = maskResult != null ? maskResult.getData() : null;
+                    if (branchMasks == null) {
+                        logger.error("receive predict result of host is null");
+                        throw new Exception("Null Data");
+                    }
+                    for (String location : treeLocation.keySet()) {
+                        Object branchMask = branchMasks.get(location);
+                        if (branchMask == null) {
+                            throw new Exception("no branch mask of tree " + location);
+                        }
+                        // raw bytes over protobuf, base64 over json
+                        byte[] branchMaskBytes = branchMask instanceof byte[] ? (byte[]) branchMask : Base64.getDecoder().decode(branchMask.toString());
+                        int treeId = Integer.parseInt(location);
+                        treeNodeIds[treeId] = this.traverseTree(treeId, treeNodeIds[treeId], featureVector, BitSet.valueOf(branchMaskBytes));
+                    }
+                    return Futures.immediateFuture(getLeafPredict(treeNodeIds));
+                },
+                MoreExecutors.directExecutor());
+    }
 
-                if (afterLocation == null) {
-                    logger.error("receive predict result of host is null");
-                    throw new Exception("Null Data");
-                }
+    private static boolean isBranchMaskRefused(String hostPartyId) {
+        Long refusedAt = branchMaskRefusedParties.get(hostPartyId);
+        if (refusedAt == null) {
+            return false;
+        }
+        if (System.currentTimeMillis() - refusedAt < BRANCH_MASK_RETRY_INTERVAL) {
+            return true;
+        }
+        branchMaskRefusedParties.remove(hostPartyId, refusedAt);
+        return false;
+    }
 
-            } catch (Exception ex) {
-                ex.printStackTrace();
-                logger.error("HeteroSecureBoostingTreeGuest handle error",ex);
-                return null;
-            }
+    /**
+     * walk every tree as far as the guest can, then ask the host to move the remaining trees
+     * one level further; chained until every tree is located in a leaf
+     */
+    private ListenableFuture<Map<String, Object>> predictRoundAsync(Context context, FederatedParams predictParams, double[] featureVector, int[] treeNodeIds, int communicationRound) {
+        HashMap<String, Object> treeLocation = locatePendingTrees(featureVector, treeNodeIds);
+        if (treeLocation.size() == 0) {
+            return Futures.immediateFuture(getLeafPredict(treeNodeIds));
         }
 
+        predictParams.getData().put(Dict.COMPONENT_NAME, this.componentName);
+
+        predictParams.getData().put(Dict.TREE_COMPUTE_ROUND, communicationRound);
+
+        predictParams.getData().put(Dict.TREE_LOCATION, treeLocation);
+
+        return Futures.transformAsync(
+                this.getFederatedPredictAsync(context, predictParams, Dict.FEDERATED_INFERENCE_FOR_TREE, false),
+                tempResult -> {
+                    Map<String, Object> afterLocation = tempResult != null ? tempResult.getData() : null;
+                    if (afterLocation == null) {
+                        logger.error("receive predict result of host is null");
+                        throw new Exception("Null Data");
+                    }
+                    if(logger.isDebugEnabled()) {
+                        logger.debug("after loccation is {}", afterLocation);
+                    }
+                    for (String location : afterLocation.keySet()) {
+                        treeNodeIds[new Integer(location)] = ((Number) afterLocation.get(location)).intValue();
+                    }
+                    return predictRoundAsync(context, predictParams, featureVector, treeNodeIds, communicationRound + 1);
+                },
+                MoreExecutors.directExecutor());
+    }
+
+    private Map<String, Object> getLeafPredict(int[] treeNodeIds) {
+        double[] weights = new double[this.treeNum];
         for (int i = 0; i < this.treeNum; ++i) {
             weights[i] = getTreeLeafWeight(i, treeNodeIds[i]);
         }
@@ -217,7 +318,6 @@ public class HeteroSecureBoostingTreeGuest extends HeteroSecureBoost {
             logger.debug("weights is {}", weights);
         }
 
-
         return getFinalPredict(weights);
     }
 }
@@ -16,17 +16,17 @@
 
 package com.webank.ai.fate.serving.federatedml.model;
 
-import com.webank.ai.fate.serving.core.bean.CacheManager;
 import com.webank.ai.fate.serving.core.bean.Context;
-import com.webank.ai.fate.serving.core.bean.Dict;
 import com.webank.ai.fate.serving.core.bean.FederatedParams;
+import com.webank.ai.fate.serving.federatedml.TreeSessionStore;
 
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 public class HeteroSecureBoostingTreeHost extends HeteroSecureBoost {
-    private final String site = "host";
+    private final byte localSite = SITE_HOST;
     // need to change
     private final String modelId = "HeteroSecureBoostingTreeHost";
 
@@ -49,27 +49,14 @@ public class HeteroSecureBoostingTreeHost extends HeteroSecureBoost {
     }
     */
 
-    private int traverseTree(int treeId, int treeNodeId, Map<String, Object> input) {
-        while (getSite(treeId, treeNodeId).equals(this.site)) {
-            treeNodeId = this.gotoNextLevel(treeId, treeNodeId, input);
+    private int traverseTree(int treeId, int treeNodeId, double[] featureVector) {
+        while (!this.isLeaf[treeId][treeNodeId] && this.site[treeId][treeNodeId] == this.localSite) {
+            treeNodeId = this.gotoNextLevel(treeId, treeNodeId, featureVector);
         }
 
         return treeNodeId;
     }
 
-    public void saveData(Context context, String tag, Map<String, Object> data) {
-
-        CacheManager.getInstance().store(context, tag, data);
-
-    }
-
-    public Map<String, Object> getData(Context context, String tag) {
-
-        Map data = CacheManager.getInstance().restore(context, tag, Map.class);
-
-        return data;
-    }
-
     @Override
     public Map<String, Object> handlePredict(Context context, List<Map<String, Object>> inputData, FederatedParams predictParams) {
         if(logger.isDebugEnabled()) {
@@ -77,32 +64,74 @@ public class HeteroSecureBoostingTreeHost extends HeteroSecureBoost {
         }
         Map<String, Object> input = inputData.get(0);
 
-        String tag = predictParams.getCaseId() + "." + this.componentName + "." + Dict.INPUT_DATA;
-        Map<String, Object> ret = new HashMap<String, Object>(8);
-
-        HashMap<String, Object> fidValueMapping = new HashMap<String, Object>(8);
-        int featureHit = 0;
-        for (String key : input.keySet()) {
-            if (this.featureNameFidMapping.containsKey(key)) {
-                fidValueMapping.put(this.featureNameFidMapping.get(key).toString(), input.get(key));
-                ++featureHit;
+        String sessionKey = TreeSessionStore.sessionKey(predictParams.getCaseId(), this.componentName);
+        TreeSessionStore.getInstance().save(context, sessionKey, this.toFeatureVector(input), () -> {
+            HashMap<String, Object> fidValueMapping = new HashMap<String, Object>(8);
+            for (String key : input.keySet()) {
+                if (this.featureNameFidMapping.containsKey(key)) {
+                    fidValueMapping.put(this.featureNameFidMapping.get(key).toString(), input.get(key));
+                }
             }
-        }
-        this.saveData(context, tag, fidValueMapping);
-        return ret;
+            return fidValueMapping;
+        });
+        return new HashMap<String, Object>(8);
     }
 
 
     public Map<String, Object> predictSingleRound(Context context, Map<String, Object> interactiveData, FederatedParams predictParams) {
-        String tag = predictParams.getCaseId() + "." + this.componentName + "." + Dict.INPUT_DATA;
-        Map<String, Object> input = this.getData(context, tag);
+        double[] featureVector = restoreFeatureVector(context, predictParams);
         Map<String, Object> ret = new HashMap<String, Object>(8);
         for (String treeIdx : interactiveData.keySet()) {
             int idx = Integer.valueOf(treeIdx);
-            int nodeId = this.traverseTree(idx, (Integer) interactiveData.get(treeIdx), input);
+            int nodeId = this.traverseTree(idx, ((Number) interactiveData.get(treeIdx)).intValue(), featureVector);
             ret.put(treeIdx, nodeId);
         }
 
         return ret;
     }
+
+    /**
+     * decide every host node below the pending location of each tree at once,
+     * returns per tree a bitmask in which a set bit means the node goes to its right child
+     */
+    public Map<String, Object> predictBranchMask(Context context, Map<String, Object> interactiveData, FederatedParams predictParams) {
+        double[] featureVector = restoreFeatureVector(context, predictParams);
+        Map<String, Object> ret = new HashMap<String, Object>(8);
+        for (String treeIdx : interactiveData.keySet()) {
+            int idx = Integer.valueOf(treeIdx);
+            BitSet branchMask = this.branchMask(idx, ((Number) interactiveData.get(treeIdx)).intValue(), featureVector);
+            ret.put(treeIdx, branchMask.toByteArray());
+        }
+
+        return ret;
+    }
+
+    private BitSet branchMask(int treeId, int treeNodeId, double[] featureVector) {
+        BitSet branchMask = new BitSet(this.isLeaf[treeId].length);
+        int[] pending = new int[this.isLeaf[treeId].length];
+        int top = 0;
+        pending[top++] = treeNodeId;
+        while (top > 0) {
+            int nodeId = pending[--top];
+            if (this.isLeaf[treeId][nodeId]) {
+                continue;
+            }
+            if (this.site[treeId][nodeId] == this.localSite && this.gotoNextLevel(treeId, nodeId, featureVector) == this.right[treeId][nodeId]) {
+                branchMask.set(nodeId);
+            }
+            pending[top++] = this.left[treeId][nodeId];
+            pending[top++] = this.right[treeId][nodeId];
+        }
+
+        return branchMask;
+    }
+
+    private double[] restoreFeatureVector(Context context, FederatedParams predictParams) {
+        String sessionKey = TreeSessionStore.sessionKey(predictParams.getCaseId(), this.componentName);
+        double[] featureVector = TreeSessionStore.getInstance().restore(context, sessionKey, this::toFeatureVectorByFid);
+        if (featureVector == null) {
+            featureVector = this.toFeatureVectorByFid(null);
+        }
+        return featureVector;
+    }
 }
@@ -58,6 +58,10 @@ public abstract class AbstractRegistry implements Registry {
     private final Set<URL> registered = new HashSet<>();
     private final ConcurrentMap<URL, Set<NotifyListener>> subscribed = new ConcurrentHashMap<>();
     private final ConcurrentMap<URL, Map<String, List<URL>>> notified = new ConcurrentHashMap<>();
+    /**
+     * service key -> parsed urls of the cache properties, never modified, replaced as a whole on every change
+     */
+    private volatile Map<String, List<URL>> cacheUrlIndex = Collections.emptyMap();
     protected Map<String, Integer> servieWeightMap = Maps.newHashMap();
     protected Set<String> projectSets = Sets.newHashSet();
     private URL registryUrl;
@@ -80,6 +84,7 @@ public abstract class AbstractRegistry implements Registry {
         this.file = file;
 
         loadProperties();
+        rebuildCacheUrlIndex();
         notify(url.getBackupUrls());
     }
 
@@ -221,26 +226,50 @@ public abstract class AbstractRegistry implements Registry {
     }
 
     public List<URL> getCacheUrls(URL url) {
-        for (Map.Entry<Object, Object> entry : properties.entrySet()) {
-            String key = (String) entry.getKey();
-            String value = (String) entry.getValue();
-            if (key != null && key.length() > 0 && key.equals(url.getServiceKey())
-                    && (Character.isLetter(key.charAt(0)) || key.charAt(0) == '_')
-                    && value != null && value.length() > 0) {
-                String[] arr = value.trim().split(URL_SPLIT);
-                List<URL> urls = new ArrayList<>();
-                for (String u : arr) {
-                    // for jmx url
-                    if (u.startsWith(JMX_PROTOCOL_KEY)) {
-                        urls.add(URL.parseJMXServiceUrl(u));
-                    } else {
-                        urls.add(URL.valueOf(u));
-                    }
-                }
-                return urls;
+        return cacheUrlIndex.get(url.getServiceKey());
+    }
+
+    /**
+     * re-parse every cache property, needed after the properties were changed through getCacheProperties()
+     */
+    public synchronized void rebuildCacheUrlIndex() {
+        Map<String, List<URL>> index = new HashMap<>(properties.size() * 2);
+        for (String key : properties.stringPropertyNames()) {
+            List<URL> urls = parseCacheUrls(key, properties.getProperty(key));
+            if (urls != null) {
+                index.put(key, urls);
+            }
+        }
+        cacheUrlIndex = Collections.unmodifiableMap(index);
+    }
+
+    private synchronized void updateCacheUrlIndex(String serviceKey) {
+        Map<String, List<URL>> index = new HashMap<>(cacheUrlIndex);
+        List<URL> urls = parseCacheUrls(serviceKey, properties.getProperty(serviceKey));
+        if (urls != null) {
+            index.put(serviceKey, urls);
+        } else {
+            index.remove(serviceKey);
+        }
+        cacheUrlIndex = Collections.unmodifiableMap(index);
+    }
+
+    private static List<URL> parseCacheUrls(String key, String value) {
+        if (key == null || key.length() == 0 || !(Character.isLetter(key.charAt(0)) || key.charAt(0) == '_')
+                || value == null || value.length() == 0) {
+            return null;
+        }
+        String[] arr = value.trim().split(URL_SPLIT);
+        List<URL> urls = new ArrayList<>(arr.length);
+        for (String u : arr) {
+            // for jmx url
+            if (u.startsWith(JMX_PROTOCOL_KEY)) {
+                urls.add(URL.parseJMXServiceUrl(u));
+            } else {
+                urls.add(URL.valueOf(u));
             }
         }
-        return null;
+        return Collections.unmodifiableList(urls);
     }
 
     @Override
@@ -457,6 +486,7 @@ public abstract class AbstractRegistry implements Registry {
             } else {
                 properties.setProperty(url.getServiceKey(), buf.toString());
             }
+            updateCacheUrlIndex(url.getServiceKey());
             long version = lastCacheChanged.incrementAndGet();
             if (syncSaveFile) {
                 doSaveProperties(version);
@@ -28,6 +28,9 @@ public class DefaultLoadBalanceFactory implements LoadBalancerFactory {
         loaderBalanceRegister = new ConcurrentHashMap();
         loaderBalanceRegister.put(LoadBalanceModel.random_with_weight, new RandomLoadBalance());
         loaderBalanceRegister.put(LoadBalanceModel.random, new RandomLoadBalance());
+        loaderBalanceRegister.put(LoadBalanceModel.least_active, new LeastActiveLoadBalance());
+        loaderBalanceRegister.put(LoadBalanceModel.p2c_ewma, new P2cEwmaLoadBalance());
+        loaderBalanceRegister.put(LoadBalanceModel.all, new AllLoadBalance());
     }
 
     @Override
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2019 The FATE Authors. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.webank.ai.fate.register.loadbalance;
+
+import com.google.common.collect.Lists;
+import com.webank.ai.fate.register.url.URL;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * picks the endpoint with the fewest in-flight calls, ties are broken randomly by weight
+ */
+public class LeastActiveLoadBalance extends AbstractLoadBalancer {
+
+    public static final String NAME = "least_active";
+
+    @Override
+    protected List<URL> doSelect(List<URL> urls) {
+        int length = urls.size();
+        int leastActive = -1;
+        int leastCount = 0;
+        int[] leastIndexes = new int[length];
+        int[] weights = new int[length];
+        int totalWeight = 0;
+        boolean sameWeight = true;
+
+        for (int i = 0; i < length; i++) {
+            URL url = urls.get(i);
+            int active = RpcStatus.getStatus(url.getAddress()).getActive();
+            int weight = getWeight(url);
+            weights[i] = weight;
+            if (leastActive == -1 || active < leastActive) {
+                leastActive = active;
+                leastCount = 1;
+                leastIndexes[0] = i;
+                totalWeight = weight;
+                sameWeight = true;
+            } else if (active == leastActive) {
+                leastIndexes[leastCount++] = i;
+                totalWeight += weight;
+                if (sameWeight && weight != weights[leastIndexes[0]]) {
+                    sameWeight = false;
+                }
+            }
+        }
+
+        if (leastCount == 1) {
+            return Lists.newArrayList(urls.get(leastIndexes[0]));
+        }
+        if (!sameWeight && totalWeight > 0) {
+            int offset = ThreadLocalRandom.current().nextInt(totalWeight);
+            for (int i = 0; i < leastCount; i++) {
+                offset -= weights[leastIndexes[i]];
+                if (offset < 0) {
+                    return Lists.newArrayList(urls.get(leastIndexes[i]));
+                }
+            }
+        }
+        return Lists.newArrayList(urls.get(leastIndexes[ThreadLocalRandom.current().nextInt(leastCount)]));
+    }
+}
@@ -24,5 +24,17 @@ public enum LoadBalanceModel {
     /**
      * random_with_weight
      */
-    random_with_weight
-}
\ No newline at end of file
+    random_with_weight,
+    /**
+     * fewest in-flight calls
+     */
+    least_active,
+    /**
+     * power of two choices over latency ewma and in-flight calls
+     */
+    p2c_ewma,
+    /**
+     * every available url
+     */
+    all
+}
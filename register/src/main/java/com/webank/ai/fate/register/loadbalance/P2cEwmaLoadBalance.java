@@ -0,0 +1,56 @@
+/*
+ * Copyright 2019 The FATE Authors. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.webank.ai.fate.register.loadbalance;
+
+import com.google.common.collect.Lists;
+import com.webank.ai.fate.register.url.URL;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * power of two choices: draws two endpoints at random and keeps the one with the lower
+ * expected wait, latency average times (in-flight calls + 1)
+ */
+public class P2cEwmaLoadBalance extends AbstractLoadBalancer {
+
+    public static final String NAME = "p2c_ewma";
+
+    /**
+     * added to the latency average, so that endpoints without samples yet are still weighed by their in-flight calls
+     */
+    private static final double LATENCY_FLOOR = 1.0;
+
+    @Override
+    protected List<URL> doSelect(List<URL> urls) {
+        int length = urls.size();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(length);
+        int second = random.nextInt(length - 1);
+        if (second >= first) {
+            second++;
+        }
+        URL firstUrl = urls.get(first);
+        URL secondUrl = urls.get(second);
+        return Lists.newArrayList(cost(firstUrl) <= cost(secondUrl) ? firstUrl : secondUrl);
+    }
+
+    private double cost(URL url) {
+        RpcStatus status = RpcStatus.getStatus(url.getAddress());
+        return (status.getEwmaLatency() + LATENCY_FLOOR) * (status.getActive() + 1) / Math.max(getWeight(url), 1);
+    }
+}
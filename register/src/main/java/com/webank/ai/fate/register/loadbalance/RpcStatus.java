@@ -0,0 +1,87 @@
+/*
+ * Copyright 2019 The FATE Authors. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.webank.ai.fate.register.loadbalance;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * in-flight calls and latency of one endpoint (host:port), fed by the callers of the router
+ * and read by the load balancers that weigh endpoints by their load
+ */
+public class RpcStatus {
+
+    /**
+     * time constant of the latency average, older samples lose weight as exp(-age / decay)
+     */
+    private static final long DECAY_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private static final ConcurrentMap<String, RpcStatus> STATUS_MAP = new ConcurrentHashMap<>();
+
+    private final AtomicInteger active = new AtomicInteger();
+
+    private double ewmaLatency;
+
+    private long lastUpdateNanos;
+
+    private RpcStatus() {
+    }
+
+    public static RpcStatus getStatus(String address) {
+        RpcStatus status = STATUS_MAP.get(address);
+        if (status == null) {
+            status = STATUS_MAP.computeIfAbsent(address, key -> new RpcStatus());
+        }
+        return status;
+    }
+
+    public static void beginCount(String address) {
+        getStatus(address).active.incrementAndGet();
+    }
+
+    /**
+     * @param elapsed call latency in milliseconds, failed calls should report the time until they failed
+     */
+    public static void endCount(String address, long elapsed) {
+        RpcStatus status = getStatus(address);
+        status.active.decrementAndGet();
+        status.observe(elapsed, System.nanoTime());
+    }
+
+    public int getActive() {
+        return active.get();
+    }
+
+    /**
+     * @return latency average in milliseconds, 0 before the first call completed
+     */
+    public synchronized double getEwmaLatency() {
+        return ewmaLatency;
+    }
+
+    private synchronized void observe(double latency, long now) {
+        if (lastUpdateNanos == 0) {
+            ewmaLatency = latency;
+        } else {
+            double weight = Math.exp(-(double) Math.max(now - lastUpdateNanos, 0) / DECAY_NANOS);
+            ewmaLatency = ewmaLatency * weight + latency * (1 - weight);
+        }
+        lastUpdateNanos = now;
+    }
+}
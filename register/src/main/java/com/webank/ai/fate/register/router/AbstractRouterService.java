@@ -39,6 +39,10 @@ public abstract class AbstractRouterService implements RouterService {
 
     protected LoadBalancerFactory loadBalancerFactory = new DefaultLoadBalanceFactory();
     protected AbstractRegistry registry;
+    /**
+     * balancer of the routers that do not name one, null keeps random / random_with_weight
+     */
+    protected LoadBalanceModel loadBalanceModel;
     Logger logger = LoggerFactory.getLogger(AbstractRouterService.class);
 
     public Registry getRegistry() {
@@ -49,6 +53,14 @@ public abstract class AbstractRouterService implements RouterService {
         this.registry = registry;
     }
 
+    public LoadBalanceModel getLoadBalanceModel() {
+        return loadBalanceModel;
+    }
+
+    public void setLoadBalanceModel(LoadBalanceModel loadBalanceModel) {
+        this.loadBalanceModel = loadBalanceModel;
+    }
+
 
     @Override
     public List<URL> router(URL url, LoadBalanceModel loadBalanceModel) {
@@ -62,7 +74,7 @@ public abstract class AbstractRouterService implements RouterService {
         Preconditions.checkArgument(StringUtils.isNotEmpty(project));
         Preconditions.checkArgument(StringUtils.isNotEmpty(environment));
         Preconditions.checkArgument(StringUtils.isNotEmpty(serviceName));
-        LoadBalancer loadBalancer = loadBalancerFactory.getLoaderBalancer(LoadBalanceModel.random_with_weight);
+        LoadBalancer loadBalancer = loadBalancerFactory.getLoaderBalancer(loadBalanceModel != null ? loadBalanceModel : LoadBalanceModel.random_with_weight);
         StringBuilder   stringBuilder = new StringBuilder();
         stringBuilder.append(project).append("/").append(environment).append("/").append(serviceName);
         URL paramUrl = URL.valueOf(stringBuilder.toString());
@@ -75,7 +87,7 @@ public abstract class AbstractRouterService implements RouterService {
 
     @Override
     public List<URL> router(URL url) {
-        return this.router(url, LoadBalanceModel.random);
+        return this.router(url, loadBalanceModel != null ? loadBalanceModel : LoadBalanceModel.random);
     }
 
     protected List<URL> filterVersion(List<URL> urls, String version) {
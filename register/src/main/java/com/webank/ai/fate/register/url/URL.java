@@ -61,6 +61,7 @@ class URL implements Serializable {
     private volatile transient String identity;
     private volatile transient String parameter;
     private volatile transient String string;
+    private volatile transient String serviceKey;
 
     public URL() {
         this.protocol = null;
@@ -1300,12 +1301,16 @@ class URL implements Serializable {
     }
 
     public String getServiceKey() {
+        if (serviceKey != null) {
+            return serviceKey;
+        }
         String inf = getServiceInterface();
         if (inf == null) {
             return null;
         }
 
-        return project + "/" + environment + "/" + inf;
+        serviceKey = project + "/" + environment + "/" + inf;
+        return serviceKey;
 
         // return buildKey(inf, this.project, this.environment);
     }
@@ -17,6 +17,7 @@
 package com.webank.ai.fate.serving.proxy.config;
 
 import com.webank.ai.fate.register.provider.FateServer;
+import com.webank.ai.fate.register.loadbalance.LoadBalanceModel;
 import com.webank.ai.fate.register.router.DefaultRouterService;
 import com.webank.ai.fate.register.router.RouterService;
 import com.webank.ai.fate.register.zookeeper.ZookeeperRegistry;
@@ -46,6 +47,9 @@ public class RegistryConfig {
     @Value("${useZkRouter:true}")
     private String useZkRouter;
 
+    @Value("${routerLoadBalance:}")
+    private String routerLoadBalance;
+
     @Value("${acl.enable:false}")
     private String aclEnable;
 
@@ -84,6 +88,9 @@ public class RegistryConfig {
         if (zookeeperRegistry != null) {
             DefaultRouterService defaultRouterService = new DefaultRouterService();
             defaultRouterService.setRegistry(zookeeperRegistry);
+            if (StringUtils.isNotEmpty(routerLoadBalance)) {
+                defaultRouterService.setLoadBalanceModel(LoadBalanceModel.valueOf(routerLoadBalance));
+            }
             return defaultRouterService;
         }
         return null;
@@ -8,20 +8,16 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
-import org.springframework.web.context.request.async.TimeoutCallableProcessingInterceptor;
+import org.springframework.web.context.request.async.TimeoutDeferredResultProcessingInterceptor;
 import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 import javax.servlet.ServletContext;
-import java.util.concurrent.ThreadPoolExecutor;
 
 @Configuration
 
 public class WebConfigration implements WebMvcConfigurer {
 
-    int processors = Runtime.getRuntime().availableProcessors();
-
     private final Logger logger = LoggerFactory.getLogger(WebConfigration.class);
 
     @Autowired
@@ -30,28 +26,13 @@ public class WebConfigration implements WebMvcConfigurer {
     @Value("${proxy.async.timeout:5000}")
     long  timeout;
 
-    @Value("${proxy.async.coresize:0}")
-    int  coreSize;
-
-    @Value("${proxy.async.maxsize:0}")
-    int  maxSize;
-
+    /**
+     * requests are answered through DeferredResult by the grpc callbacks, no thread pool is needed to wait for them
+     */
     @Override
     public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
-        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(coreSize>0?coreSize:processors);
-        executor.setMaxPoolSize(maxSize>0?maxSize:2*processors);
-        executor.setThreadNamePrefix("ProxyAsync");
-        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
-        executor.initialize();
-        configurer.setTaskExecutor(executor);
         configurer.setDefaultTimeout(timeout);
-        configurer.registerCallableInterceptors(new TimeoutCallableProcessingInterceptor());
-    }
-
-    @Bean
-    public TimeoutCallableProcessingInterceptor timeoutCallableProcessingInterceptor() {
-        return new TimeoutCallableProcessingInterceptor();
+        configurer.registerDeferredResultInterceptors(new TimeoutDeferredResultProcessingInterceptor());
     }
 
 
@@ -2,36 +2,44 @@ package com.webank.ai.fate.serving.proxy.controller;
 
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONObject;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.webank.ai.fate.serving.core.bean.BaseContext;
 import com.webank.ai.fate.serving.core.bean.Context;
 import com.webank.ai.fate.serving.core.bean.Dict;
 import com.webank.ai.fate.serving.core.rpc.core.InboundPackage;
 import com.webank.ai.fate.serving.core.rpc.core.OutboundPackage;
 import com.webank.ai.fate.serving.core.rpc.core.ServiceAdaptor;
+import com.webank.ai.fate.serving.core.utils.JsonCodec;
+import com.webank.ai.fate.serving.metrics.api.ICounter;
 import com.webank.ai.fate.serving.metrics.api.IMetricFactory;
+import com.webank.ai.fate.serving.metrics.api.TaggedMetric;
 import com.webank.ai.fate.serving.proxy.rpc.core.ProxyServiceRegister;
 import com.webank.ai.fate.serving.proxy.utils.WebUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 
 import javax.servlet.ServletInputStream;
 import javax.servlet.http.HttpServletRequest;
 import java.io.IOException;
 import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.Callable;
 
 /**
  * @Description TODO
  * @Author
  **/
 @Controller
-public class ProxyController {
+public class ProxyController implements InitializingBean {
 
     @Autowired
     ProxyServiceRegister proxyServiceRegister;
@@ -44,6 +52,16 @@ public class ProxyController {
 
     Logger logger = LoggerFactory.getLogger(ProxyController.class);
 
+    private TaggedMetric<ICounter> requestCounter;
+
+    private TaggedMetric<ICounter> responseCounter;
+
+    @Override
+    public void afterPropertiesSet() {
+        requestCounter = metricFactory.taggedCounter("http.inference.request", "http inference request", "callName");
+        responseCounter = metricFactory.taggedCounter("http.inference.response", "http inference response", "callName");
+    }
+
     String binaryReader(HttpServletRequest request) throws IOException {
         int len = request.getContentLength();
         ServletInputStream iii = request.getInputStream();
@@ -55,43 +73,48 @@ public class ProxyController {
 
     @RequestMapping(value = "/federation/{version}/{callName}", method = {RequestMethod.POST, RequestMethod.GET})
     @ResponseBody
-    public Callable<String> federation(@PathVariable String version,
+    public DeferredResult<String> federation(@PathVariable String version,
                                        @PathVariable String callName,
                              @RequestBody String data,
                              HttpServletRequest httpServletRequest,
                              @RequestHeader HttpHeaders headers
     ) throws Exception {
-        metricFactory.counter("http.inference.request", "http inference request","callName", callName).increment();
+        requestCounter.get(callName).increment();
 
-        return new Callable<String>() {
-            @Override
-            public String call() throws Exception {
-                if (logger.isDebugEnabled()) {
-                    logger.debug("receive : {} headers {}", data, headers.toSingleValueMap());
-                }
+        if (logger.isDebugEnabled()) {
+            logger.debug("receive : {} headers {}", data, headers.toSingleValueMap());
+        }
 
-                final ServiceAdaptor serviceAdaptor = proxyServiceRegister.getServiceAdaptor(Dict.SERVICENAME_INFERENCE);
+        final ServiceAdaptor<Map, Map> serviceAdaptor = proxyServiceRegister.getServiceAdaptor(Dict.SERVICENAME_INFERENCE);
 
-                Context context = new BaseContext();
-                context.setCallName(callName);
-                context.setVersion(version);
+        Context context = new BaseContext();
+        context.setCallName(callName);
+        context.setVersion(version);
 
-                InboundPackage<Map> inboundPackage = buildInboundPackageFederation(context, data, httpServletRequest);
+        InboundPackage<Map> inboundPackage = buildInboundPackageFederation(context, data, httpServletRequest);
 
-                OutboundPackage<Map> result  =   serviceAdaptor.service(context,inboundPackage );
+        DeferredResult<String> deferredResult = new DeferredResult<>();
+        ListenableFuture<OutboundPackage<Map>> future = serviceAdaptor.serviceAsync(context, inboundPackage);
+        Futures.addCallback(future, new FutureCallback<OutboundPackage<Map>>() {
+            @Override
+            public void onSuccess(OutboundPackage<Map> result) {
                 if(result!=null&&result.getData()!=null) {
                     result.getData().remove("log");
                     result.getData().remove("warn");
                     result.getData().remove("caseid");
                 }
 
-                metricFactory.counter("http.inference.response", "http inference response","callName", callName).increment();
-
-                return  JSON.toJSONString(result.getData());
+                responseCounter.get(callName).increment();
 
+                deferredResult.setResult(JsonCodec.toJson(result.getData()));
             }
-        };
 
+            @Override
+            public void onFailure(Throwable e) {
+                deferredResult.setErrorResult(e);
+            }
+        }, MoreExecutors.directExecutor());
+        return deferredResult;
     }
 
 
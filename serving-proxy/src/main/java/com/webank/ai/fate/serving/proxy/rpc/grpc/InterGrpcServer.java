@@ -3,6 +3,7 @@ import com.webank.ai.fate.register.provider.FateServerBuilder;
 import io.grpc.Server;
 import io.grpc.ServerBuilder;
 import io.grpc.ServerInterceptors;
+import io.grpc.ServerServiceDefinition;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.InitializingBean;
@@ -41,8 +42,9 @@ public class InterGrpcServer implements InitializingBean {
     public void afterPropertiesSet() throws Exception {
         FateServerBuilder serverBuilder = (FateServerBuilder) ServerBuilder.forPort(port);
         serverBuilder.executor(executor);
-        serverBuilder.addService(ServerInterceptors.intercept(interRequestHandler, new ServiceExceptionHandler()));
-        serverBuilder.addService(interRequestHandler);
+        ServerServiceDefinition serviceDefinition = PassthroughMarshaller.passthrough(interRequestHandler.bindService());
+        serverBuilder.addService(ServerInterceptors.intercept(serviceDefinition, new ServiceExceptionHandler()), interRequestHandler.getClass());
+        serverBuilder.addService(serviceDefinition, interRequestHandler.getClass());
         server = serverBuilder.build();
         server.start();
 
@@ -4,6 +4,7 @@ import com.webank.ai.fate.register.provider.FateServerBuilder;
 import io.grpc.Server;
 import io.grpc.ServerBuilder;
 import io.grpc.ServerInterceptors;
+import io.grpc.ServerServiceDefinition;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.InitializingBean;
@@ -41,8 +42,9 @@ public class IntraGrpcServer implements InitializingBean {
     public void afterPropertiesSet() throws Exception {
         FateServerBuilder serverBuilder = (FateServerBuilder) ServerBuilder.forPort(port);
         serverBuilder.executor(executor);
-        serverBuilder.addService(ServerInterceptors.intercept(intraRequestHandler, new ServiceExceptionHandler()));
-        serverBuilder.addService(intraRequestHandler);
+        ServerServiceDefinition serviceDefinition = PassthroughMarshaller.passthrough(intraRequestHandler.bindService());
+        serverBuilder.addService(ServerInterceptors.intercept(serviceDefinition, new ServiceExceptionHandler()), intraRequestHandler.getClass());
+        serverBuilder.addService(serviceDefinition, intraRequestHandler.getClass());
         server = serverBuilder.build();
         server.start();
     }
@@ -0,0 +1,77 @@
+package com.webank.ai.fate.serving.proxy.rpc.grpc;
+
+import com.google.common.io.ByteStreams;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.UnsafeByteOperations;
+import com.webank.ai.fate.api.networking.proxy.DataTransferServiceGrpc;
+import com.webank.ai.fate.api.networking.proxy.Proxy;
+import io.grpc.KnownLength;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerMethodDefinition;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.Status;
+import io.grpc.protobuf.ProtoUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * marshaller of packets the proxy only relays: the message is read into one buffer and parsed with aliasing,
+ * so the body value is a view of that buffer and is written out again without being decoded or copied
+ */
+public class PassthroughMarshaller implements MethodDescriptor.Marshaller<Proxy.Packet> {
+
+    private static final PassthroughMarshaller INSTANCE = new PassthroughMarshaller();
+
+    private static final MethodDescriptor.Marshaller<Proxy.Packet> PROTO_MARSHALLER = ProtoUtils.marshaller(Proxy.Packet.getDefaultInstance());
+
+    public static final MethodDescriptor<Proxy.Packet, Proxy.Packet> UNARY_CALL_METHOD =
+            DataTransferServiceGrpc.getUnaryCallMethod().toBuilder(INSTANCE, INSTANCE).build();
+
+    private PassthroughMarshaller() {
+    }
+
+    /**
+     * the same service with unaryCall bound to the passthrough marshaller
+     */
+    @SuppressWarnings("unchecked")
+    public static ServerServiceDefinition passthrough(ServerServiceDefinition serviceDefinition) {
+        ServerServiceDefinition.Builder builder = ServerServiceDefinition.builder(serviceDefinition.getServiceDescriptor().getName());
+        for (ServerMethodDefinition<?, ?> methodDefinition : serviceDefinition.getMethods()) {
+            if (UNARY_CALL_METHOD.getFullMethodName().equals(methodDefinition.getMethodDescriptor().getFullMethodName())) {
+                ServerMethodDefinition<Proxy.Packet, Proxy.Packet> unaryCall = (ServerMethodDefinition<Proxy.Packet, Proxy.Packet>) methodDefinition;
+                builder.addMethod(UNARY_CALL_METHOD, unaryCall.getServerCallHandler());
+            } else {
+                builder.addMethod(methodDefinition);
+            }
+        }
+        return builder.build();
+    }
+
+    @Override
+    public InputStream stream(Proxy.Packet value) {
+        return PROTO_MARSHALLER.stream(value);
+    }
+
+    @Override
+    public Proxy.Packet parse(InputStream stream) {
+        try {
+            byte[] buffer;
+            if (stream instanceof KnownLength) {
+                buffer = new byte[stream.available()];
+                ByteStreams.readFully(stream, buffer);
+            } else {
+                buffer = ByteStreams.toByteArray(stream);
+            }
+            // the buffer is never written again, so bytes fields may alias it
+            CodedInputStream codedInputStream = UnsafeByteOperations.unsafeWrap(buffer).newCodedInput();
+            codedInputStream.enableAliasing(true);
+            return Proxy.Packet.parseFrom(codedInputStream);
+        } catch (InvalidProtocolBufferException e) {
+            throw Status.INTERNAL.withDescription("invalid protobuf byte sequence").withCause(e).asRuntimeException();
+        } catch (IOException e) {
+            throw Status.INTERNAL.withDescription("failed to read packet").withCause(e).asRuntimeException();
+        }
+    }
+}
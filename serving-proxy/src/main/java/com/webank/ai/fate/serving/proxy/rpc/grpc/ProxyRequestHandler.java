@@ -2,6 +2,10 @@
 
 package com.webank.ai.fate.serving.proxy.rpc.grpc;
 
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.webank.ai.fate.api.networking.proxy.DataTransferServiceGrpc;
 import com.webank.ai.fate.api.networking.proxy.Proxy;
 import com.webank.ai.fate.register.annotions.RegisterService;
@@ -11,21 +15,39 @@ import com.webank.ai.fate.serving.core.bean.Dict;
 import com.webank.ai.fate.serving.core.rpc.core.InboundPackage;
 import com.webank.ai.fate.serving.core.rpc.core.OutboundPackage;
 import com.webank.ai.fate.serving.core.rpc.core.ServiceAdaptor;
+import com.webank.ai.fate.serving.core.utils.DeadlineUtils;
+import com.webank.ai.fate.serving.metrics.api.ICounter;
 import com.webank.ai.fate.serving.metrics.api.IMetricFactory;
+import com.webank.ai.fate.serving.metrics.api.TaggedMetric;
 import com.webank.ai.fate.serving.proxy.rpc.core.ProxyServiceRegister;
+import io.grpc.Status;
 import io.grpc.stub.StreamObserver;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
 
-public abstract class ProxyRequestHandler extends DataTransferServiceGrpc.DataTransferServiceImplBase {
+public abstract class ProxyRequestHandler extends DataTransferServiceGrpc.DataTransferServiceImplBase implements InitializingBean {
 
     @Autowired
     IMetricFactory metricFactory;
 
     private static final Logger logger = LoggerFactory.getLogger(ProxyRequestHandler.class);
 
+    private TaggedMetric<ICounter> requestCounter;
+
+    private TaggedMetric<ICounter> responseCounter;
+
+    private TaggedMetric<ICounter> unaryCallCounter;
+
+    @Override
+    public void afterPropertiesSet() {
+        requestCounter = metricFactory.taggedCounter("grpc.unaryCall.request", "grpc unaryCall request", "src", "dst");
+        responseCounter = metricFactory.taggedCounter("grpc.unaryCall.response", "grpc unaryCall response", "src", "dst");
+        unaryCallCounter = metricFactory.taggedCounter("grpc.unaryCall", "grpc unaryCall", "direction", "grpc.type");
+    }
+
     public abstract ProxyServiceRegister getProxyServiceRegister();
 
     public abstract void setExtraInfo(Context context, InboundPackage<Proxy.Packet> inboundPackage, Proxy.Packet req);
@@ -34,8 +56,7 @@ public abstract class ProxyRequestHandler extends DataTransferServiceGrpc.DataTr
     @Override
     public void unaryCall(Proxy.Packet req, StreamObserver<Proxy.Packet> responseObserver)  {
 
-        metricFactory.counter("grpc.unaryCall.request", "grpc unaryCall request",
-                "src", req.getHeader().getSrc().getPartyId(), "dst", req.getHeader().getDst().getPartyId()).increment();
+        requestCounter.get(req.getHeader().getSrc().getPartyId(), req.getHeader().getDst().getPartyId()).increment();
 
         if (logger.isDebugEnabled()) {
             logger.debug("unaryCall req {}", req);
@@ -45,26 +66,31 @@ public abstract class ProxyRequestHandler extends DataTransferServiceGrpc.DataTr
         InboundPackage<Proxy.Packet> inboundPackage = buildInboundPackage(context, req);
         setExtraInfo(context, inboundPackage, req);
 
-        metricFactory.counter("grpc.unaryCall", "grpc unaryCall","direction", "request", "grpc.type", context.getGrpcType().toString()).increment();
-
-        OutboundPackage<Proxy.Packet> outboundPackage = null;
-        try {
-            outboundPackage = unaryCallService.service(context,inboundPackage);
-        } catch (Exception e) {
-            e.printStackTrace();
-
-        }
-        Proxy.Packet   result = (Proxy.Packet)outboundPackage.getData();
-        responseObserver.onNext(result);
-        responseObserver.onCompleted();
-
-        metricFactory.counter("grpc.unaryCall.response", "grpc unaryCall response",
-                "src", req.getHeader().getSrc().getPartyId(), "dst", req.getHeader().getDst().getPartyId()).increment();
-        metricFactory.counter("grpc.unaryCall", "grpc unaryCall", "direction", "response", "grpc.type", context.getGrpcType().toString()).increment();
+        unaryCallCounter.get("request", context.getGrpcType().name()).increment();
+
+        ListenableFuture<OutboundPackage<Proxy.Packet>> future = unaryCallService.serviceAsync(context, inboundPackage);
+        Futures.addCallback(future, new FutureCallback<OutboundPackage<Proxy.Packet>>() {
+            @Override
+            public void onSuccess(OutboundPackage<Proxy.Packet> outboundPackage) {
+                Proxy.Packet   result = outboundPackage.getData();
+                responseObserver.onNext(result);
+                responseObserver.onCompleted();
+
+                responseCounter.get(req.getHeader().getSrc().getPartyId(), req.getHeader().getDst().getPartyId()).increment();
+                unaryCallCounter.get("response", context.getGrpcType().name()).increment();
+            }
+
+            @Override
+            public void onFailure(Throwable e) {
+                logger.error("unaryCall error", e);
+                responseObserver.onError(Status.INTERNAL.withDescription(e.getMessage()).withCause(e).asRuntimeException());
+            }
+        }, MoreExecutors.directExecutor());
     }
 
     public InboundPackage<Proxy.Packet> buildInboundPackage(Context  context, Proxy.Packet req){
         context.setCaseId(Long.toString(System.currentTimeMillis()));
+        context.setDeadline(DeadlineUtils.fromGrpcContext());
         context.setVersion(req.getAuth().getVersion());
         if(StringUtils.isEmpty(context.getVersion())){
             context.setVersion(Dict.DEFAULT_VERSION);
@@ -1,6 +1,7 @@
 package com.webank.ai.fate.serving.proxy.rpc.router;
 
 import com.google.common.hash.Hashing;
+import com.webank.ai.fate.api.networking.proxy.Proxy;
 import com.webank.ai.fate.serving.core.bean.Context;
 import com.webank.ai.fate.serving.core.exceptions.NoRouteInfoException;
 import com.webank.ai.fate.serving.core.rpc.core.InboundPackage;
@@ -38,7 +39,7 @@ public abstract class BaseServingRouter implements RouterInterface {
                 break;
             }
             case CONSISTENT_HASH_ROUTE:{
-                idx = Hashing.consistentHash(context.getRouteBasis(), routeList.size());
+                idx = Hashing.consistentHash(getRouteBasis(context, inboundPackage), routeList.size());
                 break;
             }
             default:{
@@ -55,6 +56,17 @@ public abstract class BaseServingRouter implements RouterInterface {
         return routerInfo;
     }
 
+    /**
+     * the route hash of the packet header if the sender set one, so all rounds of a case reach the same instance
+     */
+    private long getRouteBasis(Context context, InboundPackage inboundPackage) {
+        Object body = inboundPackage.getBody();
+        if (body instanceof Proxy.Packet && ((Proxy.Packet) body).getHeader().getRouteHash() != 0) {
+            return ((Proxy.Packet) body).getHeader().getRouteHash();
+        }
+        return context.getRouteBasis();
+    }
+
     @Override
     public void doPreProcess(Context context, InboundPackage inboundPackage,OutboundPackage  outboundPackage) throws Exception {
         RouterInfo routerInfo =this.route(context,inboundPackage);
@@ -1,11 +1,15 @@
 package com.webank.ai.fate.serving.proxy.rpc.services;
 
-import com.alibaba.fastjson.JSON;
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
 import com.google.protobuf.ByteString;
 import com.webank.ai.fate.api.serving.InferenceServiceGrpc;
 import com.webank.ai.fate.api.serving.InferenceServiceProto;
+import com.webank.ai.fate.register.loadbalance.RpcStatus;
 import com.webank.ai.fate.serving.core.bean.Context;
 import com.webank.ai.fate.serving.core.bean.Dict;
 import com.webank.ai.fate.serving.core.bean.GrpcConnectionPool;
@@ -16,11 +20,15 @@ import com.webank.ai.fate.serving.core.rpc.core.InboundPackage;
 import com.webank.ai.fate.serving.core.rpc.core.OutboundPackage;
 import com.webank.ai.fate.serving.core.rpc.core.ProxyService;
 import com.webank.ai.fate.serving.core.rpc.router.RouterInfo;
+import com.webank.ai.fate.serving.core.utils.JsonCodec;
+import com.webank.ai.fate.serving.metrics.api.ICounter;
 import com.webank.ai.fate.serving.metrics.api.IMetricFactory;
+import com.webank.ai.fate.serving.metrics.api.TaggedMetric;
 import io.grpc.ManagedChannel;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
@@ -40,7 +48,7 @@ import java.util.concurrent.TimeUnit;
         "inferenceParamValidator",
         "defaultServingRouter"})
 
-public class InferenceService extends AbstractServiceAdaptor<Map, Map> {
+public class InferenceService extends AbstractServiceAdaptor<Map, Map> implements InitializingBean {
 
     Logger logger = LoggerFactory.getLogger(InferenceService.class);
 
@@ -59,15 +67,20 @@ public class InferenceService extends AbstractServiceAdaptor<Map, Map> {
     @Value("${proxy.grpc.inference.async.timeout:3000}")
     private int asyncTimeout;
 
+    private TaggedMetric<ICounter> serviceCounter;
+
+    @Override
+    public void afterPropertiesSet() {
+        serviceCounter = metricFactory.taggedCounter("http.inference.service", "in doService", "callName", "direction", "result");
+    }
+
     @Override
-    public Map doService(Context context, InboundPackage<Map> data, OutboundPackage<Map> outboundPackage) {
+    public ListenableFuture<Map> doServiceAsync(Context context, InboundPackage<Map> data, OutboundPackage<Map> outboundPackage) {
 
-        Map resultMap = Maps.newHashMap();
         RouterInfo routerInfo = data.getRouterInfo();
 
         ManagedChannel managedChannel = null;
 
-        String resultString = null;
         String callName = context.getCallName();
         ListenableFuture<InferenceServiceProto.InferenceMessage> resultFuture;
 
@@ -90,49 +103,62 @@ public class InferenceService extends AbstractServiceAdaptor<Map, Map> {
         inferenceReqMap.putAll(reqHeadMap);
         inferenceReqMap.putAll(reqBodyMap);
 
-        int timeWait = timeout;
-
         if (logger.isDebugEnabled()) {
-            logger.debug("inference req : {}", JSON.toJSONString(inferenceReqMap));
+            logger.debug("inference req : {}", JsonCodec.toJson(inferenceReqMap));
         }
         InferenceServiceProto.InferenceMessage.Builder reqBuilder = InferenceServiceProto.InferenceMessage.newBuilder();
-        reqBuilder.setBody(ByteString.copyFrom(JSON.toJSONString(inferenceReqMap).getBytes()));
+        reqBuilder.setBody(ByteString.copyFrom(JsonCodec.toJsonBytes(inferenceReqMap)));
 
         InferenceServiceGrpc.InferenceServiceFutureStub futureStub = InferenceServiceGrpc.newFutureStub(managedChannel);
+        int timeWait = Dict.SERVICENAME_INFERENCE.equals(callName) ? timeout : asyncTimeout;
+        futureStub = futureStub.withDeadlineAfter(timeWait, TimeUnit.MILLISECONDS);
 
-        metricFactory.counter("http.inference.service", "in doService", "callName", callName, "direction", "to.self.serving-server", "result", "success").increment();
+        serviceCounter.get(callName, "to.self.serving-server", "success").increment();
 
         if (callName.equals(Dict.SERVICENAME_INFERENCE)) {
             resultFuture = futureStub.inference(reqBuilder.build());
-            timeWait = timeout;
         } else if (callName.equals(Dict.SERVICENAME_GET_INFERENCE_RESULT)) {
             resultFuture = futureStub.getInferenceResult(reqBuilder.build());
-            timeWait = asyncTimeout;
         } else if (callName.equals(Dict.SERVICENAME_START_INFERENCE_JOB)) {
             resultFuture = futureStub.startInferenceJob(reqBuilder.build());
-            timeWait = asyncTimeout;
         } else {
             logger.error("unknown callName {}.", callName);
             throw new UnSupportMethodException();
         }
 
 
-        try {
-            InferenceServiceProto.InferenceMessage result = resultFuture.get(timeWait, TimeUnit.MILLISECONDS);
-            metricFactory.counter("http.inference.service", "in doService", "callName", callName, "direction", "from.self.serving-server", "result", "success").increment();
-            logger.info("routerinfo {} send {} result {}", routerInfo, inferenceReqMap, result);
-            resultString = new String(result.getBody().toByteArray());
-        } catch (Exception e) {
-            metricFactory.counter("http.inference.service", "in doService", "callName", callName, "direction", "from.self.serving-server", "result", "grpc.error").increment();
-            logger.error("get grpc result error", e);
-            throw new NoResultException();
-        }
-
+        String address = routerInfo.getHost() + ":" + routerInfo.getPort();
+        long callBeginTime = System.currentTimeMillis();
+        RpcStatus.beginCount(address);
+        SettableFuture<Map> resultMapFuture = SettableFuture.create();
+        Futures.addCallback(resultFuture, new FutureCallback<InferenceServiceProto.InferenceMessage>() {
+            @Override
+            public void onSuccess(InferenceServiceProto.InferenceMessage result) {
+                RpcStatus.endCount(address, System.currentTimeMillis() - callBeginTime);
+                serviceCounter.get(callName, "from.self.serving-server", "success").increment();
+                logger.info("routerinfo {} send {} result {}", routerInfo, inferenceReqMap, result);
+                String resultString = new String(result.getBody().toByteArray());
+                Map resultMap = Maps.newHashMap();
+                try {
+                    if (StringUtils.isNotEmpty(resultString)) {
+                        resultMap = JsonCodec.fromJson(resultString, Map.class);
+                    }
+                } catch (Exception e) {
+                    resultMapFuture.setException(e);
+                    return;
+                }
+                resultMapFuture.set(resultMap);
+            }
 
-        if (StringUtils.isNotEmpty(resultString)) {
-            resultMap = JSON.parseObject(resultString, Map.class);
-        }
-        return resultMap;
+            @Override
+            public void onFailure(Throwable e) {
+                RpcStatus.endCount(address, System.currentTimeMillis() - callBeginTime);
+                serviceCounter.get(callName, "from.self.serving-server", "grpc.error").increment();
+                logger.error("get grpc result error", e);
+                resultMapFuture.setException(new NoResultException());
+            }
+        }, MoreExecutors.directExecutor());
+        return resultMapFuture;
     }
 
     @Override
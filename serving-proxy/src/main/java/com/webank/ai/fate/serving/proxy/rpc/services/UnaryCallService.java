@@ -1,27 +1,41 @@
 package com.webank.ai.fate.serving.proxy.rpc.services;
 
-import com.alibaba.fastjson.JSON;
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
 import com.google.protobuf.ByteString;
-import com.webank.ai.fate.api.networking.proxy.DataTransferServiceGrpc;
 import com.webank.ai.fate.api.networking.proxy.Proxy;
+import com.webank.ai.fate.register.loadbalance.RpcStatus;
 import com.webank.ai.fate.serving.core.bean.Context;
 import com.webank.ai.fate.serving.core.bean.Dict;
 import com.webank.ai.fate.serving.core.bean.GrpcConnectionPool;
+import com.webank.ai.fate.serving.core.breaker.CircuitBreakerOpenException;
+import com.webank.ai.fate.serving.core.breaker.CircuitBreakerRegistry;
+import com.webank.ai.fate.serving.core.exceptions.DeadlineExceededException;
 import com.webank.ai.fate.serving.core.exceptions.ErrorCode;
+import com.webank.ai.fate.serving.core.exceptions.NoResultException;
 import com.webank.ai.fate.serving.core.rpc.core.AbstractServiceAdaptor;
 import com.webank.ai.fate.serving.core.rpc.core.InboundPackage;
 import com.webank.ai.fate.serving.core.rpc.core.OutboundPackage;
 import com.webank.ai.fate.serving.core.rpc.core.ProxyService;
 import com.webank.ai.fate.serving.core.rpc.router.RouterInfo;
+import com.webank.ai.fate.serving.core.utils.DeadlineUtils;
+import com.webank.ai.fate.serving.core.utils.JsonCodec;
+import com.webank.ai.fate.serving.metrics.api.ICounter;
 import com.webank.ai.fate.serving.metrics.api.IMetricFactory;
 
 
+import com.webank.ai.fate.serving.proxy.rpc.grpc.PassthroughMarshaller;
 import com.webank.ai.fate.serving.proxy.security.AuthUtils;
+import io.grpc.CallOptions;
 import io.grpc.ManagedChannel;
+import io.grpc.stub.ClientCalls;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
@@ -42,7 +56,7 @@ import java.util.concurrent.TimeUnit;
        "defaultAuthentication",
         "defaultServingRouter"})
 
-public class UnaryCallService extends AbstractServiceAdaptor<Proxy.Packet, Proxy.Packet> {
+public class UnaryCallService extends AbstractServiceAdaptor<Proxy.Packet, Proxy.Packet> implements InitializingBean {
     @Autowired
     IMetricFactory metricFactory;
 
@@ -55,46 +69,104 @@ public class UnaryCallService extends AbstractServiceAdaptor<Proxy.Packet, Proxy
     @Value("${proxy.grpc.unaryCall.timeout:3000}")
     private  int  timeout;
 
-    Logger logger  = LoggerFactory.getLogger(UnaryCallService.class);
+    @Value("${circuitBreaker.enable:true}")
+    private boolean circuitBreakerEnable;
 
-    static  final  String  RETURN_CODE= "retcode";
+    @Value("${circuitBreaker.failureRateThreshold:0.5}")
+    private double failureRateThreshold;
 
-    @Override
-    public Proxy.Packet doService(Context context, InboundPackage<Proxy.Packet> data, OutboundPackage<Proxy.Packet> outboundPackage) {
+    @Value("${circuitBreaker.slowCallRateThreshold:0.8}")
+    private double slowCallRateThreshold;
 
-        RouterInfo routerInfo = data.getRouterInfo();
-        ManagedChannel managedChannel = null;
-        try {
-            Proxy.Packet  sourcePackage = data.getBody();
-            sourcePackage = authUtils.addAuthInfo(sourcePackage);
+    @Value("${circuitBreaker.slowCallDuration:3000}")
+    private long slowCallDuration;
 
-            managedChannel =   grpcConnectionPool.getManagedChannel(routerInfo.getHost(), routerInfo.getPort());
-            DataTransferServiceGrpc.DataTransferServiceFutureStub stub1 = DataTransferServiceGrpc.newFutureStub(managedChannel);
+    @Value("${circuitBreaker.minimumCalls:20}")
+    private int minimumCalls;
 
-            stub1.withDeadlineAfter(timeout, TimeUnit.MILLISECONDS);
+    @Value("${circuitBreaker.openDuration:5000}")
+    private long openDuration;
 
-            metricFactory.counter("grpc.unaryCall.service", "in doService", "direction", "out", "result", "success").increment();
+    private CircuitBreakerRegistry circuitBreakerRegistry;
 
-            context.setDownstreamBegin(System.currentTimeMillis());
+    private ICounter outCounter;
 
-            ListenableFuture<Proxy.Packet> future= stub1.unaryCall(sourcePackage);
+    private ICounter inSuccessCounter;
 
-            Proxy.Packet packet = future.get(timeout,TimeUnit.MILLISECONDS);
+    private ICounter inErrorCounter;
 
-            metricFactory.counter("grpc.unaryCall.service", "in doService", "direction", "in", "result", "success").increment();
+    Logger logger  = LoggerFactory.getLogger(UnaryCallService.class);
 
-            return  packet;
+    static  final  String  RETURN_CODE= "retcode";
 
-        } catch (Exception e) {
-            metricFactory.counter("grpc.unaryCall.service", "in doService", "direction", "in", "result", "error").increment();
+    @Override
+    public void afterPropertiesSet() {
+        circuitBreakerRegistry = new CircuitBreakerRegistry(circuitBreakerEnable, failureRateThreshold, slowCallRateThreshold,
+                slowCallDuration, minimumCalls, openDuration);
+        outCounter = metricFactory.counter("grpc.unaryCall.service", "in doService", "direction", "out", "result", "success");
+        inSuccessCounter = metricFactory.counter("grpc.unaryCall.service", "in doService", "direction", "in", "result", "success");
+        inErrorCounter = metricFactory.counter("grpc.unaryCall.service", "in doService", "direction", "in", "result", "error");
+    }
+
+    @Override
+    public ListenableFuture<Proxy.Packet> doServiceAsync(Context context, InboundPackage<Proxy.Packet> data, OutboundPackage<Proxy.Packet> outboundPackage) {
 
-            e.printStackTrace();
+        if (DeadlineUtils.isExpired(context.getDeadline())) {
+            logger.warn("unaryCall expired before it was forwarded");
+            throw new DeadlineExceededException();
+        }
+        RouterInfo routerInfo = data.getRouterInfo();
+        SettableFuture<Proxy.Packet> resultFuture = SettableFuture.create();
+        Proxy.Packet  sourcePackage;
+        ManagedChannel managedChannel;
+        try {
+            sourcePackage = authUtils.addAuthInfo(data.getBody());
+            managedChannel =   grpcConnectionPool.getManagedChannel(routerInfo.getHost(), routerInfo.getPort());
+        } catch (Exception e) {
             logger.error("unaryCall error ",e);
-        }finally {
-            long  end =  System.currentTimeMillis();
-            context.setDownstreamCost(end - context.getDownstreamBegin());
+            throw new NoResultException();
         }
-        return  null;
+
+        outCounter.increment();
+
+        context.setDownstreamBegin(System.currentTimeMillis());
+
+        String address = routerInfo.getHost() + ":" + routerInfo.getPort();
+        String dstPartyId = sourcePackage.getHeader().getDst().getPartyId();
+        long callTimeout = DeadlineUtils.timeout(context.getDeadline(), timeout);
+        ListenableFuture<Proxy.Packet> future = circuitBreakerRegistry.call(dstPartyId, address, callTimeout < timeout, () -> {
+            RpcStatus.beginCount(address);
+            return ClientCalls.futureUnaryCall(managedChannel.newCall(PassthroughMarshaller.UNARY_CALL_METHOD,
+                    CallOptions.DEFAULT.withDeadlineAfter(callTimeout, TimeUnit.MILLISECONDS)), sourcePackage);
+        });
+        Futures.addCallback(future, new FutureCallback<Proxy.Packet>() {
+            @Override
+            public void onSuccess(Proxy.Packet packet) {
+                downstreamEnd(context, address);
+                inSuccessCounter.increment();
+                resultFuture.set(packet);
+            }
+
+            @Override
+            public void onFailure(Throwable e) {
+                if (e instanceof CircuitBreakerOpenException) {
+                    logger.warn("unaryCall to {} rejected, {}", address, e.getMessage());
+                    resultFuture.setException(e);
+                    return;
+                }
+                downstreamEnd(context, address);
+                inErrorCounter.increment();
+                logger.error("unaryCall error ",e);
+                resultFuture.setException(new NoResultException());
+            }
+        }, MoreExecutors.directExecutor());
+        return resultFuture;
+    }
+
+    private void downstreamEnd(Context context, String address) {
+        long cost = System.currentTimeMillis() - context.getDownstreamBegin();
+        RpcStatus.endCount(address, cost);
+        context.setDownstreamCost(cost);
     }
 
     @Override
@@ -104,7 +176,7 @@ public class UnaryCallService extends AbstractServiceAdaptor<Proxy.Packet, Proxy
         Map  fateMap = Maps.newHashMap();
         fateMap.put("retcode",transformErrorCode(data.get(Dict.CODE).toString()));
         fateMap.put("retmsg",data.get(Dict.MESSAGE));
-        builder.setBody(dataBuilder.setValue(ByteString.copyFromUtf8(JSON.toJSONString(fateMap))));
+        builder.setBody(dataBuilder.setValue(ByteString.copyFrom(JsonCodec.toJsonBytes(fateMap))));
         return builder.build();
     }
 
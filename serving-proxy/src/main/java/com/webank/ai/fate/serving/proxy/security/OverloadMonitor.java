@@ -1,38 +1,58 @@
 package com.webank.ai.fate.serving.proxy.security;
 
-import com.alibaba.csp.sentinel.Entry;
-import com.alibaba.csp.sentinel.SphU;
-import com.alibaba.csp.sentinel.slots.block.BlockException;
 import com.webank.ai.fate.serving.core.bean.Context;
+import com.webank.ai.fate.serving.core.bean.Dict;
+import com.webank.ai.fate.serving.core.exceptions.OverLoadException;
+import com.webank.ai.fate.serving.core.limit.GradientConcurrencyLimiter;
 import com.webank.ai.fate.serving.core.rpc.core.InboundPackage;
 import com.webank.ai.fate.serving.core.rpc.core.Interceptor;
 import com.webank.ai.fate.serving.core.rpc.core.OutboundPackage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 /**
- * @Description TODO
- * @Author
+ * adaptive concurrency limit per service, see GradientConcurrencyLimiter.
+ * the token is kept in the context and released by AbstractServiceAdaptor once the call is done
  **/
 @Service
 public class OverloadMonitor implements Interceptor{
     Logger logger = LoggerFactory.getLogger(OverloadMonitor.class);
 
+    @Value("${concurrencyLimit.enable:true}")
+    private boolean enable;
+
+    @Value("${concurrencyLimit.initial:100}")
+    private int initialLimit;
+
+    @Value("${concurrencyLimit.min:10}")
+    private int minLimit;
+
+    @Value("${concurrencyLimit.max:1000}")
+    private int maxLimit;
+
+    @Value("${concurrencyLimit.rttTolerance:2.0}")
+    private double rttTolerance;
+
+    private final ConcurrentMap<String, GradientConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+
     @Override
     public void doPreProcess(Context context, InboundPackage inboundPackage, OutboundPackage outboundPackage) throws Exception {
-        Entry entry = null;
-        try {
-            entry=  SphU.entry(context.getServiceName());
-        } catch (BlockException ex){
-            logger.warn("request was block by overload monitor, serviceName:{}.", context.getServiceName());
-            throw ex;
+        if (!enable) {
+            return;
         }
-        finally {
-            if (entry != null) {
-                entry.exit();
-            }
+        GradientConcurrencyLimiter limiter = limiters.computeIfAbsent(context.getServiceName(),
+                serviceName -> new GradientConcurrencyLimiter(serviceName, initialLimit, minLimit, maxLimit, rttTolerance));
+        GradientConcurrencyLimiter.Token token = limiter.tryAcquire();
+        if (token == null) {
+            logger.warn("request was block by overload monitor, serviceName:{}, limit:{}.", context.getServiceName(), limiter.getLimit());
+            throw new OverLoadException("concurrency limit " + limiter.getLimit() + " reached");
         }
+        context.putData(Dict.CONCURRENCY_LIMIT_TOKEN, token);
     }
 
     @Override
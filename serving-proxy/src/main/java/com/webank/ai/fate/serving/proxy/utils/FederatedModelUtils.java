@@ -1,11 +1,13 @@
 package com.webank.ai.fate.serving.proxy.utils;
 
-import com.alibaba.fastjson.JSON;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.webank.ai.fate.api.networking.federated.FederatedInferenceProto;
 import com.webank.ai.fate.api.networking.proxy.Proxy;
-import com.webank.ai.fate.serving.core.bean.EncryptMethod;
+import com.webank.ai.fate.serving.core.bean.Dict;
 import com.webank.ai.fate.serving.core.bean.HostFederatedParams;
 import com.webank.ai.fate.serving.core.bean.ModelInfo;
-import com.webank.ai.fate.serving.core.utils.EncryptUtils;
+import com.webank.ai.fate.serving.core.manager.FederatedUtils;
+import com.webank.ai.fate.serving.core.utils.JsonCodec;
 import org.apache.commons.lang3.StringUtils;
 
 import java.util.Arrays;
@@ -18,13 +20,32 @@ public class FederatedModelUtils {
         return StringUtils.join(Arrays.asList(name, namespace), MODEL_KEY_SEPARATOR);
     }
 
+    /**
+     * the header carries the key for senders that set it, older ones only have it in the body
+     */
     public static String getModelRouteKey(Proxy.Packet  packet) {
-        String data = packet.getBody().getValue().toStringUtf8();
-        HostFederatedParams requestData = JSON.parseObject(data, HostFederatedParams.class);
-        ModelInfo partnerModelInfo = requestData.getPartnerModelInfo();
-        String key =genModelKey(partnerModelInfo.getName(), partnerModelInfo.getNamespace());
-        String md5Key = EncryptUtils.encrypt(key, EncryptMethod.MD5);
-        return md5Key;
+        String modelRouteKey = packet.getHeader().getModelRouteKey();
+        if (StringUtils.isNotEmpty(modelRouteKey)) {
+            return modelRouteKey;
+        }
+        String name;
+        String namespace;
+        if (Dict.FEDERATED_PAYLOAD_PROTOBUF.equals(packet.getBody().getKey())) {
+            FederatedInferenceProto.ModelInfo partnerModelInfo;
+            try {
+                partnerModelInfo = FederatedInferenceProto.FederatedInferenceRequest.parseFrom(packet.getBody().getValue()).getPartnerModelInfo();
+            } catch (InvalidProtocolBufferException e) {
+                throw new IllegalArgumentException(e);
+            }
+            name = partnerModelInfo.getName();
+            namespace = partnerModelInfo.getNamespace();
+        } else {
+            HostFederatedParams requestData = JsonCodec.fromJson(packet.getBody().getValue().toByteArray(), HostFederatedParams.class);
+            ModelInfo partnerModelInfo = requestData.getPartnerModelInfo();
+            name = partnerModelInfo.getName();
+            namespace = partnerModelInfo.getNamespace();
+        }
+        return FederatedUtils.modelRouteKey(name, namespace);
     }
 
 
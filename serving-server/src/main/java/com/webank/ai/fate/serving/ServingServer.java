@@ -17,9 +17,9 @@
 package com.webank.ai.fate.serving;
 
 import com.codahale.metrics.ConsoleReporter;
+import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.jmx.JmxReporter;
 import com.google.common.collect.Sets;
-import com.webank.ai.fate.register.common.NamedThreadFactory;
 import com.webank.ai.fate.register.provider.FateServer;
 import com.webank.ai.fate.register.provider.FateServerBuilder;
 import com.webank.ai.fate.register.router.RouterService;
@@ -31,6 +31,7 @@ import com.webank.ai.fate.serving.core.bean.Configuration;
 import com.webank.ai.fate.serving.core.bean.Dict;
 import com.webank.ai.fate.serving.federatedml.model.BaseModel;
 import com.webank.ai.fate.serving.manager.InferenceWorkerManager;
+import com.webank.ai.fate.serving.manager.InferenceWorkerPool;
 import com.webank.ai.fate.serving.service.*;
 import com.webank.ai.fate.serving.utils.HttpClientPool;
 import io.grpc.Server;
@@ -44,7 +45,7 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.context.ApplicationContext;
 
 import java.io.File;
-import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.*;
 
@@ -104,9 +105,12 @@ public class ServingServer implements InitializingBean {
         Integer corePoolSize = Configuration.getPropertyInt("serving.core.pool.size", processors);
         Integer maxPoolSize = Configuration.getPropertyInt("serving.max.pool.size", processors * 2);
         Integer aliveTime = Configuration.getPropertyInt("serving.pool.alive.time", 1000);
-        Integer queueSize = Configuration.getPropertyInt("serving.pool.queue.size", 10);
-        Executor executor = new ThreadPoolExecutor(corePoolSize, maxPoolSize, aliveTime.longValue(), TimeUnit.MILLISECONDS,
-                new SynchronousQueue(), new NamedThreadFactory("ServingServer", true));
+        Integer queueSize = Configuration.getPropertyInt("serving.pool.queue.size", 1000);
+        // grpc threads only decode and hand inference over to the workload pools of InferenceWorkerManager
+        InferenceWorkerPool executor = new InferenceWorkerPool("ServingServer", corePoolSize, maxPoolSize, aliveTime.longValue(), queueSize);
+        MetricRegistry metricRegistry = applicationContext.getBean(MetricRegistry.class);
+        executor.registerMetrics(metricRegistry);
+        InferenceWorkerManager.registerMetrics(metricRegistry);
 
         FateServerBuilder serverBuilder = (FateServerBuilder) ServerBuilder.forPort(port);
         serverBuilder.keepAliveTime(100,TimeUnit.MILLISECONDS);
@@ -136,7 +140,7 @@ public class ServingServer implements InitializingBean {
                 try {
                     String serviceName = servie.serviceName();
                     String weightKey = serviceName + ".weight";
-                    HashMap properties = Configuration.getProperties();
+                    Map<String, String> properties = Configuration.getProperties();
                     if (properties.get(weightKey) != null) {
                         int weight = Integer.valueOf(properties.get(weightKey).toString());
                         if (weight > 0) {
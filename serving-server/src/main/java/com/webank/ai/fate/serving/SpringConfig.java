@@ -6,10 +6,12 @@ import com.codahale.metrics.Counter;
 import com.codahale.metrics.Meter;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.jmx.JmxReporter;
+import com.webank.ai.fate.register.loadbalance.LoadBalanceModel;
 import com.webank.ai.fate.register.router.DefaultRouterService;
 import com.webank.ai.fate.register.router.RouterService;
 import com.webank.ai.fate.register.zookeeper.ZookeeperRegistry;
 import com.webank.ai.fate.serving.core.bean.Dict;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.ConfigurationProperties;
@@ -79,6 +81,10 @@ public class SpringConfig {
     RouterService getRouterService() {
         DefaultRouterService routerService = new DefaultRouterService();
         routerService.setRegistry(zookeeperRegistry);
+        String loadBalance = com.webank.ai.fate.serving.core.bean.Configuration.getProperty(Dict.PROPERTY_ROUTER_LOAD_BALANCE);
+        if (StringUtils.isNotEmpty(loadBalance)) {
+            routerService.setLoadBalanceModel(LoadBalanceModel.valueOf(loadBalance));
+        }
         return routerService;
     }
 
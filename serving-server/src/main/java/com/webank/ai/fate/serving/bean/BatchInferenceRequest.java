@@ -0,0 +1,64 @@
+/*
+ * Copyright 2019 The FATE Authors. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.webank.ai.fate.serving.bean;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class BatchInferenceRequest extends InferenceRequest {
+    private List<Map<String, Object>> batchFeatureData;
+    private List<Map<String, Object>> batchSendToRemoteFeatureData;
+
+    BatchInferenceRequest() {
+        super();
+        batchFeatureData = new ArrayList<>();
+    }
+
+    public List<Map<String, Object>> getBatchFeatureData() {
+        return batchFeatureData;
+    }
+
+    public void setBatchFeatureData(List<Map<String, Object>> batchFeatureData) {
+        this.batchFeatureData = batchFeatureData;
+    }
+
+    public List<Map<String, Object>> getBatchSendToRemoteFeatureData() {
+        return batchSendToRemoteFeatureData;
+    }
+
+    public void setBatchSendToRemoteFeatureData(List<Map<String, Object>> batchSendToRemoteFeatureData) {
+        this.batchSendToRemoteFeatureData = batchSendToRemoteFeatureData;
+    }
+
+    public int getBatchSize() {
+        return batchFeatureData != null ? batchFeatureData.size() : 0;
+    }
+
+    /**
+     * the request of one row: the model and ids of the batch with the row's caseid and features only
+     */
+    public InferenceRequest getRowRequest(String rowCaseId, Map<String, Object> featureData, Map<String, Object> sendToRemoteFeatureData) {
+        InferenceRequest rowRequest = new InferenceRequest(getSeqno(), rowCaseId, featureData, sendToRemoteFeatureData);
+        rowRequest.setAppid(getAppid());
+        rowRequest.setModelId(getModelId());
+        rowRequest.setModelVersion(getModelVersion());
+        rowRequest.setServiceId(getServiceId());
+        rowRequest.setApplyId(getApplyId());
+        return rowRequest;
+    }
+}
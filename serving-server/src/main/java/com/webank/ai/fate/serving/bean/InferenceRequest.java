@@ -70,6 +70,13 @@ public class InferenceRequest implements Request {
         sendToRemoteFeatureData = new HashMap<>();
     }
 
+    InferenceRequest(String seqno, String caseid, Map<String, Object> featureData, Map<String, Object> sendToRemoteFeatureData) {
+        this.seqno = seqno;
+        this.caseid = caseid;
+        this.featureData = featureData;
+        this.sendToRemoteFeatureData = sendToRemoteFeatureData;
+    }
+
     public void setCaseId(String caseId) {
         this.caseid = caseId;
     }
@@ -16,17 +16,23 @@
 
 package com.webank.ai.fate.serving.guest;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.webank.ai.fate.serving.adapter.processing.PostProcessing;
 import com.webank.ai.fate.serving.adapter.processing.PreProcessing;
+import com.webank.ai.fate.serving.bean.BatchInferenceRequest;
+import com.webank.ai.fate.serving.bean.BatchInferenceResult;
 import com.webank.ai.fate.serving.bean.InferenceRequest;
 import com.webank.ai.fate.serving.bean.ModelNamespaceData;
 import com.webank.ai.fate.serving.bean.PostProcessingResult;
 import com.webank.ai.fate.serving.bean.PreProcessingResult;
 import com.webank.ai.fate.serving.core.bean.*;
 import com.webank.ai.fate.serving.core.constant.InferenceRetCode;
+import com.webank.ai.fate.serving.core.utils.JsonCodec;
 import com.webank.ai.fate.serving.core.utils.ObjectTransform;
 import com.webank.ai.fate.serving.federatedml.PipelineTask;
 import com.webank.ai.fate.serving.interfaces.ModelManager;
@@ -39,12 +45,15 @@ import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Service
 public class DefaultGuestInferenceProvider implements GuestInferenceProvider, InitializingBean {
     private static final Logger logger = LoggerFactory.getLogger(DefaultGuestInferenceProvider.class);
+    private final ConfigValue<Integer> batchInferenceMax = ConfigValue.ofInt(Dict.PROPERTY_BATCH_INFERENCE_MAX, 500);
     @Autowired
     ModelManager modelManager;
     @Autowired
@@ -56,7 +65,7 @@ public class DefaultGuestInferenceProvider implements GuestInferenceProvider, In
 
 
     private static void logInference(Context context, InferenceRequest inferenceRequest, ModelNamespaceData modelNamespaceData, ReturnResult inferenceResult, long elapsed, boolean getRemotePartyResult, boolean billing) {
-        InferenceUtils.logInference(context, FederatedInferenceType.INITIATED, modelNamespaceData.getLocal(), modelNamespaceData.getRole(), inferenceRequest.getCaseid(), inferenceRequest.getSeqno(), inferenceResult.getRetcode(), elapsed, getRemotePartyResult, billing, new ObjectMapper().convertValue(inferenceRequest, HashMap.class), inferenceResult);
+        InferenceUtils.logInference(context, FederatedInferenceType.INITIATED, modelNamespaceData.getLocal(), modelNamespaceData.getRole(), inferenceRequest.getCaseid(), inferenceRequest.getSeqno(), inferenceResult.getRetcode(), elapsed, getRemotePartyResult, billing, JsonCodec.convertValue(inferenceRequest, HashMap.class), inferenceResult);
     }
 
     private static void logInference(Context context, Map<String, Object> federatedParams, FederatedParty federatedParty, FederatedRoles federatedRoles, ReturnResult inferenceResult, long elapsed, boolean getRemotePartyResult, boolean billing) {
@@ -64,54 +73,33 @@ public class DefaultGuestInferenceProvider implements GuestInferenceProvider, In
     }
 
     public ReturnResult runInference(Context context, InferenceRequest inferenceRequest) {
-        long startTime = System.currentTimeMillis();
+        return Futures.getUnchecked(runInferenceAsync(context, inferenceRequest));
+    }
+
+    public ListenableFuture<ReturnResult> runInferenceAsync(Context context, InferenceRequest inferenceRequest) {
 
         context.setCaseId(inferenceRequest.getCaseid());
         ReturnResult inferenceResult = new ReturnResult();
         inferenceResult.setCaseid(inferenceRequest.getCaseid());
-        String modelName = inferenceRequest.getModelVersion();
-        String modelNamespace = inferenceRequest.getModelId();
         String serviceId = inferenceRequest.getServiceId();
         context.setServiceId(serviceId);
         context.setApplyId(inferenceRequest.getApplyId());
-        String modelKey = "";
-        if (StringUtils.isEmpty(modelNamespace)&& StringUtils.isEmpty(modelName) ) {
-            if(StringUtils.isNotEmpty(inferenceRequest.getServiceId())){
-                modelKey = modelManager.getModelNamespaceByPartyId(context,inferenceRequest.getServiceId());
-            }
-
-            if (StringUtils.isEmpty(modelKey)) {
-                inferenceResult.setRetcode(InferenceRetCode.LOAD_MODEL_FAILED + 1000);
-                return inferenceResult;
-            }
-            String[]  modelKeyElement = modelKey.split(":");
-            Preconditions.checkArgument(modelKeyElement!=null&&modelKeyElement.length==2);
-            modelName = modelKeyElement[1];
-            modelNamespace = modelKeyElement[0];
-
-//            else if(inferenceRequest.haveAppId()) {
-//                modelKey = modelManager.getModelNamespaceByPartyId(context,inferenceRequest.getAppid());
-//            }
+        String[] modelNameAndNamespace = getModelNameAndNamespace(context, inferenceRequest);
+        if (modelNameAndNamespace == null) {
+            inferenceResult.setRetcode(InferenceRetCode.LOAD_MODEL_FAILED + 1000);
+            return Futures.immediateFuture(inferenceResult);
         }
-
-
+        String modelName = modelNameAndNamespace[0];
+        String modelNamespace = modelNameAndNamespace[1];
 
         ModelNamespaceData modelNamespaceData = modelManager.getModelNamespaceData(context,modelNamespace);
         PipelineTask model;
-//        if (StringUtils.isEmpty(modelName)) {
-//            modelName = modelNamespaceData.getUsedModelName();
-//            model = modelNamespaceData.getUsedModel();
-//        } else {
-//            model = modelManager.getModel(context,modelName, modelNamespace);
-//        }
-        Preconditions.checkArgument(StringUtils.isNotEmpty(modelName));
-        Preconditions.checkArgument(StringUtils.isNotEmpty(modelNamespace));
         Preconditions.checkArgument(modelNamespaceData!=null);
         model =  modelManager.getModel(context,modelName, modelNamespace);
 
         if (model == null) {
             inferenceResult.setRetcode(InferenceRetCode.LOAD_MODEL_FAILED + 1000);
-            return inferenceResult;
+            return Futures.immediateFuture(inferenceResult);
         }
 
         if (logger.isDebugEnabled()) {
@@ -123,7 +111,7 @@ public class DefaultGuestInferenceProvider implements GuestInferenceProvider, In
         if (rawFeatureData == null) {
             inferenceResult.setRetcode(InferenceRetCode.EMPTY_DATA + 1000);
             inferenceResult.setRetmsg("Can not parse data json.");
-            return inferenceResult;
+            return Futures.immediateFuture(inferenceResult);
         }
 
         PreProcessingResult preProcessingResult;
@@ -134,22 +122,62 @@ public class DefaultGuestInferenceProvider implements GuestInferenceProvider, In
             logger.error("feature data preprocessing failed", ex);
             inferenceResult.setRetcode(InferenceRetCode.INVALID_FEATURE + 1000);
             inferenceResult.setRetmsg(ex.getMessage());
-            return inferenceResult;
+            return Futures.immediateFuture(inferenceResult);
         }
         Map<String, Object> featureData = preProcessingResult.getProcessingResult();
         Map<String, Object> featureIds = preProcessingResult.getFeatureIds();
         if (featureData == null) {
             inferenceResult.setRetcode(InferenceRetCode.NUMERICAL_ERROR + 1000);
             inferenceResult.setRetmsg("Can not preprocessing data");
-            return inferenceResult;
+            return Futures.immediateFuture(inferenceResult);
         }
-        Map<String, Object> predictParams = new HashMap<>(8);
         Map<String, Object> modelFeatureData = Maps.newHashMap(featureData);
+        FederatedParams federatedParams = buildFederatedParams(inferenceRequest, inferenceRequest.getCaseid(), inferenceRequest.getSendToRemoteFeatureData(), featureIds, modelName, modelNamespace, modelNamespaceData);
+        return Futures.transform(model.predictAsync(context, modelFeatureData, federatedParams), modelResult -> {
+            ReturnResult returnResult = inferenceResult;
+            try {
+                PostProcessingResult postProcessingResult = getPostProcessedResult(context, featureData, modelResult);
+                returnResult = postProcessingResult.getProcessingResult();
+            } catch (Exception ex) {
+                logger.error("model result postprocessing failed", ex);
+                if(returnResult!=null) {
+                    returnResult.setRetcode(InferenceRetCode.COMPUTE_ERROR);
+                    returnResult.setRetmsg(ex.getMessage());
+                }
+            }
+            return handleResult(context, inferenceRequest, modelNamespaceData, returnResult);
+        }, MoreExecutors.directExecutor());
+    }
+
+    private String[] getModelNameAndNamespace(Context context, InferenceRequest inferenceRequest) {
+        String modelName = inferenceRequest.getModelVersion();
+        String modelNamespace = inferenceRequest.getModelId();
+        if (StringUtils.isEmpty(modelNamespace)&& StringUtils.isEmpty(modelName) ) {
+            String modelKey = "";
+            if(StringUtils.isNotEmpty(inferenceRequest.getServiceId())){
+                modelKey = modelManager.getModelNamespaceByPartyId(context,inferenceRequest.getServiceId());
+            }
+
+            if (StringUtils.isEmpty(modelKey)) {
+                return null;
+            }
+            String[]  modelKeyElement = modelKey.split(":");
+            Preconditions.checkArgument(modelKeyElement!=null&&modelKeyElement.length==2);
+            modelName = modelKeyElement[1];
+            modelNamespace = modelKeyElement[0];
+        }
+        Preconditions.checkArgument(StringUtils.isNotEmpty(modelName));
+        Preconditions.checkArgument(StringUtils.isNotEmpty(modelNamespace));
+        return new String[]{modelName, modelNamespace};
+    }
+
+    private FederatedParams buildFederatedParams(InferenceRequest inferenceRequest, String caseId, Map<String, Object> sendToRemoteFeatureData, Map<String, Object> featureIds,
+                                                 String modelName, String modelNamespace, ModelNamespaceData modelNamespaceData) {
         FederatedParams federatedParams = new FederatedParams();
-        if(inferenceRequest.getSendToRemoteFeatureData()!=null&&federatedParams.getFeatureIdMap()!=null) {
-            federatedParams.getFeatureIdMap().putAll(inferenceRequest.getSendToRemoteFeatureData());
+        if(sendToRemoteFeatureData!=null&&federatedParams.getFeatureIdMap()!=null) {
+            federatedParams.getFeatureIdMap().putAll(sendToRemoteFeatureData);
         }
-        federatedParams.setCaseId(inferenceRequest.getCaseid());
+        federatedParams.setCaseId(caseId);
         federatedParams.setSeqNo(inferenceRequest.getSeqno());
         federatedParams.setLocal(modelNamespaceData.getLocal());
         federatedParams.setModelInfo(new ModelInfo(modelName, modelNamespace));
@@ -157,21 +185,7 @@ public class DefaultGuestInferenceProvider implements GuestInferenceProvider, In
         if(featureIds!=null&&featureIds.size()>0) {
             federatedParams.getFeatureIdMap().putAll(featureIds);
         }
-        Map<String, Object> modelResult = model.predict(context, modelFeatureData, federatedParams);
-        PostProcessingResult postProcessingResult;
-        try {
-            postProcessingResult = getPostProcessedResult(context, featureData, modelResult);
-            inferenceResult = postProcessingResult.getProcessingResult();
-        } catch (Exception ex) {
-            logger.error("model result postprocessing failed", ex);
-            if(inferenceResult!=null) {
-                inferenceResult.setRetcode(InferenceRetCode.COMPUTE_ERROR);
-                inferenceResult.setRetmsg(ex.getMessage());
-            }
-        }
-        inferenceResult = handleResult(context, inferenceRequest, modelNamespaceData, inferenceResult);
-
-        return inferenceResult;
+        return federatedParams;
     }
 
     private ReturnResult handleResult(Context context, InferenceRequest inferenceRequest, ModelNamespaceData modelNamespaceData, ReturnResult inferenceResult) {
@@ -237,29 +251,23 @@ public class DefaultGuestInferenceProvider implements GuestInferenceProvider, In
 
     @Override
     public ReturnResult syncInference(Context context, InferenceRequest inferenceRequest) {
-        long inferenceBeginTime = System.currentTimeMillis();
+        return Futures.getUnchecked(inferenceAsync(context, inferenceRequest));
+    }
+
+    @Override
+    public ListenableFuture<ReturnResult> inferenceAsync(Context context, InferenceRequest inferenceRequest) {
         ReturnResult cacheResult = getReturnResultFromCache(context, inferenceRequest);
 
         if (cacheResult != null) {
-            return cacheResult;
+            return Futures.immediateFuture(cacheResult);
         }
 
-        ReturnResult inferenceResultFromCache = cacheManager.getInferenceResultCache(inferenceRequest.getAppid(), inferenceRequest.getCaseid());
-
-        if (logger.isDebugEnabled()) {
-            logger.debug("caseid {} query cache cost {}", inferenceRequest.getCaseid(), System.currentTimeMillis() - inferenceBeginTime);
-        }
-        if (inferenceResultFromCache != null) {
-            logger.info("request caseId {} cost time {}  hit cache true", inferenceRequest.getCaseid(), System.currentTimeMillis() - inferenceBeginTime);
-            return inferenceResultFromCache;
-        }
-
-        ReturnResult inferenceResult = runInference(context, inferenceRequest);
-        if (inferenceResult != null && inferenceResult.getRetcode() == 0) {
-            cacheManager.putInferenceResultCache(context, inferenceRequest.getAppid(), inferenceRequest.getCaseid(), inferenceResult);
-        }
-
-        return inferenceResult;
+        return Futures.transform(runInferenceAsync(context, inferenceRequest), inferenceResult -> {
+            if (inferenceResult != null && inferenceResult.getRetcode() == 0) {
+                cacheManager.putInferenceResultCache(context, inferenceRequest.getAppid(), inferenceRequest.getCaseid(), inferenceResult);
+            }
+            return inferenceResult;
+        }, MoreExecutors.directExecutor());
     }
 
 
@@ -323,6 +331,112 @@ public class DefaultGuestInferenceProvider implements GuestInferenceProvider, In
 
     }
 
+    @Override
+    public BatchInferenceResult batchInference(Context context, BatchInferenceRequest batchInferenceRequest) {
+        context.setCaseId(batchInferenceRequest.getCaseid());
+        context.setServiceId(batchInferenceRequest.getServiceId());
+        context.setApplyId(batchInferenceRequest.getApplyId());
+        BatchInferenceResult batchInferenceResult = new BatchInferenceResult();
+        batchInferenceResult.setCaseid(batchInferenceRequest.getCaseid());
+
+        int batchSize = batchInferenceRequest.getBatchSize();
+        if (batchSize == 0) {
+            batchInferenceResult.setRetcode(InferenceRetCode.EMPTY_DATA + 1000);
+            return batchInferenceResult;
+        }
+        int batchInferenceMax = this.batchInferenceMax.get();
+        if (batchSize > batchInferenceMax) {
+            batchInferenceResult.setRetcode(InferenceRetCode.BATCH_LIMIT_EXCEEDED + 1000);
+            batchInferenceResult.setRetmsg("batch size " + batchSize + " exceeds " + batchInferenceMax);
+            return batchInferenceResult;
+        }
+
+        String[] modelNameAndNamespace = getModelNameAndNamespace(context, batchInferenceRequest);
+        if (modelNameAndNamespace == null) {
+            batchInferenceResult.setRetcode(InferenceRetCode.LOAD_MODEL_FAILED + 1000);
+            return batchInferenceResult;
+        }
+        String modelName = modelNameAndNamespace[0];
+        String modelNamespace = modelNameAndNamespace[1];
+        ModelNamespaceData modelNamespaceData = modelManager.getModelNamespaceData(context, modelNamespace);
+        Preconditions.checkArgument(modelNamespaceData != null);
+        PipelineTask model = modelManager.getModel(context, modelName, modelNamespace);
+        if (model == null) {
+            batchInferenceResult.setRetcode(InferenceRetCode.LOAD_MODEL_FAILED + 1000);
+            return batchInferenceResult;
+        }
+
+        ReturnResult[] rowResults = new ReturnResult[batchSize];
+        List<Integer> rowIndexes = new ArrayList<>(batchSize);
+        List<Context> rowContexts = new ArrayList<>(batchSize);
+        List<InferenceRequest> rowRequests = new ArrayList<>(batchSize);
+        List<Map<String, Object>> featureDataList = new ArrayList<>(batchSize);
+        List<Map<String, Object>> modelFeatureDataList = new ArrayList<>(batchSize);
+        List<FederatedParams> federatedParamsList = new ArrayList<>(batchSize);
+        List<Map<String, Object>> batchSendToRemoteFeatureData = batchInferenceRequest.getBatchSendToRemoteFeatureData();
+
+        for (int i = 0; i < batchSize; i++) {
+            String rowCaseId = batchInferenceRequest.getCaseid() + "_" + i;
+            Context rowContext = context.subContext();
+            rowContext.setCaseId(rowCaseId);
+            Map<String, Object> rawFeatureData = batchInferenceRequest.getBatchFeatureData().get(i);
+            Map<String, Object> sendToRemoteFeatureData = batchSendToRemoteFeatureData != null && batchSendToRemoteFeatureData.size() > i ? batchSendToRemoteFeatureData.get(i) : null;
+            ReturnResult rowResult = new ReturnResult();
+            rowResult.setCaseid(rowCaseId);
+            rowResults[i] = rowResult;
+            if (rawFeatureData == null) {
+                rowResult.setRetcode(InferenceRetCode.EMPTY_DATA + 1000);
+                continue;
+            }
+            if (sendToRemoteFeatureData != null) {
+                rawFeatureData.putAll(sendToRemoteFeatureData);
+            }
+            PreProcessingResult preProcessingResult;
+            try {
+                preProcessingResult = getPreProcessingFeatureData(rowContext, rawFeatureData);
+            } catch (Exception ex) {
+                logger.error("feature data preprocessing failed", ex);
+                rowResult.setRetcode(InferenceRetCode.INVALID_FEATURE + 1000);
+                rowResult.setRetmsg(ex.getMessage());
+                continue;
+            }
+            Map<String, Object> featureData = preProcessingResult.getProcessingResult();
+            if (featureData == null) {
+                rowResult.setRetcode(InferenceRetCode.NUMERICAL_ERROR + 1000);
+                rowResult.setRetmsg("Can not preprocessing data");
+                continue;
+            }
+            // logged per row, so it holds only this row's features
+            InferenceRequest rowRequest = batchInferenceRequest.getRowRequest(rowCaseId, rawFeatureData, sendToRemoteFeatureData);
+            rowIndexes.add(i);
+            rowContexts.add(rowContext);
+            rowRequests.add(rowRequest);
+            featureDataList.add(featureData);
+            modelFeatureDataList.add(Maps.newHashMap(featureData));
+            federatedParamsList.add(buildFederatedParams(rowRequest, rowCaseId, sendToRemoteFeatureData, preProcessingResult.getFeatureIds(), modelName, modelNamespace, modelNamespaceData));
+        }
+
+        if (!rowIndexes.isEmpty()) {
+            List<Map<String, Object>> modelResults = model.predictBatch(rowContexts, modelFeatureDataList, federatedParamsList);
+            for (int k = 0; k < rowIndexes.size(); k++) {
+                Context rowContext = rowContexts.get(k);
+                ReturnResult rowResult = rowResults[rowIndexes.get(k)];
+                try {
+                    rowResult = getPostProcessedResult(rowContext, featureDataList.get(k), modelResults.get(k)).getProcessingResult();
+                } catch (Exception ex) {
+                    logger.error("model result postprocessing failed", ex);
+                    rowResult.setRetcode(InferenceRetCode.COMPUTE_ERROR);
+                    rowResult.setRetmsg(ex.getMessage());
+                }
+                rowResults[rowIndexes.get(k)] = handleResult(rowContext, rowRequests.get(k), modelNamespaceData, rowResult);
+            }
+        }
+
+        batchInferenceResult.setBatchDataList(Lists.newArrayList(rowResults));
+        batchInferenceResult.setRetcode(InferenceRetCode.OK);
+        return batchInferenceResult;
+    }
+
     @Override
     public void afterPropertiesSet() throws Exception {
 
@@ -17,6 +17,9 @@
 package com.webank.ai.fate.serving.guest;
 
 
+import com.google.common.util.concurrent.ListenableFuture;
+import com.webank.ai.fate.serving.bean.BatchInferenceRequest;
+import com.webank.ai.fate.serving.bean.BatchInferenceResult;
 import com.webank.ai.fate.serving.bean.InferenceRequest;
 import com.webank.ai.fate.serving.core.bean.Context;
 import com.webank.ai.fate.serving.core.bean.ReturnResult;
@@ -26,7 +29,11 @@ public interface GuestInferenceProvider {
 
     public ReturnResult syncInference(Context context, InferenceRequest inferenceRequest);
 
+    public ListenableFuture<ReturnResult> inferenceAsync(Context context, InferenceRequest inferenceRequest);
+
     public ReturnResult asynInference(Context context, InferenceRequest inferenceRequest);
 
     public ReturnResult getResult(Context context, InferenceRequest inferenceRequest);
+
+    public BatchInferenceResult batchInference(Context context, BatchInferenceRequest batchInferenceRequest);
 }
@@ -124,51 +124,61 @@ public class DefaultHostInferenceProvider implements HostInferenceProvider {
 
     @Override
     public ReturnResult federatedInferenceForTree(Context context, HostFederatedParams federatedParams) {
+        ReturnResult returnResult = new ReturnResult();
+        HeteroSecureBoostingTreeHost treeHost = getTreeHost(context, federatedParams, returnResult);
+        if (treeHost == null) {
+            return returnResult;
+        }
+
+        Map<String, Object> resultData = treeHost.predictSingleRound(context, (Map<String, Object>) federatedParams.getData().get(Dict.TREE_LOCATION), federatedParams);
+
+        returnResult.setRetcode(InferenceRetCode.OK);
+        returnResult.setData(resultData);
 
-        // try {
+        return returnResult;
+    }
 
+    @Override
+    public ReturnResult federatedInferenceForTreeBitmask(Context context, HostFederatedParams federatedParams) {
         ReturnResult returnResult = new ReturnResult();
-        FederatedParty party = federatedParams.getLocal();
-        FederatedRoles federatedRoles = federatedParams.getRole();
+        HeteroSecureBoostingTreeHost treeHost = getTreeHost(context, federatedParams, returnResult);
+        if (treeHost == null) {
+            return returnResult;
+        }
+
+        Map<String, Object> resultData = treeHost.predictBranchMask(context, (Map<String, Object>) federatedParams.getData().get(Dict.TREE_LOCATION), federatedParams);
+
+        returnResult.setRetcode(InferenceRetCode.OK);
+        returnResult.setData(resultData);
+
+        return returnResult;
+    }
+
+    private HeteroSecureBoostingTreeHost getTreeHost(Context context, HostFederatedParams federatedParams, ReturnResult returnResult) {
         ModelInfo partnerModelInfo = federatedParams.getPartnerModelInfo();
-        Map<String, Object> featureIds = federatedParams.getFeatureIdMap();
 
         ModelInfo modelInfo = modelManager.getModelInfoByPartner(context,partnerModelInfo.getName(), partnerModelInfo.getNamespace());
         if (modelInfo == null) {
             returnResult.setRetcode(InferenceRetCode.LOAD_MODEL_FAILED);
             returnResult.setRetmsg("Can not found model.");
-            //   logInference(context,federatedParams, party, federatedRoles, returnResult, 0, false, false);
-            return returnResult;
+            return null;
         }
 
-
         PipelineTask model = modelManager.getModel(context,modelInfo.getName(), modelInfo.getNamespace());
-
-        //   Preconditions.checkArgument(federatedParams.getData().get(Dict.TAG)!=null);
-
-        //   String  tag = federatedParams.getData().get(Dict.TAG).toString();
+        if (model == null) {
+            returnResult.setRetcode(InferenceRetCode.LOAD_MODEL_FAILED);
+            returnResult.setRetmsg("Can not found model.");
+            return null;
+        }
 
         Preconditions.checkArgument(federatedParams.getData().get(Dict.COMPONENT_NAME) != null);
 
         String componentName = federatedParams.getData().get(Dict.COMPONENT_NAME).toString();
 
-
         BaseModel baseModel = model.getModelByComponentName(componentName);
 
-        Preconditions.checkArgument(baseModel != null);
-
-        Map<String, Object> resultData = ((HeteroSecureBoostingTreeHost) baseModel).predictSingleRound(context, (Map<String, Object>) federatedParams.getData().get(Dict.TREE_LOCATION), federatedParams);
-
-        returnResult.setRetcode(InferenceRetCode.OK);
-        returnResult.setData(resultData);
-
-        return returnResult;
-//        }catch(Throwable  e){
-//
-//
-//
-//        }
-
+        Preconditions.checkArgument(baseModel instanceof HeteroSecureBoostingTreeHost);
 
+        return (HeteroSecureBoostingTreeHost) baseModel;
     }
 }
@@ -27,5 +27,7 @@ public interface HostInferenceProvider {
 
     public ReturnResult federatedInferenceForTree(Context context, HostFederatedParams federatedParams);
 
+    public ReturnResult federatedInferenceForTreeBitmask(Context context, HostFederatedParams federatedParams);
+
 
 }
@@ -10,8 +10,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
+import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 
 public abstract class AbstractModelLoader<MODELDATA> implements ModelLoader {
 
@@ -52,15 +55,18 @@ public abstract class AbstractModelLoader<MODELDATA> implements ModelLoader {
 
     protected abstract byte[] serialize(Context context, MODELDATA data);
 
-    protected abstract MODELDATA unserialize(Context context, byte[] data);
+    protected abstract MODELDATA unserialize(Context context, ByteBuffer data);
 
     protected MODELDATA restore(Context context, String name, String namespace) {
         try {
             String cachePath = getCachePath(context, name, namespace);
             if (cachePath != null) {
 
-                byte[] bytes = doRestore(new File(cachePath));
-                MODELDATA modelData = this.unserialize(context, bytes);
+                ByteBuffer buffer = doRestore(new File(cachePath));
+                if (buffer == null) {
+                    return null;
+                }
+                MODELDATA modelData = this.unserialize(context, buffer);
                 return modelData;
             }
         } catch (Throwable e) {
@@ -98,12 +104,13 @@ public abstract class AbstractModelLoader<MODELDATA> implements ModelLoader {
                     throw new IOException("Can not lock the registry cache file " + file.getAbsolutePath() + ", ignore and retry later, maybe multi java process use the file");
                 }
                 try {
-                    if (!file.exists()) {
-                        file.createNewFile();
-                    }
-                    try (FileOutputStream outputFile = new FileOutputStream(file)) {
+                    // write aside and rename, a reader that still maps the old file keeps a consistent view
+                    File tmpFile = new File(file.getAbsolutePath() + ".tmp");
+                    try (FileOutputStream outputFile = new FileOutputStream(tmpFile)) {
                         outputFile.write(data);
+                        outputFile.getFD().sync();
                     }
+                    Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
                 } finally {
                     lock.release();
                 }
@@ -113,17 +120,19 @@ public abstract class AbstractModelLoader<MODELDATA> implements ModelLoader {
         }
     }
 
-    protected byte[] doRestore(File file) {
+    protected ByteBuffer doRestore(File file) {
         if (file != null && file.exists()) {
-            try (InputStream in = new FileInputStream(file)) {
-                Long filelength = file.length();
-                byte[] filecontent = new byte[filelength.intValue()];
-                int readCount = in.read(filecontent);
-                if (readCount > 0) {
-                    return filecontent;
-                } else {
+            try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+                 FileChannel channel = raf.getChannel()) {
+                long size = channel.size();
+                if (size == 0) {
                     return null;
                 }
+                if (size > Integer.MAX_VALUE) {
+                    throw new IOException("model cache file " + file.getAbsolutePath() + " is too large to map, size " + size);
+                }
+                // the mapping stays valid after the channel is closed
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
             } catch (Throwable e) {
                 logger.error("failed to doRestore file ", e);
             }
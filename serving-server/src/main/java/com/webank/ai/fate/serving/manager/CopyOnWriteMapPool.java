@@ -0,0 +1,105 @@
+/*
+ * Copyright 2019 The FATE Authors. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.webank.ai.fate.serving.manager;
+
+
+import com.webank.ai.fate.serving.core.bean.BaseMapPool;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * readers get from an immutable snapshot without any lock, writers copy the snapshot,
+ * apply their change and publish the copy with a single volatile write.
+ * meant for maps that are read on every request and written on model pushes only
+ */
+public class CopyOnWriteMapPool<K, V> extends BaseMapPool<K, V> {
+    private volatile Map<K, V> snapshot;
+
+    public CopyOnWriteMapPool() {
+        this.snapshot = Collections.emptyMap();
+    }
+
+    public CopyOnWriteMapPool(Map<K, V> initial) {
+        this.snapshot = Collections.unmodifiableMap(new HashMap<>(initial));
+    }
+
+    /**
+     * @return the current snapshot, it never changes afterwards
+     */
+    public Map<K, V> getDataMap() {
+        return snapshot;
+    }
+
+    @Override
+    public void put(K key, V value) {
+        update(map -> map.put(key, value));
+    }
+
+    @Override
+    public void putIfAbsent(K key, V value) {
+        if (snapshot.containsKey(key)) {
+            return;
+        }
+        update(map -> map.putIfAbsent(key, value));
+    }
+
+    @Override
+    public void putAll(Map<K, V> kv) {
+        update(map -> map.putAll(kv));
+    }
+
+    public void remove(K key) {
+        if (!snapshot.containsKey(key)) {
+            return;
+        }
+        update(map -> map.remove(key));
+    }
+
+    /**
+     * applies all changes of the mutator to one copy, readers see either none or all of them
+     */
+    public synchronized void update(Consumer<Map<K, V>> mutator) {
+        Map<K, V> copy = new HashMap<>(snapshot);
+        mutator.accept(copy);
+        snapshot = Collections.unmodifiableMap(copy);
+    }
+
+    /**
+     * replaces the whole content
+     */
+    public synchronized void swap(Map<K, V> kv) {
+        snapshot = Collections.unmodifiableMap(new HashMap<>(kv));
+    }
+
+    @Override
+    public V get(K key) {
+        return snapshot.get(key);
+    }
+
+    public ArrayList<K> keys() {
+        Map<K, V> current = snapshot;
+        if (current.size() > 0) {
+            return new ArrayList<K>(current.keySet());
+        } else {
+            return null;
+        }
+    }
+}
@@ -19,6 +19,7 @@ package com.webank.ai.fate.serving.manager;
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONObject;
 import com.google.common.collect.Maps;
+import com.webank.ai.fate.api.mlmodel.cache.ModelCacheProto;
 import com.webank.ai.fate.register.router.RouterService;
 import com.webank.ai.fate.register.url.URL;
 import com.webank.ai.fate.serving.core.bean.*;
@@ -30,43 +31,120 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.nio.ByteBuffer;
 import java.util.*;
+import java.util.zip.CRC32;
 
 @Component
 public class DefaultHttpModelLoader extends   AbstractModelLoader<Map<String,byte[]>>{
     private static final Logger logger = LoggerFactory.getLogger(DefaultHttpModelLoader.class);
+    private static final int CACHE_MAGIC = 0x46534d43;
+    private static final int CACHE_VERSION = 1;
+    private static final int CACHE_HEADER_LENGTH = 12;
+    private static final int CACHE_CHECKSUM_LENGTH = 8;
 
     @Autowired
     private RouterService routerService;
 
 
+    /**
+     * cache file layout: magic | version | index length | ModelCacheIndex | component bytes | crc32 of everything before
+     */
     @Override
     protected byte[] serialize(Context context, Map<String, byte[]> data) {
-        Map<String,String> result = Maps.newHashMap();
         if(data!=null){
-            data.forEach((k,v)->{
-                    String base64String = new String(Base64.getEncoder().encode(v));
-                    result.put(k,base64String);
-            });
-
-
-            return  JSON.toJSONString(result).getBytes();
+            ModelCacheProto.ModelCacheIndex.Builder indexBuilder = ModelCacheProto.ModelCacheIndex.newBuilder();
+            indexBuilder.setTimestamp(System.currentTimeMillis());
+            long offset = 0;
+            for (Map.Entry<String, byte[]> entry : data.entrySet()) {
+                indexBuilder.addEntries(ModelCacheProto.ModelCacheEntry.newBuilder()
+                        .setName(entry.getKey())
+                        .setOffset(offset)
+                        .setLength(entry.getValue().length));
+                offset += entry.getValue().length;
+            }
+            byte[] index = indexBuilder.build().toByteArray();
+            long totalLength = CACHE_HEADER_LENGTH + index.length + offset + CACHE_CHECKSUM_LENGTH;
+            if (totalLength > Integer.MAX_VALUE) {
+                logger.error("model is too large to cache, size {}", totalLength);
+                return null;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) totalLength);
+            buffer.putInt(CACHE_MAGIC);
+            buffer.putInt(CACHE_VERSION);
+            buffer.putInt(index.length);
+            buffer.put(index);
+            for (ModelCacheProto.ModelCacheEntry entry : indexBuilder.getEntriesList()) {
+                buffer.put(data.get(entry.getName()));
+            }
+            CRC32 crc32 = new CRC32();
+            crc32.update(buffer.array(), 0, buffer.position());
+            buffer.putLong(crc32.getValue());
+            return buffer.array();
         }
         return null;
     }
 
     @Override
-    protected Map<String, byte[]> unserialize(Context context, byte[] data) {
-        Map<String,byte[]> result = Maps.newHashMap();
-        if(data !=null) {
-            String dataString = new String(data);
-            Map originData = JSON.parseObject(dataString,Map.class);
-            if(originData!=null){
-                originData.forEach((k,v)->{
-                    result.put(k.toString(),Base64.getDecoder().decode(v.toString()));
-                });
-                return  result;
+    protected Map<String, byte[]> unserialize(Context context, ByteBuffer data) {
+        if (data == null) {
+            return null;
+        }
+        int limit = data.limit();
+        if (limit < CACHE_HEADER_LENGTH + CACHE_CHECKSUM_LENGTH || data.getInt(0) != CACHE_MAGIC) {
+            return unserializeLegacy(data);
+        }
+        int version = data.getInt(4);
+        if (version != CACHE_VERSION) {
+            logger.error("unsupported model cache version {}", version);
+            return null;
+        }
+        ByteBuffer content = data.duplicate();
+        content.position(0);
+        content.limit(limit - CACHE_CHECKSUM_LENGTH);
+        CRC32 crc32 = new CRC32();
+        crc32.update(content);
+        if (crc32.getValue() != data.getLong(limit - CACHE_CHECKSUM_LENGTH)) {
+            logger.error("model cache checksum mismatch, ignore the cache file");
+            return null;
+        }
+        try {
+            int indexLength = data.getInt(8);
+            ByteBuffer indexBuffer = data.duplicate();
+            indexBuffer.position(CACHE_HEADER_LENGTH);
+            indexBuffer.limit(CACHE_HEADER_LENGTH + indexLength);
+            ModelCacheProto.ModelCacheIndex index = ModelCacheProto.ModelCacheIndex.parseFrom(indexBuffer.slice());
+            int dataStart = CACHE_HEADER_LENGTH + indexLength;
+            Map<String, byte[]> result = Maps.newHashMapWithExpectedSize(index.getEntriesCount());
+            ByteBuffer entryBuffer = data.duplicate();
+            for (ModelCacheProto.ModelCacheEntry entry : index.getEntriesList()) {
+                byte[] bytes = new byte[entry.getLength()];
+                entryBuffer.position(dataStart + (int) entry.getOffset());
+                entryBuffer.get(bytes);
+                result.put(entry.getName(), bytes);
             }
+            return result;
+        } catch (Exception e) {
+            logger.error("parse model cache error", e);
+            return null;
+        }
+    }
+
+    /**
+     * caches written before the binary container were base64 encoded json
+     */
+    private Map<String, byte[]> unserializeLegacy(ByteBuffer data) {
+        logger.info("model cache is in legacy json format");
+        byte[] bytes = new byte[data.remaining()];
+        data.duplicate().get(bytes);
+        Map<String,byte[]> result = Maps.newHashMap();
+        String dataString = new String(bytes);
+        Map originData = JSON.parseObject(dataString,Map.class);
+        if(originData!=null){
+            originData.forEach((k,v)->{
+                result.put(k.toString(),Base64.getDecoder().decode(v.toString()));
+            });
+            return  result;
         }
         return null;
     }
@@ -34,7 +34,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.io.File;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
@@ -45,12 +44,10 @@ public class DefaultModelManager implements ModelManager, InitializingBean {
     private final AtomicLong lastCacheChanged = new AtomicLong();
     @Autowired(required = false)
     ZookeeperRegistry zookeeperRegistry;
-    private Map<String, String> appNamespaceMap;
     private Map<String, FederatedParty> modelFederatedParty;
     private Map<String, FederatedRoles> modelFederatedRoles;
-    private Map<String, ModelNamespaceData> modelNamespaceDataMap;
-    private ReentrantReadWriteMapPool<String, String> appNamespaceMapPool;
-    private ReentrantReadWriteMapPool<String, ModelNamespaceData> modelNamespaceDataMapPool;
+    private CopyOnWriteMapPool<String, String> appNamespaceMapPool;
+    private CopyOnWriteMapPool<String, ModelNamespaceData> modelNamespaceDataMapPool;
     @Autowired
     private ModelCache modelCache;
     private ConcurrentHashMap<String, ModelInfo> partnerModelData;
@@ -61,13 +58,11 @@ public class DefaultModelManager implements ModelManager, InitializingBean {
 
     public DefaultModelManager() {
 
-        appNamespaceMap = new HashMap<>();
-        modelNamespaceDataMap = new HashMap<>();
-        appNamespaceMapPool = new ReentrantReadWriteMapPool<>(appNamespaceMap);
-        modelNamespaceDataMapPool = new ReentrantReadWriteMapPool<>(modelNamespaceDataMap);
+        appNamespaceMapPool = new CopyOnWriteMapPool<>();
+        modelNamespaceDataMapPool = new CopyOnWriteMapPool<>();
         partnerModelData = new ConcurrentHashMap<>();
-        modelFederatedParty = new HashMap<>();
-        modelFederatedRoles = new HashMap<>();
+        modelFederatedParty = new ConcurrentHashMap<>();
+        modelFederatedRoles = new ConcurrentHashMap<>();
 
         String filename = System.getProperty(Dict.PROPERTY_USER_HOME) + "/.fate/fate-model.cache";
         File file = null;
@@ -184,6 +179,7 @@ public class DefaultModelManager implements ModelManager, InitializingBean {
         try {
             String modelNamespace = modelInfo.getNamespace();
             String modelName = modelInfo.getName();
+            // the namespace data goes first, so a reader that finds the service id also finds its namespace
             modelNamespaceDataMapPool.put(modelNamespace, new ModelNamespaceData(modelNamespace, federatedParty, federatedRoles, modelName, model));
             //appNamespaceMapPool.put(partyId, modelNamespace);
             if (StringUtils.isNotEmpty(serviceId)) {
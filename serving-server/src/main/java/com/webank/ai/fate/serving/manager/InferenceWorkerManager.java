@@ -17,61 +17,66 @@
 package com.webank.ai.fate.serving.manager;
 
 
+import com.codahale.metrics.MetricRegistry;
+import com.webank.ai.fate.serving.core.bean.ConfigSnapshot;
 import com.webank.ai.fate.serving.core.bean.Configuration;
 import com.webank.ai.fate.serving.core.bean.Dict;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
-import java.util.concurrent.*;
-import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * one bounded pool per workload, so a burst of one kind can not starve the others:
+ * sync guest inference, async inference jobs and host side federated calls
+ */
 public class InferenceWorkerManager {
-    private static final Logger logger = LoggerFactory.getLogger(InferenceWorkerManager.class);
-    private static ThreadPoolExecutor threadPoolExecutor;
-
+    private static final InferenceWorkerPool syncInferencePool;
+    private static final InferenceWorkerPool asyncInferencePool;
+    private static final InferenceWorkerPool hostInferencePool;
 
     static {
-
         int coreNum = Runtime.getRuntime().availableProcessors();
-        LinkedBlockingQueue<Runnable> taskQueue = new LinkedBlockingQueue<>(10);
-        threadPoolExecutor = new ThreadPoolExecutor(
-                Configuration.getPropertyInt(Dict.PROPERTY_INFERENCE_WORKER_THREAD_NUM,coreNum),
-                Configuration.getPropertyInt(Dict.PROPERTY_INFERENCE_WORKER_THREAD_NUM,2*coreNum),
-                60,
-                TimeUnit.SECONDS,
-                taskQueue,
-                new InferenceWorkerThreadFactory(),
-                new InferenceWorkerThreadRejectedPolicy()
-        );
+        ConfigSnapshot config = Configuration.getSnapshot();
+        syncInferencePool = new InferenceWorkerPool("sync-inference",
+                config.getInt(Dict.PROPERTY_SYNC_INFERENCE_THREAD_NUM, 2 * coreNum),
+                config.getInt(Dict.PROPERTY_SYNC_INFERENCE_QUEUE_SIZE, 1000));
+        asyncInferencePool = new InferenceWorkerPool("inference-worker",
+                config.getInt(Dict.PROPERTY_INFERENCE_WORKER_THREAD_NUM, coreNum),
+                config.getInt(Dict.PROPERTY_INFERENCE_WORKER_QUEUE_SIZE, 1000));
+        hostInferencePool = new InferenceWorkerPool("host-inference",
+                config.getInt(Dict.PROPERTY_HOST_INFERENCE_THREAD_NUM, 2 * coreNum),
+                config.getInt(Dict.PROPERTY_HOST_INFERENCE_QUEUE_SIZE, 1000));
     }
 
+    /**
+     * runs an async inference job
+     *
+     * @throws java.util.concurrent.RejectedExecutionException if the pool is exhausted
+     */
     public static void exetute(Runnable task) {
-        threadPoolExecutor.execute(task);
+        asyncInferencePool.execute(task);
     }
 
-    public static void prestartAllCoreThreads() {
-        threadPoolExecutor.prestartAllCoreThreads();
+    /**
+     * @throws java.util.concurrent.RejectedExecutionException if the pool is exhausted
+     */
+    public static void executeSyncInference(Runnable task) {
+        syncInferencePool.execute(task);
     }
 
-    static class InferenceWorkerThreadFactory implements ThreadFactory {
-        private final AtomicInteger mThreadNum = new AtomicInteger(1);
+    /**
+     * @throws java.util.concurrent.RejectedExecutionException if the pool is exhausted
+     */
+    public static void executeHostInference(Runnable task) {
+        hostInferencePool.execute(task);
+    }
 
-        @Override
-        public Thread newThread(Runnable r) {
-            Thread t = new Thread(r, "inference-worker-thread-" + mThreadNum.getAndIncrement());
-            if (logger.isDebugEnabled()) {
-                logger.debug("{} thead has ben created.", t.getName());
-            }
-            return t;
-        }
+    public static void prestartAllCoreThreads() {
+        syncInferencePool.prestartAllCoreThreads();
+        asyncInferencePool.prestartAllCoreThreads();
+        hostInferencePool.prestartAllCoreThreads();
     }
 
-    public static class InferenceWorkerThreadRejectedPolicy implements RejectedExecutionHandler {
-        @Override
-        public void rejectedExecution(Runnable r, ThreadPoolExecutor e) {
-            if (logger.isDebugEnabled()) {
-                logger.debug("{} rejected.", r.toString());
-            }
-        }
+    public static void registerMetrics(MetricRegistry metricRegistry) {
+        syncInferencePool.registerMetrics(metricRegistry);
+        asyncInferencePool.registerMetrics(metricRegistry);
+        hostInferencePool.registerMetrics(metricRegistry);
     }
 }
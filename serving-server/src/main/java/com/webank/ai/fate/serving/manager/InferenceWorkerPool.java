@@ -0,0 +1,106 @@
+/*
+ * Copyright 2019 The FATE Authors. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.webank.ai.fate.serving.manager;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.webank.ai.fate.register.common.NamedThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.*;
+
+/**
+ * a thread pool with a bounded queue that measures how long tasks wait in the queue.
+ * a full pool throws RejectedExecutionException, callers answer RESOURCE_EXHAUSTED instead of queueing more
+ */
+public class InferenceWorkerPool extends ThreadPoolExecutor {
+    private static final Logger logger = LoggerFactory.getLogger(InferenceWorkerPool.class);
+
+    private final String name;
+    private final Timer queueTimer = new Timer();
+    private final Meter rejectedMeter = new Meter();
+
+    public InferenceWorkerPool(String name, int threadNum, int queueSize) {
+        this(name, threadNum, threadNum, 60000, queueSize);
+    }
+
+    public InferenceWorkerPool(String name, int coreThreadNum, int maxThreadNum, long keepAliveMillis, int queueSize) {
+        super(coreThreadNum, Math.max(coreThreadNum, maxThreadNum), keepAliveMillis, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), new NamedThreadFactory(name), new RejectedPolicy());
+        this.name = name;
+        logger.info("worker pool {} threads {}-{} queue size {}", name, coreThreadNum, getMaximumPoolSize(), queueSize);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        super.execute(new QueuedTask(command));
+    }
+
+    @Override
+    protected void beforeExecute(Thread t, Runnable r) {
+        if (r instanceof QueuedTask) {
+            queueTimer.update(System.nanoTime() - ((QueuedTask) r).enqueueTime, TimeUnit.NANOSECONDS);
+        }
+        super.beforeExecute(t, r);
+    }
+
+    /**
+     * executor.{name}.queue.time, .rejected, .queue.size and .active
+     */
+    public void registerMetrics(MetricRegistry metricRegistry) {
+        metricRegistry.register(MetricRegistry.name("executor", name, "queue.time"), queueTimer);
+        metricRegistry.register(MetricRegistry.name("executor", name, "rejected"), rejectedMeter);
+        metricRegistry.register(MetricRegistry.name("executor", name, "queue.size"), (Gauge<Integer>) () -> getQueue().size());
+        metricRegistry.register(MetricRegistry.name("executor", name, "active"), (Gauge<Integer>) this::getActiveCount);
+    }
+
+    private static class QueuedTask implements Runnable {
+        private final Runnable task;
+        private final long enqueueTime = System.nanoTime();
+
+        QueuedTask(Runnable task) {
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            task.run();
+        }
+
+        @Override
+        public String toString() {
+            return task.toString();
+        }
+    }
+
+    private static class RejectedPolicy implements RejectedExecutionHandler {
+        @Override
+        public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+            InferenceWorkerPool pool = (InferenceWorkerPool) executor;
+            pool.rejectedMeter.mark();
+            throw new RejectedExecutionException("worker pool " + pool.name + " is exhausted, active "
+                    + pool.getActiveCount() + " queued " + pool.getQueue().size());
+        }
+    }
+}
@@ -18,16 +18,24 @@ package com.webank.ai.fate.serving.service;
 
 import com.alibaba.fastjson.JSON;
 import com.codahale.metrics.MetricRegistry;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.protobuf.ByteString;
 import com.webank.ai.fate.api.serving.InferenceServiceGrpc;
 import com.webank.ai.fate.api.serving.InferenceServiceProto.InferenceMessage;
 import com.webank.ai.fate.register.annotions.RegisterService;
+import com.webank.ai.fate.serving.bean.BatchInferenceRequest;
 import com.webank.ai.fate.serving.bean.InferenceRequest;
 import com.webank.ai.fate.serving.core.bean.*;
 import com.webank.ai.fate.serving.core.constant.InferenceRetCode;
+import com.webank.ai.fate.serving.core.utils.DeadlineUtils;
 import com.webank.ai.fate.serving.core.utils.ObjectTransform;
 import com.webank.ai.fate.serving.guest.GuestInferenceProvider;
+import com.webank.ai.fate.serving.manager.InferenceWorkerManager;
 import com.webank.ai.fate.serving.utils.InferenceUtils;
+import io.grpc.Status;
 import io.grpc.stub.StreamObserver;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -35,6 +43,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 @Service
 public class InferenceService extends InferenceServiceGrpc.InferenceServiceImplBase {
@@ -48,77 +57,133 @@ public class InferenceService extends InferenceServiceGrpc.InferenceServiceImplB
     @Override
     @RegisterService(useDynamicEnvironment = true, serviceName = "inference")
     public void inference(InferenceMessage req, StreamObserver<InferenceMessage> responseObserver) {
-        inferenceServiceAction(req, responseObserver, InferenceActionType.SYNC_RUN);
+        dispatchInferenceServiceAction(req, responseObserver, InferenceActionType.SYNC_RUN);
     }
 
     @Override
     @RegisterService(serviceName = "getInferenceResult" ,useDynamicEnvironment = true)
     public void getInferenceResult(InferenceMessage req, StreamObserver<InferenceMessage> responseObserver) {
-        inferenceServiceAction(req, responseObserver, InferenceActionType.GET_RESULT);
+        inferenceServiceAction(req, responseObserver, InferenceActionType.GET_RESULT, DeadlineUtils.NO_DEADLINE);
     }
 
     @Override
     @RegisterService(useDynamicEnvironment = true, serviceName = "startInferenceJob")
     public void startInferenceJob(InferenceMessage req, StreamObserver<InferenceMessage> responseObserver) {
-        inferenceServiceAction(req, responseObserver, InferenceActionType.ASYNC_RUN);
+        inferenceServiceAction(req, responseObserver, InferenceActionType.ASYNC_RUN, DeadlineUtils.NO_DEADLINE);
 
     }
 
-    private void inferenceServiceAction(InferenceMessage req, StreamObserver<InferenceMessage> responseObserver, InferenceActionType actionType) {
+    @Override
+    @RegisterService(useDynamicEnvironment = true, serviceName = "batchInference")
+    public void batchInference(InferenceMessage req, StreamObserver<InferenceMessage> responseObserver) {
+        dispatchInferenceServiceAction(req, responseObserver, InferenceActionType.BATCH_RUN);
+    }
+
+    /**
+     * moves the inference off the grpc thread into the bounded sync inference pool,
+     * the caller's deadline bounds every remote call made for it
+     */
+    private void dispatchInferenceServiceAction(InferenceMessage req, StreamObserver<InferenceMessage> responseObserver, InferenceActionType actionType) {
+        long deadline = DeadlineUtils.fromGrpcContext();
+        try {
+            InferenceWorkerManager.executeSyncInference(io.grpc.Context.current().wrap(() -> inferenceServiceAction(req, responseObserver, actionType, deadline)));
+        } catch (RejectedExecutionException e) {
+            logger.warn("inference {} rejected: {}", actionType, e.getMessage());
+            responseObserver.onError(Status.RESOURCE_EXHAUSTED.withDescription(e.getMessage()).asRuntimeException());
+        }
+    }
+
+    private void inferenceServiceAction(InferenceMessage req, StreamObserver<InferenceMessage> responseObserver, InferenceActionType actionType, long deadline) {
+        if (DeadlineUtils.isExpired(deadline)) {
+            logger.warn("inference {} expired before it was served", actionType);
+            metricRegistry.meter("guest.inference.expired").mark();
+            responseObserver.onError(Status.DEADLINE_EXCEEDED.withDescription("deadline expired before inference").asRuntimeException());
+            return;
+        }
 
-        InferenceMessage.Builder response = InferenceMessage.newBuilder();
-        ReturnResult returnResult = new ReturnResult();
         InferenceRequest inferenceRequest = null;
         Context context = new BaseContext(new GuestInferenceLoggerPrinter(),actionType.name(),metricRegistry);
+        context.setDeadline(deadline);
         context.preProcess();
+        ListenableFuture<ReturnResult> resultFuture;
 
         try {
-            try {
-                context.putData(Dict.ORIGIN_REQUEST, req.getBody().toStringUtf8());
-                inferenceRequest = (InferenceRequest) JSON.parseObject(req.getBody().toStringUtf8(), InferenceRequest.class);
+            context.putData(Dict.ORIGIN_REQUEST, req.getBody().toStringUtf8());
+            Class<? extends InferenceRequest> requestClass = actionType == InferenceActionType.BATCH_RUN ? BatchInferenceRequest.class : InferenceRequest.class;
+            inferenceRequest = JSON.parseObject(req.getBody().toStringUtf8(), requestClass);
 
-                if (inferenceRequest != null) {
-                    if (inferenceRequest.getCaseid().length() == 0) {
-                        inferenceRequest.setCaseId(InferenceUtils.generateCaseid());
-                    }
-                    Map<String,Object> sendToRemoteFeatureData = inferenceRequest.getSendToRemoteFeatureData();
-                    if(sendToRemoteFeatureData!=null) {
-                        inferenceRequest.getFeatureData().putAll(sendToRemoteFeatureData);
-                    }
-                    context.setCaseId(inferenceRequest.getCaseid());
-
-
-                    switch (actionType.name()) {
-                        case "SYNC_RUN":
-                            returnResult = guestInferenceProvider.syncInference(context, inferenceRequest);
-                            break;
-                        case "GET_RESULT":
-                            returnResult = guestInferenceProvider.getResult(context, inferenceRequest);
-                            break;
-                        case "ASYNC_RUN":
-                            returnResult = guestInferenceProvider.asynInference(context, inferenceRequest);
-                            break;
-                        default:
-                            throw new Exception();
-                    }
+            if (inferenceRequest != null) {
+                if (inferenceRequest.getCaseid().length() == 0) {
+                    inferenceRequest.setCaseId(InferenceUtils.generateCaseid());
+                }
+                Map<String,Object> sendToRemoteFeatureData = inferenceRequest.getSendToRemoteFeatureData();
+                if(sendToRemoteFeatureData!=null) {
+                    inferenceRequest.getFeatureData().putAll(sendToRemoteFeatureData);
+                }
+                context.setCaseId(inferenceRequest.getCaseid());
+
+
+                switch (actionType.name()) {
+                    case "SYNC_RUN":
+                        resultFuture = guestInferenceProvider.inferenceAsync(context, inferenceRequest);
+                        break;
+                    case "GET_RESULT":
+                        resultFuture = Futures.immediateFuture(guestInferenceProvider.getResult(context, inferenceRequest));
+                        break;
+                    case "ASYNC_RUN":
+                        resultFuture = Futures.immediateFuture(guestInferenceProvider.asynInference(context, inferenceRequest));
+                        break;
+                    case "BATCH_RUN":
+                        resultFuture = Futures.immediateFuture(guestInferenceProvider.batchInference(context, (BatchInferenceRequest) inferenceRequest));
+                        break;
+                    default:
+                        throw new Exception();
+                }
+            } else {
+                ReturnResult returnResult = new ReturnResult();
+                returnResult.setRetcode(InferenceRetCode.EMPTY_DATA);
+                resultFuture = Futures.immediateFuture(returnResult);
+            }
+        } catch (Throwable e) {
+            resultFuture = Futures.immediateFailedFuture(e);
+        }
 
-                    if (returnResult.getRetcode() != InferenceRetCode.OK) {
-                        logger.info("caseid {} inference {} failed: {}  result {}", context.getCaseId(), actionType, req.getBody().toStringUtf8(), returnResult);
-                    }
-                } else {
+        InferenceRequest finalInferenceRequest = inferenceRequest;
+        Futures.addCallback(resultFuture, new FutureCallback<ReturnResult>() {
+            @Override
+            public void onSuccess(ReturnResult returnResult) {
+                if (returnResult.getRetcode() != InferenceRetCode.OK) {
+                    logger.info("caseid {} inference {} failed: {}  result {}", context.getCaseId(), actionType, req.getBody().toStringUtf8(), returnResult);
+                }
+                sendResponse(context, finalInferenceRequest, returnResult, responseObserver);
+            }
 
-                    returnResult.setRetcode(InferenceRetCode.EMPTY_DATA);
+            @Override
+            public void onFailure(Throwable e) {
+                if (e instanceof RejectedExecutionException) {
+                    logger.warn("inference {} rejected: {}", actionType, e.getMessage());
+                    try {
+                        responseObserver.onError(Status.RESOURCE_EXHAUSTED.withDescription(e.getMessage()).asRuntimeException());
+                    } finally {
+                        context.postProcess(finalInferenceRequest, null);
+                    }
+                    return;
                 }
-            } catch (Throwable e) {
+                ReturnResult returnResult = new ReturnResult();
                 returnResult.setRetcode(InferenceRetCode.SYSTEM_ERROR);
                 logger.error(String.format("inference system error:\n%s", req.getBody().toStringUtf8()), e);
+                sendResponse(context, finalInferenceRequest, returnResult, responseObserver);
             }
+        }, MoreExecutors.directExecutor());
+    }
 
+    private void sendResponse(Context context, InferenceRequest inferenceRequest, ReturnResult returnResult, StreamObserver<InferenceMessage> responseObserver) {
+        try {
+            InferenceMessage.Builder response = InferenceMessage.newBuilder();
             response.setBody(ByteString.copyFrom(ObjectTransform.bean2Json(returnResult).getBytes()));
             responseObserver.onNext(response.build());
             responseObserver.onCompleted();
         } finally {
-
             context.postProcess(inferenceRequest, returnResult);
         }
     }
@@ -16,25 +16,34 @@
 
 package com.webank.ai.fate.serving.service;
 
-import com.alibaba.fastjson.JSON;
 import com.codahale.metrics.MetricRegistry;
-import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
 import com.webank.ai.fate.api.networking.proxy.DataTransferServiceGrpc;
 import com.webank.ai.fate.api.networking.proxy.Proxy;
 import com.webank.ai.fate.api.networking.proxy.Proxy.Packet;
 import com.webank.ai.fate.register.annotions.RegisterService;
 import com.webank.ai.fate.serving.core.bean.*;
-import com.webank.ai.fate.serving.core.utils.ObjectTransform;
+import com.webank.ai.fate.serving.core.utils.DeadlineUtils;
+import com.webank.ai.fate.serving.federatedml.FederatedPayloadCodec;
 import com.webank.ai.fate.serving.host.HostInferenceProvider;
+import com.webank.ai.fate.serving.manager.InferenceWorkerManager;
+import io.grpc.Status;
 import io.grpc.stub.StreamObserver;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.RejectedExecutionException;
+
 @Service
 public class ProxyService extends DataTransferServiceGrpc.DataTransferServiceImplBase {
     private static final Logger logger = LoggerFactory.getLogger(ProxyService.class);
+    /**
+     * the bitmask answer discloses the host's decision on every split below the guest's location,
+     * not only on the path the row takes, so it is only served when the host opts in
+     */
+    private static final ConfigValue<Boolean> serveTreeSingleRound = ConfigValue.ofBoolean(Dict.PROPERTY_SERVE_TREE_SINGLE_ROUND, false);
     @Autowired
     HostInferenceProvider hostInferenceProvider;
     @Autowired
@@ -43,21 +52,39 @@ public class ProxyService extends DataTransferServiceGrpc.DataTransferServiceImp
     @Override
     @RegisterService(serviceName = Dict.UNARYCALL, useDynamicEnvironment = true)
     public void unaryCall(Proxy.Packet req, StreamObserver<Proxy.Packet> responseObserver) {
+        // the guest's budget also counts when a relay in between dropped the grpc deadline
+        long deadline = DeadlineUtils.earliest(DeadlineUtils.fromGrpcContext(),
+                DeadlineUtils.fromBudget(req.getHeader().getConf().getOverallTimeout()));
+        try {
+            InferenceWorkerManager.executeHostInference(io.grpc.Context.current().wrap(() -> hostInference(req, responseObserver, deadline)));
+        } catch (RejectedExecutionException e) {
+            logger.warn("unaryCall {} rejected: {}", req.getHeader().getCommand().getName(), e.getMessage());
+            responseObserver.onError(Status.RESOURCE_EXHAUSTED.withDescription(e.getMessage()).asRuntimeException());
+        }
+    }
+
+    private void hostInference(Proxy.Packet req, StreamObserver<Proxy.Packet> responseObserver, long deadline) {
         ReturnResult responseResult = null;
         String actionType =  req.getHeader().getCommand().getName();
+        if (DeadlineUtils.isExpired(deadline)) {
+            logger.warn("unaryCall {} expired before it was served", actionType);
+            metricRegistry.meter("host.inference.expired").mark();
+            responseObserver.onError(Status.DEADLINE_EXCEEDED.withDescription("deadline expired before inference").asRuntimeException());
+            return;
+        }
 
         Context context = new BaseContext(new HostInferenceLoggerPrinter(),actionType,metricRegistry);
         context.setActionType(req.getHeader().getCommand().getName());
+        context.setDeadline(deadline);
         context.preProcess();
         HostFederatedParams requestData = null;
 
         try {
 
-            String data = req.getBody().getValue().toStringUtf8();
+            requestData = FederatedPayloadCodec.decodeRequest(req.getBody());
             if (logger.isDebugEnabled()) {
-                logger.debug("unaryCall {} head {}", data, req.getHeader().getCommand().getName());
+                logger.debug("unaryCall {} head {}", requestData, req.getHeader().getCommand().getName());
             }
-            requestData = JSON.parseObject(data, HostFederatedParams.class);
             context.setCaseId(requestData.getCaseId() != null ? requestData.getCaseId() : Dict.NONE);
 
             switch (req.getHeader().getCommand().getName()) {
@@ -67,6 +94,15 @@ public class ProxyService extends DataTransferServiceGrpc.DataTransferServiceImp
                 case Dict.FEDERATED_INFERENCE_FOR_TREE:
                     responseResult = hostInferenceProvider.federatedInferenceForTree(context, requestData);
                     break;
+                case Dict.FEDERATED_INFERENCE_FOR_TREE_BITMASK:
+                    if (serveTreeSingleRound.get()) {
+                        responseResult = hostInferenceProvider.federatedInferenceForTreeBitmask(context, requestData);
+                    } else {
+                        responseResult = new ReturnResult();
+                        responseResult.setRetcode(StatusCode.PARAMERROR);
+                        responseResult.setRetmsg("serveTreeSingleRound is disabled");
+                    }
+                    break;
 
                 default:
                     responseResult = new ReturnResult();
@@ -75,9 +111,7 @@ public class ProxyService extends DataTransferServiceGrpc.DataTransferServiceImp
             }
 
             Packet.Builder packetBuilder = Packet.newBuilder();
-            packetBuilder.setBody(Proxy.Data.newBuilder()
-                    .setValue(ByteString.copyFrom(ObjectTransform.bean2Json(responseResult).getBytes()))
-                    .build());
+            packetBuilder.setBody(FederatedPayloadCodec.encodeResponse(req.getBody(), responseResult));
 
             Proxy.Metadata.Builder metaDataBuilder = Proxy.Metadata.newBuilder();
             Proxy.Topic.Builder topicBuilder = Proxy.Topic.newBuilder();
@@ -99,6 +133,9 @@ public class ProxyService extends DataTransferServiceGrpc.DataTransferServiceImp
             packetBuilder.setHeader(metaDataBuilder.build());
             responseObserver.onNext(packetBuilder.build());
             responseObserver.onCompleted();
+        } catch (InvalidProtocolBufferException e) {
+            logger.error("unaryCall invalid request body", e);
+            responseObserver.onError(Status.INVALID_ARGUMENT.withDescription(e.getMessage()).asRuntimeException());
         } finally {
             context.postProcess(requestData, responseResult);
 
@@ -16,14 +16,27 @@
 
 package com.webank.ai.fate.serving.service;
 
+import com.webank.ai.fate.serving.core.bean.Configuration;
+import com.webank.ai.fate.serving.core.bean.Dict;
+import com.webank.ai.fate.serving.core.limit.GradientConcurrencyLimiter;
 import io.grpc.*;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * sheds calls with RESOURCE_EXHAUSTED once a service runs more calls than its adaptive concurrency limit,
+ * the limit is learned from the latency of the calls that complete
+ */
 public class ServiceOverloadProtectionHandle implements ServerInterceptor {
     private static final Logger logger = LoggerFactory.getLogger(ServiceOverloadProtectionHandle.class);
 
+    private final boolean enable = Boolean.parseBoolean(Configuration.getProperty(Dict.PROPERTY_CONCURRENCY_LIMIT_ENABLE, "true"));
+    private final ConcurrentMap<String, GradientConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+
     @Override
     public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> serverCall, Metadata metadata, ServerCallHandler<ReqT, RespT> serverCallHandler) {
         String fullMethodName = serverCall.getMethodDescriptor().getFullMethodName();
@@ -31,33 +44,76 @@ public class ServiceOverloadProtectionHandle implements ServerInterceptor {
         if (StringUtils.isBlank(serviceName)) {
             serverCall.close(Status.DATA_LOSS, metadata);
         }
+        if (!enable) {
+            return serverCallHandler.startCall(serverCall, metadata);
+        }
 
-        ServerCall.Listener<ReqT> delegate = serverCallHandler.startCall(serverCall, metadata);
+        GradientConcurrencyLimiter limiter = limiters.computeIfAbsent(serviceName, ServiceOverloadProtectionHandle::newLimiter);
+        GradientConcurrencyLimiter.Token token = limiter.tryAcquire();
+        if (token == null) {
+            logger.warn("{} rejected, concurrency limit {} reached", fullMethodName, limiter.getLimit());
+            serverCall.close(Status.RESOURCE_EXHAUSTED.withDescription("concurrency limit " + limiter.getLimit() + " reached"), new Metadata());
+            return new ServerCall.Listener<ReqT>() {
+            };
+        }
+
+        ServerCall<ReqT, RespT> limitedCall = new ForwardingServerCall.SimpleForwardingServerCall<ReqT, RespT>(serverCall) {
+            @Override
+            public void close(Status status, Metadata trailers) {
+                switch (status.getCode()) {
+                    case OK:
+                        token.onSuccess();
+                        break;
+                    case DEADLINE_EXCEEDED:
+                    case RESOURCE_EXHAUSTED:
+                    case UNAVAILABLE:
+                        token.onDropped();
+                        break;
+                    default:
+                        token.onIgnore();
+                }
+                super.close(status, trailers);
+            }
+        };
+
+        ServerCall.Listener<ReqT> delegate;
+        try {
+            delegate = serverCallHandler.startCall(limitedCall, metadata);
+        } catch (RuntimeException e) {
+            token.onIgnore();
+            throw e;
+        }
         return new ForwardingServerCallListener.SimpleForwardingServerCallListener<ReqT>(delegate) {
 
             @Override
             public void onHalfClose() {
                 try {
-
                     super.onHalfClose();
                 } catch (Exception e) {
                     logger.error("ServiceException:", e);
-                    serverCall.close(Status.CANCELLED.withCause(e).withDescription(e.getMessage()), metadata);
+                    limitedCall.close(Status.CANCELLED.withCause(e).withDescription(e.getMessage()), metadata);
                 }
             }
 
             @Override
             public void onCancel() {
-
+                token.onIgnore();
                 super.onCancel();
             }
 
             @Override
             public void onComplete() {
-
+                token.onIgnore();
                 super.onComplete();
-//                WatchDog.getCount();
             }
         };
     }
+
+    private static GradientConcurrencyLimiter newLimiter(String serviceName) {
+        return new GradientConcurrencyLimiter(serviceName,
+                Configuration.getPropertyInt(Dict.PROPERTY_CONCURRENCY_LIMIT_INITIAL, 100),
+                Configuration.getPropertyInt(Dict.PROPERTY_CONCURRENCY_LIMIT_MIN, 10),
+                Configuration.getPropertyInt(Dict.PROPERTY_CONCURRENCY_LIMIT_MAX, 1000),
+                Double.parseDouble(Configuration.getProperty(Dict.PROPERTY_CONCURRENCY_LIMIT_RTT_TOLERANCE, "2.0")));
+    }
 }